@@ -190,10 +190,14 @@ public abstract class KNXChannelType {
                 .filter(spec -> !spec.getGroupAddresses().isEmpty()).collect(toList());
     }
 
-    public final @Nullable InboundSpec getListenSpec(Configuration configuration, GroupAddress groupAddress) {
-        Optional<ListenSpecImpl> result = getAllGAKeys().stream()
+    public final List<InboundSpec> getListenSpecs(Configuration configuration) {
+        return getAllGAKeys().stream()
                 .map(key -> new ListenSpecImpl(parse((String) configuration.get(key)), getDefaultDPT(key)))
-                .filter(spec -> !spec.getGroupAddresses().isEmpty())
+                .filter(spec -> !spec.getGroupAddresses().isEmpty()).collect(toList());
+    }
+
+    public final @Nullable InboundSpec getListenSpec(Configuration configuration, GroupAddress groupAddress) {
+        Optional<InboundSpec> result = getListenSpecs(configuration).stream()
                 .filter(spec -> spec.getGroupAddresses().contains(groupAddress)).findFirst();
         return result.isPresent() ? result.get() : null;
     }
@@ -12,12 +12,18 @@
  */
 package org.openhab.binding.knx.internal.client;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -38,6 +44,8 @@ import tuwien.auto.calimero.FrameEvent;
 import tuwien.auto.calimero.GroupAddress;
 import tuwien.auto.calimero.IndividualAddress;
 import tuwien.auto.calimero.KNXException;
+import tuwien.auto.calimero.cemi.CEMI;
+import tuwien.auto.calimero.cemi.CEMILData;
 import tuwien.auto.calimero.datapoint.CommandDP;
 import tuwien.auto.calimero.datapoint.Datapoint;
 import tuwien.auto.calimero.device.ProcessCommunicationResponder;
@@ -64,6 +72,8 @@ import tuwien.auto.calimero.process.ProcessListener;
 public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClient {
 
     private static final int MAX_SEND_ATTEMPTS = 2;
+    // APCI of a GroupValue_Read, without data
+    private static final byte[] GROUP_READ_APDU = new byte[] { 0x00, 0x00 };
 
     private final Logger logger = LoggerFactory.getLogger(AbstractKNXClient.class);
     private final KNXTypeMapper typeHelper = new KNXCoreTypeMapper();
@@ -85,16 +95,53 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     private @Nullable ScheduledFuture<?> busJob;
     private @Nullable ScheduledFuture<?> connectJob;
 
-    private final Set<GroupAddressListener> groupAddressListeners = new CopyOnWriteArraySet<>();
-    private final LinkedBlockingQueue<ReadDatapoint> readDatapoints = new LinkedBlockingQueue<>();
+    // listeners by the group addresses they listen to, and the addresses they were indexed with
+    private final Map<GroupAddress, Set<GroupAddressListener>> listenersByAddress = new ConcurrentHashMap<>();
+    private final Map<GroupAddressListener, Set<GroupAddress>> indexedAddresses = new ConcurrentHashMap<>();
+    private final Map<GroupAddressListener, PendingTelegrams> pendingTelegrams = new ConcurrentHashMap<>();
+    private final ReadScheduler readScheduler;
+    // incremented on every disconnect, a read job of an earlier connection stops rescheduling itself
+    private final AtomicInteger connectionGeneration = new AtomicInteger();
 
     @FunctionalInterface
     private interface ListenerNotification {
         void apply(BusMessageListener listener, IndividualAddress source, GroupAddress destination, byte[] asdu);
     }
 
+    /**
+     * Telegrams not yet delivered to a listener. They are delivered in order, by one task for all telegrams which
+     * arrived in the meantime.
+     */
+    private class PendingTelegrams implements Runnable {
+        private final Queue<Runnable> telegrams = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void add(Runnable telegram) {
+            telegrams.add(telegram);
+            if (scheduled.compareAndSet(false, true)) {
+                knxScheduler.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Runnable telegram;
+                while ((telegram = telegrams.poll()) != null) {
+                    try {
+                        telegram.run();
+                    } catch (RuntimeException e) {
+                        logger.warn("Processing a KNX telegram failed: {}", e.getMessage(), e);
+                    }
+                }
+                scheduled.set(false);
+                // a telegram added after draining but before resetting the flag is delivered here
+            } while (!telegrams.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+
     @NonNullByDefault({})
-    private final ProcessListener processListener = new ProcessListener() {
+    final ProcessListener processListener = new ProcessListener() {
 
         @Override
         public void detached(DetachEvent e) {
@@ -103,6 +150,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
         @Override
         public void groupWrite(ProcessEvent e) {
+            readScheduler.answered(e.getDestination());
             processEvent("Group Write", e, (listener, source, destination, asdu) -> {
                 listener.onGroupWrite(AbstractKNXClient.this, source, destination, asdu);
             });
@@ -117,6 +165,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
         @Override
         public void groupReadResponse(ProcessEvent e) {
+            readScheduler.answered(e.getDestination());
             processEvent("Group Read Response", e, (listener, source, destination, asdu) -> {
                 listener.onGroupReadResponse(AbstractKNXClient.this, source, destination, asdu);
             });
@@ -130,6 +179,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         this.responseTimeout = responseTimeout;
         this.readingPause = readingPause;
         this.readRetriesLimit = readRetriesLimit;
+        this.readScheduler = new ReadScheduler(readingPause, TimeUnit.SECONDS.toMillis(responseTimeout));
         this.knxScheduler = knxScheduler;
         this.statusUpdateCallback = statusUpdateCallback;
     }
@@ -177,6 +227,8 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
             KNXNetworkLink link = establishConnection();
             this.link = link;
+            // listeners are notified in the order they were added, telegrams are seen here before they answer a read
+            link.addLinkListener(this);
 
             managementProcedures = new ManagementProceduresImpl(link);
 
@@ -194,10 +246,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
             ProcessCommunicationResponder responseCommunicator = new ProcessCommunicationResponder(link);
             this.responseCommunicator = responseCommunicator;
 
-            link.addLinkListener(this);
-
-            busJob = knxScheduler.scheduleWithFixedDelay(() -> readNextQueuedDatapoint(), 0, readingPause,
-                    TimeUnit.MILLISECONDS);
+            scheduleReadJob(connectionGeneration.get(), 0);
 
             statusUpdateCallback.updateStatus(ThingStatus.ONLINE);
             connectJob = null;
@@ -224,8 +273,9 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     @SuppressWarnings("null")
     private void releaseConnection() {
         logger.debug("Bridge {} is disconnecting from the KNX bus", thingUID);
-        readDatapoints.clear();
-        busJob = nullify(busJob, j -> j.cancel(true));
+        connectionGeneration.incrementAndGet();
+        readScheduler.clear();
+        busJob = nullify(busJob, j -> j.cancel(false));
         deviceInfoClient = null;
         managementProcedures = nullify(managementProcedures, mp -> mp.detach());
         managementClient = nullify(managementClient, mc -> mc.detach());
@@ -252,9 +302,14 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         IndividualAddress source = event.getSourceAddr();
         byte[] asdu = event.getASDU();
         logger.trace("Received a {} telegram from '{}' to '{}' with value '{}'", task, source, destination, asdu);
-        for (GroupAddressListener listener : groupAddressListeners) {
-            if (listener.listensTo(destination)) {
-                knxScheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
+        Set<GroupAddressListener> listeners = listenersByAddress.get(destination);
+        if (listeners == null) {
+            return;
+        }
+        for (GroupAddressListener listener : listeners) {
+            PendingTelegrams pending = pendingTelegrams.get(listener);
+            if (pending != null) {
+                pending.add(() -> action.apply(listener, source, destination, asdu));
             }
         }
     }
@@ -271,35 +326,51 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         return typeHelper.toDPTValue(type, dpt);
     }
 
-    @SuppressWarnings("null")
-    private void readNextQueuedDatapoint() {
+    private void scheduleReadJob(int generation, long delay) {
+        if (generation == connectionGeneration.get()) {
+            busJob = knxScheduler.schedule(() -> readNextQueuedDatapoint(generation), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void readNextQueuedDatapoint(int generation) {
+        long delay = readingPause;
+        try {
+            if (sendNextQueuedDatapoint()) {
+                delay = readScheduler.getPause(System.currentTimeMillis());
+            }
+        } finally {
+            scheduleReadJob(generation, Math.max(delay, 1));
+        }
+    }
+
+    /**
+     * Sends the next queued read request, without waiting for the answer. The answer is received by the process
+     * listener like any other telegram.
+     *
+     * @return whether a read request was sent
+     */
+    private boolean sendNextQueuedDatapoint() {
         if (!connectIfNotAutomatic()) {
-            return;
+            return false;
         }
-        ProcessCommunicator processCommunicator = this.processCommunicator;
-        if (processCommunicator == null) {
-            return;
+        KNXNetworkLink link = this.link;
+        if (link == null) {
+            return false;
         }
-        ReadDatapoint datapoint = readDatapoints.poll();
-        if (datapoint != null) {
-            datapoint.incrementRetries();
-            try {
-                logger.trace("Sending a Group Read Request telegram for {}", datapoint.getDatapoint().getMainAddress());
-                processCommunicator.read(datapoint.getDatapoint());
-            } catch (KNXException e) {
-                if (datapoint.getRetries() < datapoint.getLimit()) {
-                    readDatapoints.add(datapoint);
-                    logger.debug("Could not read value for datapoint {}: {}. Going to retry.",
-                            datapoint.getDatapoint().getMainAddress(), e.getMessage());
-                } else {
-                    logger.warn("Giving up reading datapoint {}, the number of maximum retries ({}) is reached.",
-                            datapoint.getDatapoint().getMainAddress(), datapoint.getLimit());
-                }
-            } catch (InterruptedException e) {
-                logger.debug("Interrupted sending KNX read request");
-                return;
-            }
+        ReadDatapoint datapoint = readScheduler.pollNext(System.currentTimeMillis());
+        if (datapoint == null) {
+            return false;
         }
+        datapoint.incrementRetries();
+        Datapoint dp = datapoint.getDatapoint();
+        try {
+            logger.trace("Sending a Group Read Request telegram for {}", dp.getMainAddress());
+            link.sendRequest(dp.getMainAddress(), dp.getPriority(), GROUP_READ_APDU);
+        } catch (KNXException e) {
+            logger.debug("Could not send read request for datapoint {}: {}", dp.getMainAddress(), e.getMessage());
+            readScheduler.sendFailed(datapoint);
+        }
+        return true;
     }
 
     public void dispose() {
@@ -324,12 +395,23 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
     @Override
     public void indication(@Nullable FrameEvent e) {
-        // no-op
+        CEMI frame = e != null ? e.getFrame() : null;
+        KNXNetworkLink link = this.link;
+        if (frame instanceof CEMILData && link != null) {
+            CEMILData data = (CEMILData) frame;
+            // telegrams sent by this client do not make the bus busy for its read requests
+            if (!data.getSource().equals(link.getKNXMedium().getDeviceAddress())) {
+                readScheduler.busTelegram(data.getDestination(), System.currentTimeMillis());
+            }
+        }
     }
 
     @Override
     public void confirmation(@Nullable FrameEvent e) {
-        // no-op
+        CEMI frame = e != null ? e.getFrame() : null;
+        if (frame instanceof CEMILData) {
+            readScheduler.confirmation(((CEMILData) frame).isPositiveConfirmation());
+        }
     }
 
     @Override
@@ -367,23 +449,46 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     }
 
     @Override
-    public void readDatapoint(Datapoint datapoint) {
-        synchronized (this) {
-            ReadDatapoint retryDatapoint = new ReadDatapoint(datapoint, readRetriesLimit);
-            if (!readDatapoints.contains(retryDatapoint)) {
-                readDatapoints.add(retryDatapoint);
-            }
-        }
+    public void readDatapoint(Datapoint datapoint, ReadPriority priority) {
+        readScheduler.add(new ReadDatapoint(datapoint, readRetriesLimit), priority);
     }
 
     @Override
     public final boolean registerGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.add(listener);
+        synchronized (listenersByAddress) {
+            boolean added = pendingTelegrams.putIfAbsent(listener, new PendingTelegrams()) == null;
+            // the listener is indexed again, its group addresses may have changed
+            unindex(listener);
+            Set<GroupAddress> addresses = Collections.unmodifiableSet(listener.getGroupAddresses());
+            for (GroupAddress address : addresses) {
+                listenersByAddress.computeIfAbsent(address, a -> new CopyOnWriteArraySet<>()).add(listener);
+            }
+            indexedAddresses.put(listener, addresses);
+            return added;
+        }
     }
 
     @Override
     public final boolean unregisterGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.remove(listener);
+        synchronized (listenersByAddress) {
+            unindex(listener);
+            return pendingTelegrams.remove(listener) != null;
+        }
+    }
+
+    private void unindex(GroupAddressListener listener) {
+        Set<GroupAddress> addresses = indexedAddresses.remove(listener);
+        if (addresses != null) {
+            for (GroupAddress address : addresses) {
+                Set<GroupAddressListener> listeners = listenersByAddress.get(address);
+                if (listeners != null) {
+                    listeners.remove(listener);
+                    if (listeners.isEmpty()) {
+                        listenersByAddress.remove(address);
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -81,7 +81,18 @@ public interface KNXClient {
      *
      * @param datapoint the datapoint
      */
-    void readDatapoint(Datapoint datapoint);
+    default void readDatapoint(Datapoint datapoint) {
+        readDatapoint(datapoint, ReadPriority.NORMAL);
+    }
+
+    /**
+     * Schedule the given data point for asynchronous reading. Data points of a higher priority are read first, a data
+     * point which is already scheduled is read only once.
+     *
+     * @param datapoint the datapoint
+     * @param priority the priority of the read request
+     */
+    void readDatapoint(Datapoint datapoint, ReadPriority priority);
 
     /**
      * Write a command to the KNX bus.
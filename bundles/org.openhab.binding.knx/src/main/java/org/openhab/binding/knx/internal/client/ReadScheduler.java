@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.KNXAddress;
+
+/**
+ * Decides which group read request is sent to the KNX bus next, and when.
+ * <p>
+ * Requests are sent by priority, and in the order they were queued within a priority. Only one request per group
+ * address is queued, a request for an address which is already queued or waiting for its answer is dropped, or
+ * raises the priority of the queued request.
+ * <p>
+ * Up to {@code window} requests may wait for their answer at the same time. A request is answered by any group write
+ * or read response telegram to its address, and times out after the response timeout, it is then queued again with
+ * {@link ReadPriority#LOW} until the retry limit is reached. The window grows with answered requests and shrinks on
+ * timeouts and negative confirmations, which also lengthen the pause between two requests. The pause never drops below
+ * the configured reading pause, and is doubled while the bus is busy with telegrams of other devices. Answers to the
+ * outstanding requests of this client do not count as such telegrams.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadScheduler {
+
+    static final int MAX_WINDOW = 8;
+    // telegrams per second from which the bus is considered busy, a TP1 line transports about 50
+    static final int BUSY_BUS_TELEGRAMS = 25;
+
+    private final Logger logger = LoggerFactory.getLogger(ReadScheduler.class);
+
+    private final int minPause;
+    private final int maxPause;
+    private final long responseTimeout;
+
+    private static class QueuedRead implements Comparable<QueuedRead> {
+        final ReadDatapoint datapoint;
+        final ReadPriority priority;
+        final long sequence;
+
+        QueuedRead(ReadDatapoint datapoint, ReadPriority priority, long sequence) {
+            this.datapoint = datapoint;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedRead other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final PriorityQueue<QueuedRead> queue = new PriorityQueue<>();
+    // the current queued read per address, reads in the queue which are not in here were replaced
+    private final Map<GroupAddress, QueuedRead> queued = new HashMap<>();
+    // sent reads waiting for their answer, by the time they were sent
+    private final Map<GroupAddress, Long> outstanding = new LinkedHashMap<>();
+    private final Map<GroupAddress, ReadDatapoint> outstandingDatapoints = new HashMap<>();
+    private long sequence = 0;
+
+    private int window = 1;
+    private int answersInWindow = 0;
+    private int pause;
+    private long busSecond = 0;
+    private int busTelegrams = 0;
+    private int lastBusTelegrams = 0;
+
+    /**
+     * @param readingPause minimum pause between two read requests in milliseconds
+     * @param responseTimeout time in milliseconds after which an unanswered read request is retried
+     */
+    public ReadScheduler(int readingPause, long responseTimeout) {
+        this.minPause = Math.max(readingPause, 0);
+        this.maxPause = Math.max(minPause * 20, 1000);
+        this.responseTimeout = responseTimeout;
+        this.pause = minPause;
+    }
+
+    /**
+     * Queues a read request.
+     *
+     * @return {@code true} if it was queued, {@code false} if the address is already queued or waiting for its answer
+     */
+    public synchronized boolean add(ReadDatapoint datapoint, ReadPriority priority) {
+        GroupAddress address = datapoint.getDatapoint().getMainAddress();
+        QueuedRead current = queued.get(address);
+        if (outstanding.containsKey(address) || (current != null && current.priority.compareTo(priority) <= 0)) {
+            return false;
+        }
+        // a queued read of lower priority is replaced and skipped when it is polled
+        QueuedRead read = new QueuedRead(current != null ? current.datapoint : datapoint, priority, sequence++);
+        queued.put(address, read);
+        queue.add(read);
+        return true;
+    }
+
+    /**
+     * Returns the next read request to send, if the window allows another one, and marks it as sent: it waits for its
+     * answer until the response timeout. Timed out requests are queued again before, or given up if their retry limit
+     * is reached.
+     */
+    public synchronized @Nullable ReadDatapoint pollNext(long now) {
+        expire(now);
+        if (outstanding.size() >= window) {
+            return null;
+        }
+        QueuedRead read;
+        while ((read = queue.poll()) != null) {
+            GroupAddress address = read.datapoint.getDatapoint().getMainAddress();
+            if (queued.get(address) == read) {
+                queued.remove(address);
+                outstanding.put(address, now);
+                outstandingDatapoints.put(address, read.datapoint);
+                return read.datapoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A read request could not be sent, it is retried if the retry limit is not reached.
+     */
+    public synchronized void sendFailed(ReadDatapoint datapoint) {
+        GroupAddress address = datapoint.getDatapoint().getMainAddress();
+        outstanding.remove(address);
+        outstandingDatapoints.remove(address);
+        slowDown();
+        retry(datapoint);
+    }
+
+    /**
+     * A telegram with a value for the address was received.
+     */
+    public synchronized void answered(GroupAddress address) {
+        if (outstanding.remove(address) == null) {
+            return;
+        }
+        outstandingDatapoints.remove(address);
+        // additive increase, the window grows by one when a whole window was answered
+        if (++answersInWindow >= window) {
+            answersInWindow = 0;
+            window = Math.min(MAX_WINDOW, window + 1);
+        }
+        pause = Math.max(minPause, pause - Math.max(1, minPause / 10));
+    }
+
+    /**
+     * The link confirmed a frame sent by this client.
+     */
+    public synchronized void confirmation(boolean positive) {
+        if (!positive) {
+            logger.debug("Negative confirmation from the KNX bus, slowing down read requests");
+            slowDown();
+        }
+    }
+
+    /**
+     * A telegram of another device was received. Answers to outstanding read requests are not counted, they are
+     * caused by this client.
+     */
+    public synchronized void busTelegram(KNXAddress destination, long now) {
+        if (outstanding.containsKey(destination)) {
+            return;
+        }
+        long second = now / 1000;
+        if (second != busSecond) {
+            lastBusTelegrams = second == busSecond + 1 ? busTelegrams : 0;
+            busSecond = second;
+            busTelegrams = 0;
+        }
+        busTelegrams++;
+    }
+
+    /**
+     * Returns the pause in milliseconds before the next read request should be sent.
+     */
+    public synchronized int getPause(long now) {
+        long second = now / 1000;
+        // telegrams of the current and the last second
+        int telegrams = second == busSecond ? Math.max(lastBusTelegrams, busTelegrams)
+                : second == busSecond + 1 ? busTelegrams : 0;
+        return telegrams >= BUSY_BUS_TELEGRAMS ? Math.min(maxPause, pause * 2) : pause;
+    }
+
+    /**
+     * Drops all queued and outstanding read requests.
+     */
+    public synchronized void clear() {
+        queue.clear();
+        queued.clear();
+        outstanding.clear();
+        outstandingDatapoints.clear();
+        window = 1;
+        answersInWindow = 0;
+        pause = minPause;
+    }
+
+    private void expire(long now) {
+        Iterator<Map.Entry<GroupAddress, Long>> iterator = outstanding.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<GroupAddress, Long> entry = iterator.next();
+            if (now - entry.getValue() < responseTimeout) {
+                // ordered by the time they were sent
+                break;
+            }
+            iterator.remove();
+            ReadDatapoint datapoint = outstandingDatapoints.remove(entry.getKey());
+            slowDown();
+            if (datapoint != null) {
+                retry(datapoint);
+            }
+        }
+    }
+
+    private void retry(ReadDatapoint datapoint) {
+        GroupAddress address = datapoint.getDatapoint().getMainAddress();
+        if (datapoint.getRetries() < datapoint.getLimit()) {
+            logger.debug("Could not read value for datapoint {}. Going to retry.", address);
+            add(datapoint, ReadPriority.LOW);
+        } else {
+            logger.warn("Giving up reading datapoint {}, the number of maximum retries ({}) is reached.", address,
+                    datapoint.getLimit());
+        }
+    }
+
+    // multiplicative decrease
+    private void slowDown() {
+        window = Math.max(1, window / 2);
+        answersInWindow = 0;
+        pause = Math.min(maxPause, Math.max(pause * 2, 1));
+    }
+
+    synchronized int getQueueSize() {
+        return queued.size();
+    }
+
+    synchronized int getWindow() {
+        return window;
+    }
+}
@@ -24,6 +24,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openhab.binding.knx.internal.KNXTypeMapper;
 import org.openhab.core.library.types.DateTimeType;
@@ -107,6 +111,47 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     /** stores the default KNX DPT to use for each openHAB type */
     private final Map<Class<? extends Type>, String> defaultDptMap;
 
+    /** datapoint types by id, they are immutable and shared */
+    private final Map<String, DPT> dptCache = new ConcurrentHashMap<>();
+
+    /** maximum number of idle translators kept per datapoint type */
+    private static final int MAX_IDLE_TRANSLATORS = 4;
+
+    /** translators by datapoint type id */
+    private final Map<String, TranslatorPool> translatorPools = new ConcurrentHashMap<>();
+
+    /** number of translators created for decoding */
+    private final AtomicInteger translatorCount = new AtomicInteger();
+
+    /**
+     * The idle translators of a datapoint type. A translator keeps the last value, so it is used by one thread at a
+     * time. Translators needed by more concurrent threads than are kept are created and dropped after use.
+     */
+    private class TranslatorPool {
+        final String dptID;
+        final String id;
+        final int mainNumber;
+        final int subNumber;
+        private final BlockingQueue<DPTXlator> idle = new ArrayBlockingQueue<>(MAX_IDLE_TRANSLATORS);
+
+        TranslatorPool(String dptID, DPTXlator translator) {
+            this.dptID = dptID;
+            this.id = translator.getType().getID();
+            this.mainNumber = getMainNumber(id);
+            this.subNumber = getSubNumber(id);
+            idle.offer(translator);
+        }
+
+        DPTXlator acquire() throws KNXException {
+            DPTXlator translator = idle.poll();
+            return translator != null ? translator : createTranslator(dptID);
+        }
+
+        void release(DPTXlator translator) {
+            idle.offer(translator);
+        }
+    }
+
     public KNXCoreTypeMapper() {
         @SuppressWarnings("unused")
         final List<Class<?>> xlators = Arrays.<Class<?>> asList(DPTXlator1BitControlled.class,
@@ -585,8 +630,7 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         }
 
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
-            dpt = translator.getType();
+            dpt = getDPT(mainNumber, dptID);
         } catch (KNXException e) {
             return null;
         }
@@ -670,26 +714,79 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         return null;
     }
 
+    private DPT getDPT(int mainNumber, String dptID) throws KNXException {
+        DPT dpt = dptCache.get(dptID);
+        if (dpt == null) {
+            dpt = TranslatorTypes.createTranslator(mainNumber, dptID).getType();
+            dptCache.put(dptID, dpt);
+        }
+        return dpt;
+    }
+
+    private DPTXlator createTranslator(String dptID) throws KNXException {
+        DPTXlator translator = TranslatorTypes.createTranslator(0, dptID);
+        translatorCount.incrementAndGet();
+        return translator;
+    }
+
+    /**
+     * Returns the translator pool for the datapoint type, or creates it.
+     *
+     * @return the pool, with a main or sub number of -1 if they could not be identified
+     */
+    private TranslatorPool getTranslatorPool(String dptID) throws KNXException {
+        TranslatorPool pool = translatorPools.get(dptID);
+        if (pool == null) {
+            pool = new TranslatorPool(dptID, createTranslator(dptID));
+            TranslatorPool existing = translatorPools.putIfAbsent(dptID, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the number of translators created for decoding, for tests.
+     */
+    int getTranslatorCount() {
+        return translatorCount.get();
+    }
+
     @Override
     public Type toType(Datapoint datapoint, byte[] data) {
-        try {
-            DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
-            translator.setData(data);
-            String value = translator.getValue();
+        return toType(datapoint.getDPT(), data);
+    }
 
-            String id = translator.getType().getID();
-            logger.trace("toType datapoint DPT = {}", datapoint.getDPT());
+    @Override
+    public Type toType(String dpt, byte[] data) {
+        TranslatorPool pool = null;
+        DPTXlator translator = null;
+        try {
+            pool = getTranslatorPool(dpt);
+            String id = pool.id;
+            logger.trace("toType datapoint DPT = {}", dpt);
 
-            int mainNumber = getMainNumber(id);
+            int mainNumber = pool.mainNumber;
             if (mainNumber == -1) {
                 logger.debug("toType: couldn't identify mainnumber in dptID: {}.", id);
                 return null;
             }
-            int subNumber = getSubNumber(id);
+            int subNumber = pool.subNumber;
             if (subNumber == -1) {
                 logger.debug("toType: couldn't identify sub number in dptID: {}.", id);
                 return null;
             }
+
+            Type decoded = decode(mainNumber, subNumber, id, data);
+            if (decoded != null) {
+                return decoded;
+            }
+
+            translator = pool.acquire();
+            translator.setData(data);
+            // the string value is only built where a type is parsed from it
+            String value = null;
             /*
              * Following code section deals with specific mapping of values from KNX to openHAB types were the String
              * received from the DPTXlator is not sufficient to set the openHAB type or has bugs
@@ -754,7 +851,7 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                 case 18:
                     DPTXlatorSceneControl translatorSceneControl = (DPTXlatorSceneControl) translator;
                     int decimalValue = translatorSceneControl.getSceneNumber();
-                    if (value.startsWith("learn")) {
+                    if (translator.getValue().startsWith("learn")) {
                         decimalValue += 0x80;
                     }
                     value = String.valueOf(decimalValue);
@@ -823,12 +920,15 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
             if (typeClass.equals(DecimalType.class)) {
                 return new DecimalType(translator.getNumericValue());
             }
+            if (value == null) {
+                value = translator.getValue();
+            }
             if (typeClass.equals(StringType.class)) {
                 return StringType.valueOf(value);
             }
 
             if (typeClass.equals(DateTimeType.class)) {
-                String date = formatDateTime(value, datapoint.getDPT());
+                String date = formatDateTime(value, dpt);
                 if ((date == null) || (date.isEmpty())) {
                     logger.debug("toType: KNX clock msg ignored: date object null or empty {}.", date);
                     return null;
@@ -847,15 +947,98 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
             }
 
         } catch (KNXFormatException kfe) {
-            logger.info("Translator couldn't parse data for datapoint type '{}' (KNXFormatException).",
-                    datapoint.getDPT());
+            logger.info("Translator couldn't parse data for datapoint type '{}' (KNXFormatException).", dpt);
         } catch (KNXIllegalArgumentException kiae) {
             logger.info("Translator couldn't parse data for datapoint type '{}' (KNXIllegalArgumentException).",
-                    datapoint.getDPT());
+                    dpt);
         } catch (KNXException e) {
-            logger.warn("Failed creating a translator for datapoint type '{}'.", datapoint.getDPT(), e);
+            logger.warn("Failed creating a translator for datapoint type '{}'.", dpt, e);
+        } finally {
+            if (pool != null && translator != null) {
+                pool.release(translator);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Decodes the common datapoint types straight from the ASDU, without a translator and its string value.
+     *
+     * @return the decoded type or {@code null} if the value has to be decoded by the translator
+     */
+    private Type decode(int mainNumber, int subNumber, String id, byte[] data) {
+        switch (mainNumber) {
+            case 1:
+                if (data.length < 1) {
+                    return null;
+                }
+                boolean bit = (data[0] & 0x01) != 0;
+                switch (subNumber) {
+                    case 8:
+                        return bit ? UpDownType.DOWN : UpDownType.UP;
+                    case 9:
+                        return bit ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+                    case 10:
+                        return bit ? StopMoveType.MOVE : StopMoveType.STOP;
+                    case 19:
+                        return bit ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+                    case 22:
+                        return DecimalType.valueOf(bit ? "1" : "0");
+                    default:
+                        return bit ? OnOffType.ON : OnOffType.OFF;
+                }
+            case 5:
+                if (data.length < 1) {
+                    return null;
+                }
+                int unsigned = data[0] & 0xff;
+                if (subNumber == 1) {
+                    // 5.001: Scaling, 0...255 is 0...100 %
+                    unsigned = Math.round(unsigned * 100.0f / 255);
+                } else if (subNumber == 3) {
+                    // 5.003: Angle, 0...255 is 0...360 °
+                    unsigned = Math.round(unsigned * 360.0f / 255);
+                }
+                return toNumericType(id, unsigned);
+            case 9:
+                if (data.length < 2) {
+                    return null;
+                }
+                // 2-octet float: value = 0.01 * mantissa * 2^exponent, 0x7FFF is invalid data
+                int raw = (data[0] & 0xff) << 8 | (data[1] & 0xff);
+                if (raw == 0x7fff) {
+                    return null;
+                }
+                int exponent = (raw >> 11) & 0x0f;
+                int mantissa = raw & 0x07ff;
+                if ((raw & 0x8000) != 0) {
+                    mantissa -= 0x0800;
+                }
+                return toNumericType(id, (mantissa << exponent) / 100.0);
+            case 14:
+                if (data.length < 4) {
+                    return null;
+                }
+                float f = Float.intBitsToFloat((data[0] & 0xff) << 24 | (data[1] & 0xff) << 16
+                        | (data[2] & 0xff) << 8 | (data[3] & 0xff));
+                if (Float.isNaN(f) || Float.isInfinite(f)) {
+                    return null;
+                }
+                return toNumericType(id, f);
+            default:
+                return null;
         }
+    }
 
+    private Type toNumericType(String id, double value) {
+        Class<? extends Type> typeClass = toTypeClass(id);
+        if (PercentType.class.equals(typeClass)) {
+            return new PercentType(BigDecimal.valueOf(Math.round(value)));
+        }
+        if (DecimalType.class.equals(typeClass)) {
+            return new DecimalType(value);
+        }
         return null;
     }
 
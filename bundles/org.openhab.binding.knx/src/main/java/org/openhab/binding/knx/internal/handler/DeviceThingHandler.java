@@ -15,6 +15,8 @@ package org.openhab.binding.knx.internal.handler;
 import static org.openhab.binding.knx.internal.KNXBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -34,6 +36,7 @@ import org.openhab.binding.knx.internal.channel.KNXChannelTypes;
 import org.openhab.binding.knx.internal.client.AbstractKNXClient;
 import org.openhab.binding.knx.internal.client.InboundSpec;
 import org.openhab.binding.knx.internal.client.OutboundSpec;
+import org.openhab.binding.knx.internal.client.ReadPriority;
 import org.openhab.binding.knx.internal.config.DeviceConfig;
 import org.openhab.binding.knx.internal.dpt.KNXCoreTypeMapper;
 import org.openhab.core.config.core.Configuration;
@@ -74,26 +77,69 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
     private final Set<OutboundSpec> groupAddressesRespondingSpec = new HashSet<>();
     private final Map<GroupAddress, ScheduledFuture<?>> readFutures = new HashMap<>();
     private final Map<ChannelUID, ScheduledFuture<?>> channelFutures = new HashMap<>();
+    // channels by the group addresses they listen to, and control channels by the group addresses they respond to
+    private volatile Map<GroupAddress, List<ListenRoute>> listenRoutes = Collections.emptyMap();
+    private volatile Map<GroupAddress, List<Channel>> responseRoutes = Collections.emptyMap();
     private int readInterval;
 
+    /**
+     * A channel listening to a group address, with its parsed listen spec.
+     */
+    private static class ListenRoute {
+        final Channel channel;
+        final KNXChannelType selector;
+        final InboundSpec listenSpec;
+        final boolean control;
+
+        ListenRoute(Channel channel, KNXChannelType selector, InboundSpec listenSpec, boolean control) {
+            this.channel = channel;
+            this.selector = selector;
+            this.listenSpec = listenSpec;
+            this.control = control;
+        }
+    }
+
     public DeviceThingHandler(Thing thing) {
         super(thing);
     }
 
     @Override
     public void initialize() {
+        // the group addresses are indexed by the client when this handler is attached
+        initializeGroupAddresses();
         super.initialize();
         DeviceConfig config = getConfigAs(DeviceConfig.class);
         readInterval = config.getReadInterval().intValue();
-        initializeGroupAddresses();
     }
 
     private void initializeGroupAddresses() {
-        forAllChannels((selector, channelConfiguration) -> {
-            groupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getListenAddresses(channelConfiguration));
-        });
+        Map<GroupAddress, List<ListenRoute>> listenRoutes = new HashMap<>();
+        Map<GroupAddress, List<Channel>> responseRoutes = new HashMap<>();
+        for (Channel channel : getThing().getChannels()) {
+            withKNXType(channel, (selector, channelConfiguration) -> {
+                groupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
+                groupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
+                groupAddresses.addAll(selector.getListenAddresses(channelConfiguration));
+
+                boolean control = isControl(channel.getUID());
+                for (InboundSpec listenSpec : selector.getListenSpecs(channelConfiguration)) {
+                    for (GroupAddress groupAddress : listenSpec.getGroupAddresses()) {
+                        List<ListenRoute> routes = listenRoutes.computeIfAbsent(groupAddress, ga -> new ArrayList<>());
+                        // the first listen spec of a channel containing the group address is used
+                        if (routes.stream().noneMatch(route -> route.channel == channel)) {
+                            routes.add(new ListenRoute(channel, selector, listenSpec, control));
+                        }
+                    }
+                }
+                if (control) {
+                    for (GroupAddress groupAddress : selector.getWriteAddresses(channelConfiguration)) {
+                        responseRoutes.computeIfAbsent(groupAddress, ga -> new ArrayList<>()).add(channel);
+                    }
+                }
+            });
+        }
+        this.listenRoutes = listenRoutes;
+        this.responseRoutes = responseRoutes;
     }
 
     @Override
@@ -113,6 +159,8 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
     }
 
     private void freeGroupAdresses() {
+        listenRoutes = Collections.emptyMap();
+        responseRoutes = Collections.emptyMap();
         groupAddresses.clear();
         groupAddressesWriteBlockedOnce.clear();
         groupAddressesRespondingSpec.clear();
@@ -151,12 +199,6 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         }
     }
 
-    private void forAllChannels(ChannelFunction function) {
-        for (Channel channel : getThing().getChannels()) {
-            withKNXType(channel, function);
-        }
-    }
-
     @Override
     public void channelLinked(ChannelUID channelUID) {
         if (!isControl(channelUID)) {
@@ -191,29 +233,39 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         if (readInterval > 0) {
             ScheduledFuture<?> future = readFutures.get(groupAddress);
             if (future == null || future.isDone() || future.isCancelled()) {
-                future = getScheduler().scheduleWithFixedDelay(() -> readDatapoint(groupAddress, dpt), 0, readInterval,
-                        TimeUnit.SECONDS);
+                future = getScheduler().scheduleWithFixedDelay(
+                        () -> readDatapoint(groupAddress, dpt, ReadPriority.NORMAL), 0, readInterval, TimeUnit.SECONDS);
                 readFutures.put(groupAddress, future);
             }
         } else {
-            getScheduler().submit(() -> readDatapoint(groupAddress, dpt));
+            getScheduler().submit(() -> readDatapoint(groupAddress, dpt, ReadPriority.NORMAL));
+        }
+    }
+
+    /** A refresh is read before queued initial and periodic reads, regardless of the read interval */
+    private void refresh(KNXChannelType selector, Configuration configuration) throws KNXFormatException {
+        List<InboundSpec> readSpecs = selector.getReadSpec(configuration);
+        for (InboundSpec readSpec : readSpecs) {
+            for (GroupAddress groupAddress : readSpec.getGroupAddresses()) {
+                getScheduler().submit(() -> readDatapoint(groupAddress, readSpec.getDPT(), ReadPriority.HIGH));
+            }
         }
     }
 
-    private void readDatapoint(GroupAddress groupAddress, String dpt) {
+    private void readDatapoint(GroupAddress groupAddress, String dpt, ReadPriority priority) {
         if (getClient().isConnected()) {
             if (!isDPTSupported(dpt)) {
                 logger.warn("DPT '{}' is not supported by the KNX binding", dpt);
                 return;
             }
             Datapoint datapoint = new CommandDP(groupAddress, getThing().getUID().toString(), 0, dpt);
-            getClient().readDatapoint(datapoint);
+            getClient().readDatapoint(datapoint, priority);
         }
     }
 
     @Override
-    public boolean listensTo(GroupAddress destination) {
-        return groupAddresses.contains(destination);
+    public Set<GroupAddress> getGroupAddresses() {
+        return new HashSet<>(groupAddresses);
     }
 
     /** KNXIO remember controls, removeIf may be null */
@@ -235,7 +287,7 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         if (command instanceof RefreshType && !isControl(channelUID)) {
             logger.debug("Refreshing channel '{}'", channelUID);
             withKNXType(channelUID, (selector, configuration) -> {
-                scheduleRead(selector, configuration);
+                refresh(selector, configuration);
             });
         } else {
             switch (channelUID.getId()) {
@@ -307,23 +359,19 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
     public void onGroupRead(AbstractKNXClient client, IndividualAddress source, GroupAddress destination, byte[] asdu) {
         logger.trace("onGroupRead Thing '{}' received a GroupValueRead telegram from '{}' for destination '{}'",
                 getThing().getUID(), source, destination);
-        for (Channel channel : getThing().getChannels()) {
-            if (isControl(channel.getUID())) {
-                withKNXType(channel, (selector, configuration) -> {
-                    OutboundSpec responseSpec = selector.getResponseSpec(configuration, destination,
-                            RefreshType.REFRESH);
-                    if (responseSpec != null) {
-                        logger.trace("onGroupRead isControl -> postCommand");
-                        // This event should be sent to KNX as GroupValueResponse immediately.
-                        sendGroupValueResponse(channel, destination);
-                        // Send REFRESH to openHAB to get this event for scripting with postCommand
-                        // and remember to ignore/block this REFRESH to be sent back to KNX as GroupValueWrite after
-                        // postCommand is done!
-                        groupAddressesWriteBlockedOnce.add(destination);
-                        postCommand(channel.getUID().getId(), RefreshType.REFRESH);
-                    }
-                });
-            }
+        List<Channel> channels = responseRoutes.get(destination);
+        if (channels == null) {
+            return;
+        }
+        for (Channel channel : channels) {
+            logger.trace("onGroupRead isControl -> postCommand");
+            // This event should be sent to KNX as GroupValueResponse immediately.
+            sendGroupValueResponse(channel, destination);
+            // Send REFRESH to openHAB to get this event for scripting with postCommand
+            // and remember to ignore/block this REFRESH to be sent back to KNX as GroupValueWrite after
+            // postCommand is done!
+            groupAddressesWriteBlockedOnce.add(destination);
+            postCommand(channel.getUID().getId(), RefreshType.REFRESH);
         }
     }
 
@@ -345,31 +393,35 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         logger.debug("onGroupWrite Thing '{}' received a GroupValueWrite telegram from '{}' for destination '{}'",
                 getThing().getUID(), source, destination);
 
-        for (Channel channel : getThing().getChannels()) {
-            withKNXType(channel, (selector, configuration) -> {
-                InboundSpec listenSpec = selector.getListenSpec(configuration, destination);
-                if (listenSpec != null) {
-                    logger.trace(
-                            "onGroupWrite Thing '{}' processes a GroupValueWrite telegram for destination '{}' for channel '{}'",
-                            getThing().getUID(), destination, channel.getUID());
-                    /**
-                     * Remember current KNXIO outboundSpec only if it is a control channel.
-                     */
-                    if (isControl(channel.getUID())) {
-                        logger.trace("onGroupWrite isControl");
-                        Type type = typeHelper.toType(
-                                new CommandDP(destination, getThing().getUID().toString(), 0, listenSpec.getDPT()),
-                                asdu);
-                        if (type != null) {
-                            OutboundSpec commandSpec = selector.getCommandSpec(configuration, typeHelper, type);
-                            if (commandSpec != null) {
-                                rememberRespondingSpec(commandSpec, true);
-                            }
+        List<ListenRoute> routes = listenRoutes.get(destination);
+        if (routes == null) {
+            return;
+        }
+        for (ListenRoute route : routes) {
+            Channel channel = route.channel;
+            InboundSpec listenSpec = route.listenSpec;
+            logger.trace(
+                    "onGroupWrite Thing '{}' processes a GroupValueWrite telegram for destination '{}' for channel '{}'",
+                    getThing().getUID(), destination, channel.getUID());
+            /**
+             * Remember current KNXIO outboundSpec only if it is a control channel.
+             */
+            if (route.control) {
+                logger.trace("onGroupWrite isControl");
+                Type type = typeHelper.toType(listenSpec.getDPT(), asdu);
+                if (type != null) {
+                    try {
+                        OutboundSpec commandSpec = route.selector.getCommandSpec(channel.getConfiguration(),
+                                typeHelper, type);
+                        if (commandSpec != null) {
+                            rememberRespondingSpec(commandSpec, true);
                         }
+                    } catch (KNXException e) {
+                        logger.warn("An error occurred on channel {}: {}", channel.getUID(), e.getMessage(), e);
                     }
-                    processDataReceived(destination, asdu, listenSpec, channel.getUID());
                 }
-            });
+            }
+            processDataReceived(destination, asdu, listenSpec, channel.getUID());
         }
     }
 
@@ -380,8 +432,7 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
             return;
         }
 
-        Datapoint datapoint = new CommandDP(destination, getThing().getUID().toString(), 0, listenSpec.getDPT());
-        Type type = typeHelper.toType(datapoint, asdu);
+        Type type = typeHelper.toType(listenSpec.getDPT(), asdu);
 
         if (type != null) {
             if (isControl(channelUID)) {
@@ -421,7 +472,7 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
             String s = asduToHex(asdu);
             logger.warn(
                     "Ignoring KNX bus data: couldn't transform to any Type (destination='{}', datapoint='{}', data='{}')",
-                    destination, datapoint, s);
+                    destination, listenSpec.getDPT(), s);
         }
     }
 
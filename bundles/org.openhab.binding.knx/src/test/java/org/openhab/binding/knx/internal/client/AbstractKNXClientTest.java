@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.openhab.binding.knx.internal.handler.GroupAddressListener;
+import org.openhab.core.thing.ThingUID;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+import tuwien.auto.calimero.link.KNXNetworkLink;
+import tuwien.auto.calimero.process.ProcessEvent;
+
+/**
+ * Tests the dispatching of telegrams to the group address listeners of the {@link AbstractKNXClient}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class AbstractKNXClientTest {
+    private static final GroupAddress ADDRESS_1 = new GroupAddress(1);
+    private static final GroupAddress ADDRESS_2 = new GroupAddress(2);
+    private static final IndividualAddress SOURCE = new IndividualAddress(0x1101);
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    // delivery tasks, which the tests run explicitly
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AbstractKNXClient client = new AbstractKNXClient(0, new ThingUID("knx:ip:test"), 10, 50, 3,
+            scheduler, mock(StatusUpdateCallback.class)) {
+        @Override
+        protected KNXNetworkLink establishConnection() {
+            return mock(KNXNetworkLink.class);
+        }
+    };
+
+    @BeforeEach
+    public void setUp() {
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(scheduler).execute(any(Runnable.class));
+    }
+
+    private static GroupAddressListener listener(GroupAddress... addresses) {
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        when(listener.getGroupAddresses()).thenReturn(Set.of(addresses));
+        return listener;
+    }
+
+    private void groupWrite(GroupAddress destination, int value) {
+        ProcessEvent event = mock(ProcessEvent.class);
+        when(event.getDestination()).thenReturn(destination);
+        when(event.getSourceAddr()).thenReturn(SOURCE);
+        when(event.getASDU()).thenReturn(new byte[] { (byte) value });
+        client.processListener.groupWrite(event);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void telegramIsDeliveredOnlyToListenersOfItsDestination() {
+        GroupAddressListener first = listener(ADDRESS_1);
+        GroupAddressListener second = listener(ADDRESS_2);
+        assertTrue(client.registerGroupAddressListener(first));
+        assertTrue(client.registerGroupAddressListener(second));
+
+        groupWrite(ADDRESS_1, 1);
+        runTasks();
+
+        verify(first).onGroupWrite(client, SOURCE, ADDRESS_1, new byte[] { 1 });
+        verify(second, never()).onGroupWrite(any(), any(), any(), any());
+    }
+
+    @Test
+    public void registeringAgainUsesChangedAddresses() {
+        GroupAddressListener listener = listener(ADDRESS_1);
+        assertTrue(client.registerGroupAddressListener(listener));
+
+        when(listener.getGroupAddresses()).thenReturn(Set.of(ADDRESS_2));
+        assertFalse(client.registerGroupAddressListener(listener));
+        groupWrite(ADDRESS_1, 1);
+        groupWrite(ADDRESS_2, 2);
+        runTasks();
+
+        verify(listener, never()).onGroupWrite(any(), any(), eq(ADDRESS_1), any());
+        verify(listener).onGroupWrite(client, SOURCE, ADDRESS_2, new byte[] { 2 });
+    }
+
+    @Test
+    public void unregisteredListenerReceivesNoTelegrams() {
+        GroupAddressListener listener = listener(ADDRESS_1);
+        client.registerGroupAddressListener(listener);
+
+        assertTrue(client.unregisterGroupAddressListener(listener));
+        assertFalse(client.unregisterGroupAddressListener(listener));
+        groupWrite(ADDRESS_1, 1);
+        runTasks();
+
+        verify(listener, never()).onGroupWrite(any(), any(), any(), any());
+    }
+
+    @Test
+    public void telegramsAreDeliveredInOrderByOneTask() {
+        GroupAddressListener listener = listener(ADDRESS_1, ADDRESS_2);
+        client.registerGroupAddressListener(listener);
+
+        groupWrite(ADDRESS_1, 1);
+        groupWrite(ADDRESS_2, 2);
+        groupWrite(ADDRESS_1, 3);
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onGroupWrite(client, SOURCE, ADDRESS_1, new byte[] { 1 });
+        inOrder.verify(listener).onGroupWrite(client, SOURCE, ADDRESS_2, new byte[] { 2 });
+        inOrder.verify(listener).onGroupWrite(client, SOURCE, ADDRESS_1, new byte[] { 3 });
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class ReadSchedulerTest {
+
+    private static final int READING_PAUSE = 50;
+    private static final long RESPONSE_TIMEOUT = 10000;
+
+    private static ReadDatapoint datapoint(int address, int retries) {
+        return new ReadDatapoint(new CommandDP(new GroupAddress(address), "test", 0, "1.001"), retries);
+    }
+
+    private static int address(@Nullable ReadDatapoint datapoint) {
+        assertNotNull(datapoint);
+        return datapoint.getDatapoint().getMainAddress().getRawAddress();
+    }
+
+    @Test
+    public void testPriorityOrder() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        assertTrue(scheduler.add(datapoint(1, 3), ReadPriority.NORMAL));
+        assertTrue(scheduler.add(datapoint(2, 3), ReadPriority.LOW));
+        assertTrue(scheduler.add(datapoint(3, 3), ReadPriority.NORMAL));
+        assertTrue(scheduler.add(datapoint(4, 3), ReadPriority.HIGH));
+
+        int[] expected = { 4, 1, 3, 2 };
+        for (int address : expected) {
+            ReadDatapoint next = scheduler.pollNext(0);
+            assertEquals(address, address(next));
+            scheduler.answered(next.getDatapoint().getMainAddress());
+        }
+        assertNull(scheduler.pollNext(0));
+    }
+
+    @Test
+    public void testDuplicatesAreDroppedOrRaised() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        assertTrue(scheduler.add(datapoint(1, 3), ReadPriority.NORMAL));
+        assertTrue(scheduler.add(datapoint(2, 3), ReadPriority.NORMAL));
+        assertFalse(scheduler.add(datapoint(2, 3), ReadPriority.NORMAL));
+        assertFalse(scheduler.add(datapoint(2, 3), ReadPriority.LOW));
+        assertTrue(scheduler.add(datapoint(2, 3), ReadPriority.HIGH));
+        assertEquals(2, scheduler.getQueueSize());
+
+        ReadDatapoint next = scheduler.pollNext(0);
+        assertEquals(2, address(next));
+        // waiting for its answer
+        assertFalse(scheduler.add(datapoint(2, 3), ReadPriority.HIGH));
+        scheduler.answered(next.getDatapoint().getMainAddress());
+
+        assertEquals(1, address(scheduler.pollNext(0)));
+        assertEquals(0, scheduler.getQueueSize());
+    }
+
+    @Test
+    public void testTimeoutIsRetriedUntilLimit() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        scheduler.add(datapoint(1, 2), ReadPriority.NORMAL);
+
+        long now = 0;
+        for (int i = 0; i < 2; i++) {
+            ReadDatapoint next = scheduler.pollNext(now);
+            assertEquals(1, address(next));
+            next.incrementRetries();
+            assertNull(scheduler.pollNext(now + RESPONSE_TIMEOUT - 1));
+            now += RESPONSE_TIMEOUT;
+        }
+        assertNull(scheduler.pollNext(now));
+        // given up after the second timeout
+        assertEquals(0, scheduler.getQueueSize());
+        assertTrue(scheduler.getPause(now) > READING_PAUSE);
+    }
+
+    @Test
+    public void testWindowGrowsWithAnswersAndShrinksOnTimeout() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        for (int i = 1; i <= 20; i++) {
+            scheduler.add(datapoint(i, 3), ReadPriority.NORMAL);
+        }
+        assertEquals(1, scheduler.getWindow());
+
+        ReadDatapoint first = scheduler.pollNext(0);
+        assertNotNull(first);
+        assertNull(scheduler.pollNext(0));
+        scheduler.answered(first.getDatapoint().getMainAddress());
+        assertEquals(2, scheduler.getWindow());
+
+        assertNotNull(scheduler.pollNext(0));
+        assertNotNull(scheduler.pollNext(0));
+        assertNull(scheduler.pollNext(0));
+
+        // both time out
+        assertNull(scheduler.pollNext(RESPONSE_TIMEOUT - 1));
+        assertNotNull(scheduler.pollNext(RESPONSE_TIMEOUT));
+        assertEquals(1, scheduler.getWindow());
+    }
+
+    @Test
+    public void testBusyBusDoublesPause() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        assertEquals(READING_PAUSE, scheduler.getPause(0));
+        for (int i = 0; i < ReadScheduler.BUSY_BUS_TELEGRAMS; i++) {
+            scheduler.busTelegram(new GroupAddress(100), 1000 + i);
+        }
+        assertEquals(2 * READING_PAUSE, scheduler.getPause(1100));
+        assertEquals(2 * READING_PAUSE, scheduler.getPause(2100));
+        assertEquals(READING_PAUSE, scheduler.getPause(3100));
+    }
+
+    @Test
+    public void testAnswersToOutstandingReadsDoNotMakeTheBusBusy() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        scheduler.add(datapoint(1, 3), ReadPriority.NORMAL);
+        assertEquals(1, address(scheduler.pollNext(1000)));
+
+        for (int i = 0; i < ReadScheduler.BUSY_BUS_TELEGRAMS; i++) {
+            scheduler.busTelegram(new GroupAddress(1), 1000 + i);
+        }
+        assertEquals(READING_PAUSE, scheduler.getPause(1100));
+    }
+
+    @Test
+    public void testPolledReadIsWaitingForItsAnswer() {
+        ReadScheduler scheduler = new ReadScheduler(READING_PAUSE, RESPONSE_TIMEOUT);
+        scheduler.add(datapoint(1, 3), ReadPriority.NORMAL);
+        scheduler.add(datapoint(2, 3), ReadPriority.NORMAL);
+
+        assertEquals(1, address(scheduler.pollNext(0)));
+        // the window of one read is used, and the polled address is not queued again
+        assertNull(scheduler.pollNext(0));
+        assertFalse(scheduler.add(datapoint(1, 3), ReadPriority.HIGH));
+    }
+}
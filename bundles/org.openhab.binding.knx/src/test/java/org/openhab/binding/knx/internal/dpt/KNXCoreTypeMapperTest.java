@@ -16,6 +16,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.Type;
 
 /**
  *
@@ -29,4 +34,57 @@ public class KNXCoreTypeMapperTest {
         assertEquals("3", new KNXCoreTypeMapper().toDPTValue(new DecimalType("3"), "17.001"));
         assertEquals("3", new KNXCoreTypeMapper().toDPTValue(new DecimalType("3.0"), "17.001"));
     }
+
+    @Test
+    public void testToType_1bit() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertEquals(OnOffType.ON, mapper.toType("1.001", new byte[] { 0x01 }));
+        assertEquals(OnOffType.OFF, mapper.toType("1.001", new byte[] { 0x00 }));
+        assertEquals(UpDownType.DOWN, mapper.toType("1.008", new byte[] { 0x01 }));
+        assertEquals(OpenClosedType.CLOSED, mapper.toType("1.009", new byte[] { 0x00 }));
+    }
+
+    @Test
+    public void testToType_8bitUnsigned() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertEquals(new PercentType(100), mapper.toType("5.001", new byte[] { (byte) 0xFF }));
+        assertEquals(new PercentType(50), mapper.toType("5.001", new byte[] { (byte) 0x80 }));
+        assertNumber(360, mapper.toType("5.003", new byte[] { (byte) 0xFF }));
+        assertNumber(42, mapper.toType("5.010", new byte[] { 0x2A }));
+    }
+
+    @Test
+    public void testToType_2byteFloat() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertNumber(21.0, mapper.toType("9.001", new byte[] { 0x0C, 0x1A }));
+        assertNumber(-30.0, mapper.toType("9.001", new byte[] { (byte) 0x8A, 0x24 }));
+        assertNumber(0.07, mapper.toType("9.001", new byte[] { 0x00, 0x07 }));
+        assertEquals(new PercentType(45), mapper.toType("9.007", new byte[] { 0x14, 0x65 }));
+    }
+
+    @Test
+    public void testToType_4byteFloat() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertNumber(21.0, mapper.toType("14.068", new byte[] { 0x41, (byte) 0xA8, 0x00, 0x00 }));
+        assertNumber(-1.5, mapper.toType("14.068", new byte[] { (byte) 0xBF, (byte) 0xC0, 0x00, 0x00 }));
+    }
+
+    @Test
+    public void testToType_cachedTranslatorIsReused() {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertNumber(256, mapper.toType("7.001", new byte[] { 0x01, 0x00 }));
+        assertNumber(1, mapper.toType("7.001", new byte[] { 0x00, 0x01 }));
+        assertEquals(1, mapper.getTranslatorCount());
+
+        // each datapoint type has its own translator
+        assertNumber(-1, mapper.toType("8.001", new byte[] { (byte) 0xFF, (byte) 0xFF }));
+        assertEquals(2, mapper.getTranslatorCount());
+        assertNumber(2, mapper.toType("7.001", new byte[] { 0x00, 0x02 }));
+        assertEquals(2, mapper.getTranslatorCount());
+    }
+
+    private static void assertNumber(double expected, Type type) {
+        assertTrue(type instanceof DecimalType, "Expected a DecimalType but got " + type);
+        assertEquals(expected, ((DecimalType) type).doubleValue(), 0.0001);
+    }
 }
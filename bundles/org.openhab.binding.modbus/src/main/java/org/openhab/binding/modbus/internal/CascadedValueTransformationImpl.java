@@ -12,25 +12,39 @@
  */
 package org.openhab.binding.modbus.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The {@link CascadedValueTransformationImpl} implements {@link SingleValueTransformation for a cascaded set of
  * transformations}
  *
+ * The chain is compiled on construction: steps which cannot affect the result, i.e. identity steps and pure steps
+ * whose output is overwritten by a later constant step, are dropped. Steps of services which may have side effects,
+ * e.g. EXEC or script transformations, are always kept. The execution times of the chain are collected in a histogram.
+ *
  * @author Jan N. Klug - Initial contribution
  * @author Sami Salonen - Copied from HTTP binding to provide consistent user experience
  */
 @NonNullByDefault
 public class CascadedValueTransformationImpl implements ValueTransformation {
+    private static final long SLOW_EXECUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Logger logger = LoggerFactory.getLogger(CascadedValueTransformationImpl.class);
+
     private final List<SingleValueTransformation> transformations;
+    private final List<SingleValueTransformation> compiledTransformations;
+    private final ExecutionTimeHistogram executionTimes = new ExecutionTimeHistogram();
 
     public CascadedValueTransformationImpl(@Nullable String transformationString) {
         String transformationNonNull = transformationString == null ? "" : transformationString;
@@ -41,15 +55,39 @@ public class CascadedValueTransformationImpl implements ValueTransformation {
             localTransformations = Collections.singletonList(new SingleValueTransformation(transformationString));
         }
         transformations = localTransformations;
+        compiledTransformations = compile(localTransformations);
+    }
+
+    private static List<SingleValueTransformation> compile(List<SingleValueTransformation> transformations) {
+        List<SingleValueTransformation> compiled = new ArrayList<>(transformations.size());
+        // whether the output of the current step is overwritten by a later constant step
+        boolean outputUnused = false;
+        for (int i = transformations.size() - 1; i >= 0; i--) {
+            SingleValueTransformation transformation = transformations.get(i);
+            if (transformation.isIdentityTransform() || (outputUnused && transformation.isPure())) {
+                continue;
+            }
+            compiled.add(0, transformation);
+            // the input of a kept step is needed, unless the step returns a constant
+            outputUnused = transformation.isConstant();
+        }
+        return compiled;
     }
 
     @Override
     public String transform(BundleContext context, String value) {
+        long start = System.nanoTime();
         String input = value;
         // process all transformations
-        for (final ValueTransformation transformation : transformations) {
+        for (final ValueTransformation transformation : compiledTransformations) {
             input = transformation.transform(context, input);
         }
+        long nanos = System.nanoTime() - start;
+        executionTimes.record(nanos);
+        if (nanos >= SLOW_EXECUTION_NANOS) {
+            logger.debug("Slow transformation {} took {} ms, execution times: {}", this,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), executionTimes);
+        }
         return input;
     }
 
@@ -68,4 +106,12 @@ public class CascadedValueTransformationImpl implements ValueTransformation {
     List<SingleValueTransformation> getTransformations() {
         return transformations;
     }
+
+    List<SingleValueTransformation> getCompiledTransformations() {
+        return compiledTransformations;
+    }
+
+    public ExecutionTimeHistogram getExecutionTimes() {
+        return executionTimes;
+    }
 }
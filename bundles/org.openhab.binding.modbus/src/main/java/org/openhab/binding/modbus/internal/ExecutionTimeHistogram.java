@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Histogram of execution times with decimal buckets from 10 microseconds to 1 second.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ExecutionTimeHistogram {
+
+    private static final long[] BUCKET_LIMITS = { TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.SECONDS.toNanos(1) };
+    private static final String[] BUCKET_LABELS = { "<10us", "<100us", "<1ms", "<10ms", "<100ms", "<1s", ">=1s" };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_LABELS.length);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one execution.
+     *
+     * @param nanos execution time in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS.length && nanos >= BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of executions per bucket, ordered from the fastest to the slowest bucket
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getAverageNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("count=").append(getCount()).append(", avg=")
+                .append(TimeUnit.NANOSECONDS.toMicros(getAverageNanos())).append("us, max=")
+                .append(TimeUnit.NANOSECONDS.toMicros(getMaxNanos())).append("us, histogram=[");
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(BUCKET_LABELS[i]).append(": ").append(counts.get(i));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -30,8 +30,12 @@ import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.binding.BaseThingHandlerFactory;
 import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.thing.binding.ThingHandlerFactory;
+import org.openhab.core.transform.TransformationService;
+import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,4 +97,17 @@ public class ModbusHandlerFactory extends BaseThingHandlerFactory {
     public void unsetModbusManager(ModbusManager manager) {
         this.manager = null;
     }
+
+    /**
+     * Transformation chains keep their resolved services, so they are invalidated whenever a transformation service
+     * comes or goes. Only the service reference is bound, so the services are not activated by this.
+     */
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    public void addTransformationService(ServiceReference<TransformationService> reference) {
+        SingleValueTransformation.invalidateTransformationServices();
+    }
+
+    public void removeTransformationService(ServiceReference<TransformationService> reference) {
+        SingleValueTransformation.invalidateTransformationServices();
+    }
 }
@@ -14,7 +14,10 @@ package org.openhab.binding.modbus.internal;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -61,11 +64,33 @@ public class SingleValueTransformation implements ValueTransformation {
         DEFAULT_TYPES.add(OnOffType.class);
     }
 
+    /**
+     * Transformation services which have no side effects, so their steps may be skipped if their output is not used
+     */
+    private static final Set<String> PURE_SERVICES = Set.of("JSONPATH", "MAP", "REGEX", "SCALE", "XPATH", "XSLT");
+
+    /**
+     * Incremented whenever a {@link TransformationService} is registered or unregistered, so resolved services are
+     * looked up again
+     */
+    private static final AtomicInteger SERVICE_GENERATION = new AtomicInteger();
+
     private final Logger logger = LoggerFactory.getLogger(SingleValueTransformation.class);
 
     private final @Nullable String transformation;
     final @Nullable String transformationServiceName;
     final @Nullable String transformationServiceParam;
+    private volatile @Nullable ResolvedService resolvedService;
+
+    private static class ResolvedService {
+        private final TransformationService service;
+        private final int generation;
+
+        private ResolvedService(TransformationService service, int generation) {
+            this.service = service;
+            this.generation = generation;
+        }
+    }
 
     /**
      *
@@ -133,8 +158,7 @@ public class SingleValueTransformation implements ValueTransformation {
                     throw new TransformationException(
                             "transformation service parameter is missing! Invalid transform?");
                 }
-                @Nullable
-                TransformationService transformationService = TransformationHelper.getTransformationService(context,
+                TransformationService transformationService = getTransformationService(context,
                         transformationServiceName);
                 if (transformationService != null) {
                     transformedResponse = transformationService.transform(transformationServiceParam, value);
@@ -162,11 +186,49 @@ public class SingleValueTransformation implements ValueTransformation {
         return transformedResponse == null ? "" : transformedResponse;
     }
 
+    /**
+     * Returns the transformation service, which is only looked up again after services have been (un)registered.
+     */
+    private @Nullable TransformationService getTransformationService(BundleContext context, String serviceName) {
+        int generation = SERVICE_GENERATION.get();
+        ResolvedService resolved = resolvedService;
+        if (resolved != null && resolved.generation == generation) {
+            return resolved.service;
+        }
+        TransformationService service = TransformationHelper.getTransformationService(context, serviceName);
+        resolvedService = service == null ? null : new ResolvedService(service, generation);
+        return service;
+    }
+
+    /**
+     * Discards the transformation services resolved by all transformations. To be called whenever a
+     * {@link TransformationService} is registered or unregistered.
+     */
+    static void invalidateTransformationServices() {
+        SERVICE_GENERATION.incrementAndGet();
+    }
+
     @Override
     public boolean isIdentityTransform() {
         return TRANSFORM_DEFAULT.equalsIgnoreCase(this.transformation);
     }
 
+    /**
+     * @return whether the output does not depend on the input, i.e. the transformation returns a constant
+     */
+    boolean isConstant() {
+        return transformationServiceName == null && !isIdentityTransform();
+    }
+
+    /**
+     * @return whether the transformation is known to have no side effects
+     */
+    boolean isPure() {
+        String transformationServiceName = this.transformationServiceName;
+        return transformationServiceName == null
+                || PURE_SERVICES.contains(transformationServiceName.toUpperCase(Locale.ROOT));
+    }
+
     public static Optional<Command> tryConvertToCommand(String transformed) {
         Optional<Command> transformedCommand = Optional.ofNullable(TypeParser.parseCommand(DEFAULT_TYPES, transformed));
         return transformedCommand;
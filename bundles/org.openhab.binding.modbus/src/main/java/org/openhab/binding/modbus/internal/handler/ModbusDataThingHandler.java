@@ -391,6 +391,16 @@ public class ModbusDataThingHandler extends BaseThingHandler {
 
     @Override
     public synchronized void dispose() {
+        CascadedValueTransformationImpl localReadTransformation = readTransformation;
+        if (localReadTransformation != null && !localReadTransformation.isIdentityTransform()) {
+            logger.debug("Thing {} read transformation execution times: {}", getThing().getUID(),
+                    localReadTransformation.getExecutionTimes());
+        }
+        CascadedValueTransformationImpl localWriteTransformation = writeTransformation;
+        if (localWriteTransformation != null && !localWriteTransformation.isIdentityTransform()) {
+            logger.debug("Thing {} write transformation execution times: {}", getThing().getUID(),
+                    localWriteTransformation.getExecutionTimes());
+        }
         config = null;
         readValueType = null;
         writeValueType = null;
@@ -75,4 +75,33 @@ public class CascadedValueTransformationImplTest {
         assertFalse(transformation.isIdentityTransform());
         assertEquals("static", transformation.transform(Mockito.mock(BundleContext.class), "xx"));
     }
+
+    @Test
+    public void testCompiledTransformationSkipsStepsBeforeStatic() {
+        CascadedValueTransformationImpl transformation = new CascadedValueTransformationImpl(
+                "REGEX(myregex:foo(.*))∩default∩static∩default∩JIHAA:test");
+        assertEquals(5, transformation.getTransformations().size());
+        assertEquals(2, transformation.getCompiledTransformations().size());
+        assertTrue(transformation.getCompiledTransformations().get(0).isConstant());
+        assertEquals("JIHAA", transformation.getCompiledTransformations().get(1).transformationServiceName);
+    }
+
+    @Test
+    public void testCompiledTransformationKeepsStepsWithSideEffects() {
+        CascadedValueTransformationImpl transformation = new CascadedValueTransformationImpl(
+                "REGEX(myregex:foo(.*))∩EXEC(command)∩MAP(file.map)∩static");
+        assertEquals(4, transformation.getTransformations().size());
+        assertEquals(3, transformation.getCompiledTransformations().size());
+        assertEquals("REGEX", transformation.getCompiledTransformations().get(0).transformationServiceName);
+        assertEquals("EXEC", transformation.getCompiledTransformations().get(1).transformationServiceName);
+        assertTrue(transformation.getCompiledTransformations().get(2).isConstant());
+    }
+
+    @Test
+    public void testExecutionTimesAreRecorded() {
+        CascadedValueTransformationImpl transformation = new CascadedValueTransformationImpl("static");
+        transformation.transform(Mockito.mock(BundleContext.class), "xx");
+        transformation.transform(Mockito.mock(BundleContext.class), "yy");
+        assertEquals(2, transformation.getExecutionTimes().getCount());
+    }
 }
@@ -13,10 +13,18 @@
 package org.openhab.binding.modbus.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.openhab.core.transform.TransformationException;
+import org.openhab.core.transform.TransformationService;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
 
 /**
  * @author Sami Salonen - Initial contribution
@@ -78,4 +86,24 @@ public class SingleValueTransformationTest {
         assertFalse(transformation.isIdentityTransform());
         assertEquals("static", transformation.transform(Mockito.mock(BundleContext.class), "xx"));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTransformationServiceIsResolvedOnce() throws InvalidSyntaxException, TransformationException {
+        BundleContext context = mock(BundleContext.class);
+        ServiceReference<TransformationService> reference = mock(ServiceReference.class);
+        TransformationService service = mock(TransformationService.class);
+        when(context.getServiceReferences(eq(TransformationService.class), anyString())).thenReturn(List.of(reference));
+        when(context.getService(reference)).thenReturn(service);
+        when(service.transform("foo", "xx")).thenReturn("yy");
+
+        SingleValueTransformation transformation = new SingleValueTransformation("MOCK(foo)");
+        assertEquals("yy", transformation.transform(context, "xx"));
+        assertEquals("yy", transformation.transform(context, "xx"));
+        verify(context, times(1)).getService(reference);
+
+        SingleValueTransformation.invalidateTransformationServices();
+        assertEquals("yy", transformation.transform(context, "xx"));
+        verify(context, times(2)).getService(reference);
+    }
 }
@@ -352,19 +352,21 @@ public class ChannelState implements MqttMessageSubscriber {
             return CompletableFuture.completedFuture(false);
         }
 
-        // Outgoing transformations
-        for (ChannelStateTransformation t : transformationsOut) {
-            String commandString = mqttCommandValue.getMQTTpublishValue(null);
-            String transformedValue = t.processValue(commandString);
-            if (transformedValue != null) {
-                Value textValue = new TextValue();
-                textValue.update(new StringType(transformedValue));
-                mqttCommandValue = textValue;
-            } else {
-                logger.debug("Transformation '{}' returned null on '{}', discarding message", mqttCommandValue,
-                        t.serviceName);
-                return CompletableFuture.completedFuture(false);
+        // Outgoing transformations: the value is only converted to a text value after the last transformation
+        if (!transformationsOut.isEmpty()) {
+            String transformedValue = mqttCommandValue.getMQTTpublishValue(null);
+            for (ChannelStateTransformation t : transformationsOut) {
+                String inputValue = transformedValue;
+                transformedValue = t.processValue(inputValue);
+                if (transformedValue == null) {
+                    logger.debug("Transformation '{}' returned null on '{}', discarding message", inputValue,
+                            t.serviceName);
+                    return CompletableFuture.completedFuture(false);
+                }
             }
+            Value textValue = new TextValue();
+            textValue.update(new StringType(transformedValue));
+            mqttCommandValue = textValue;
         }
 
         String commandString;
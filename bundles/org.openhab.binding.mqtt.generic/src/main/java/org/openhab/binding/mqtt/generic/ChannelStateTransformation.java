@@ -12,7 +12,7 @@
  */
 package org.openhab.binding.mqtt.generic;
 
-import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -24,16 +24,31 @@ import org.slf4j.LoggerFactory;
 /**
  * A transformation for a {@link ChannelState}. It is applied for each received value on an MQTT topic.
  *
+ * The transformation service is resolved on first use and kept until a transformation service is registered or
+ * unregistered, see {@link #invalidateTransformationServices()}.
+ *
  * @author David Graeff - Initial contribution
  */
 @NonNullByDefault
 public class ChannelStateTransformation {
+    private static final AtomicInteger SERVICE_GENERATION = new AtomicInteger();
+
     private final Logger logger = LoggerFactory.getLogger(ChannelStateTransformation.class);
     private final TransformationServiceProvider provider;
-    private WeakReference<@Nullable TransformationService> transformationService = new WeakReference<>(null);
+    private volatile @Nullable ResolvedService resolvedService;
     final String pattern;
     final String serviceName;
 
+    private static class ResolvedService {
+        private final TransformationService service;
+        private final int generation;
+
+        private ResolvedService(TransformationService service, int generation) {
+            this.service = service;
+            this.generation = generation;
+        }
+    }
+
     /**
      * Creates a new channel state transformer.
      *
@@ -77,14 +92,19 @@ public class ChannelStateTransformation {
      * @return The transformed value
      */
     protected @Nullable String processValue(String value) {
-        TransformationService transformationService = this.transformationService.get();
-        if (transformationService == null) {
+        TransformationService transformationService;
+        int generation = SERVICE_GENERATION.get();
+        ResolvedService resolved = resolvedService;
+        if (resolved != null && resolved.generation == generation) {
+            transformationService = resolved.service;
+        } else {
             transformationService = provider.getTransformationService(serviceName);
             if (transformationService == null) {
+                resolvedService = null;
                 logger.warn("Transformation service {} for pattern {} not found!", serviceName, pattern);
                 return value;
             }
-            this.transformationService = new WeakReference<>(transformationService);
+            resolvedService = new ResolvedService(transformationService, generation);
         }
         String returnValue = null;
         try {
@@ -94,4 +114,12 @@ public class ChannelStateTransformation {
         }
         return returnValue;
     }
+
+    /**
+     * Discards the transformation services resolved by all transformations. To be called whenever a
+     * {@link TransformationService} is registered or unregistered.
+     */
+    public static void invalidateTransformationServices() {
+        SERVICE_GENERATION.incrementAndGet();
+    }
 }
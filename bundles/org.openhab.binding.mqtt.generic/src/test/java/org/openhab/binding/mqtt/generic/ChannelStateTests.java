@@ -53,6 +53,8 @@ import org.openhab.core.library.types.HSBType;
 import org.openhab.core.library.types.RawType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.transform.TransformationException;
+import org.openhab.core.transform.TransformationService;
 
 /**
  * Tests the {@link ChannelState} class.
@@ -67,6 +69,8 @@ public class ChannelStateTests {
     private @Mock ChannelStateUpdateListener channelStateUpdateListener;
     private @Mock ChannelUID channelUID;
     private @Spy TextValue textValue;
+    private @Mock TransformationServiceProvider transformationServiceProvider;
+    private @Mock TransformationService transformationService;
 
     private ScheduledExecutorService scheduler;
 
@@ -322,4 +326,66 @@ public class ChannelStateTests {
         assertThat(value.getChannelState(), is(instanceOf(RawType.class)));
         assertThat(((RawType) value.getChannelState()).getMimeType(), is("image/jpeg"));
     }
+
+    @Test
+    public void incomingTransformationsAreChained() throws TransformationException {
+        when(transformationServiceProvider.getTransformationService("MOCK")).thenReturn(transformationService);
+        when(transformationService.transform("first", "A TEST")).thenReturn("B");
+        when(transformationService.transform("second", "B")).thenReturn("C");
+        ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
+        c.addTransformation(new ChannelStateTransformation("MOCK", "first", transformationServiceProvider));
+        c.addTransformation(new ChannelStateTransformation("MOCK", "second", transformationServiceProvider));
+
+        c.processMessage("state", "A TEST".getBytes());
+
+        assertThat(textValue.getChannelState().toString(), is("C"));
+        verify(channelStateUpdateListener).updateChannelState(eq(channelUID), any());
+    }
+
+    @Test
+    public void outgoingTransformationsAreChained()
+            throws InterruptedException, ExecutionException, TimeoutException, TransformationException {
+        when(transformationServiceProvider.getTransformationService("MOCK")).thenReturn(transformationService);
+        when(transformationService.transform("first", "UPDATE")).thenReturn("B");
+        when(transformationService.transform("second", "B")).thenReturn("C");
+        ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
+        c.addTransformationOut(new ChannelStateTransformation("MOCK", "first", transformationServiceProvider));
+        c.addTransformationOut(new ChannelStateTransformation("MOCK", "second", transformationServiceProvider));
+        c.start(connection, scheduler, 0).get(50, TimeUnit.MILLISECONDS);
+
+        assertThat(c.publishValue(new StringType("UPDATE")).get(), is(true));
+        verify(connection).publish(eq("command"), argThat(p -> Arrays.equals(p, "C".getBytes())), anyInt(),
+                eq(false));
+    }
+
+    @Test
+    public void failedOutgoingTransformationDiscardsValue()
+            throws InterruptedException, ExecutionException, TimeoutException, TransformationException {
+        when(transformationServiceProvider.getTransformationService("MOCK")).thenReturn(transformationService);
+        when(transformationService.transform("first", "UPDATE")).thenReturn(null);
+        ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
+        c.addTransformationOut(new ChannelStateTransformation("MOCK", "first", transformationServiceProvider));
+        c.addTransformationOut(new ChannelStateTransformation("MOCK", "second", transformationServiceProvider));
+        c.start(connection, scheduler, 0).get(50, TimeUnit.MILLISECONDS);
+
+        assertThat(c.publishValue(new StringType("UPDATE")).get(), is(false));
+        verify(transformationService, never()).transform(eq("second"), any());
+        verify(connection, never()).publish(any(), any(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    public void transformationServiceIsResolvedUntilInvalidated() throws TransformationException {
+        when(transformationServiceProvider.getTransformationService("MOCK")).thenReturn(transformationService);
+        when(transformationService.transform(eq("pattern"), any())).thenReturn("B");
+        ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
+        c.addTransformation(new ChannelStateTransformation("MOCK", "pattern", transformationServiceProvider));
+
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "A".getBytes());
+        verify(transformationServiceProvider, times(1)).getTransformationService("MOCK");
+
+        ChannelStateTransformation.invalidateTransformationServices();
+        c.processMessage("state", "A".getBytes());
+        verify(transformationServiceProvider, times(2)).getTransformationService("MOCK");
+    }
 }
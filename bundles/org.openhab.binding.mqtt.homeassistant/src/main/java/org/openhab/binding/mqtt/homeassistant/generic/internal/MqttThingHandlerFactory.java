@@ -19,6 +19,7 @@ import java.util.stream.Stream;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.mqtt.generic.ChannelStateTransformation;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
 import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
 import org.openhab.binding.mqtt.homeassistant.internal.handler.HomeAssistantThingHandler;
@@ -29,11 +30,14 @@ import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.thing.binding.ThingHandlerFactory;
 import org.openhab.core.transform.TransformationHelper;
 import org.openhab.core.transform.TransformationService;
+import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
 /**
  * The {@link MqttThingHandlerFactory} is responsible for creating things and thing
@@ -79,6 +83,19 @@ public class MqttThingHandlerFactory extends BaseThingHandlerFactory implements
         this.typeProvider = null;
     }
 
+    /**
+     * Transformations keep their resolved services, so they are invalidated whenever a transformation service comes
+     * or goes. Only the service reference is bound, so the services are not activated by this.
+     */
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    protected void addTransformationService(ServiceReference<TransformationService> reference) {
+        ChannelStateTransformation.invalidateTransformationServices();
+    }
+
+    protected void removeTransformationService(ServiceReference<TransformationService> reference) {
+        ChannelStateTransformation.invalidateTransformationServices();
+    }
+
     @Override
     protected @Nullable ThingHandler createHandler(Thing thing) {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
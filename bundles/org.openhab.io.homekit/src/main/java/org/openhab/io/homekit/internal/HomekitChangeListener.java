@@ -15,6 +15,8 @@ package org.openhab.io.homekit.internal;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +24,10 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.common.registry.RegistryChangeListener;
 import org.openhab.core.items.GroupItem;
@@ -46,6 +50,10 @@ import io.github.hapjava.server.impl.HomekitRoot;
  * Listens for changes to the item and metadata registry. When changes are detected, check
  * for HomeKit tags and, if present, add the items to the HomekitAccessoryRegistry.
  *
+ * Changed accessories are re-created and compared with the existing ones. Accessories whose published structure did
+ * not change are kept, and the configuration revision is only increased if the structure of an accessory changed, so
+ * HomeKit clients only re-sync on actual changes.
+ *
  * @author Andy Lintner - Initial contribution
  */
 @NonNullByDefault
@@ -64,6 +72,10 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     private final Set<String> pendingUpdates = new HashSet<>();
 
+    // created root accessories by name, and the root accessories using an item by item name
+    private final Map<String, RootAccessory> rootAccessories = new HashMap<>();
+    private final Map<String, Set<String>> rootAccessoriesByItem = new HashMap<>();
+
     private final ScheduledExecutorService scheduler = ThreadPoolManager
             .getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
 
@@ -118,11 +130,27 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         };
         itemRegistry.addRegistryChangeListener(this);
         metadataRegistry.addRegistryChangeListener(metadataChangeListener);
-        itemRegistry.getItems().forEach(this::createRootAccessories);
+        createInitialRootAccessories();
         initialiseRevision();
         logger.info("Created {} HomeKit items.", accessoryRegistry.getAllAccessories().size());
     }
 
+    /**
+     * create the root accessories of all items with HomeKit metadata. Other items cannot be accessories, so the
+     * item registry is not scanned.
+     */
+    private synchronized void createInitialRootAccessories() {
+        metadataRegistry.getAll().stream()
+                .filter(metadata -> HomekitAccessoryFactory.METADATA_KEY.equals(metadata.getUID().getNamespace()))
+                .map(metadata -> metadata.getUID().getItemName()).distinct().forEach(name -> {
+                    final @Nullable RootAccessory rootAccessory = getItemOptional(name)
+                            .map(this::createRootAccessories).orElse(null);
+                    if (rootAccessory != null) {
+                        addRootAccessory(name, rootAccessory);
+                    }
+                });
+    }
+
     private void initialiseRevision() {
         int revision;
         try {
@@ -167,6 +195,8 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     private synchronized void markDirty(Item item) {
         logger.trace("Mark dirty item {}", item.getName());
         pendingUpdates.add(item.getName());
+        // accessories using the item, e.g. as characteristic of an accessory group it was removed from
+        pendingUpdates.addAll(rootAccessoriesByItem.getOrDefault(item.getName(), Collections.emptySet()));
         /*
          * If findMyAccessoryGroups fails because the accessory group has already been deleted, then we can count on a
          * later update telling us that the accessory group was removed.
@@ -199,16 +229,74 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         storage.put(ACCESSORY_COUNT, "" + lastAccessoryCount);
     }
 
-    private synchronized void applyUpdates() {
+    /**
+     * re-creates the accessories of all items marked dirty. Called by the debouncer, and directly by tests.
+     */
+    synchronized void applyUpdates() {
         logger.trace("apply updates");
+        if (pendingUpdates.isEmpty()) {
+            return;
+        }
+        boolean structureChanged = false;
         for (final String name : pendingUpdates) {
-            accessoryRegistry.remove(name);
-            logger.trace(" add items {}", name);
-            getItemOptional(name).ifPresent(this::createRootAccessories);
+            structureChanged |= updateRootAccessory(name);
         }
-        if (!pendingUpdates.isEmpty()) {
+        pendingUpdates.clear();
+        if (structureChanged) {
             makeNewConfigurationRevision();
-            pendingUpdates.clear();
+        } else {
+            logger.debug("HomeKit accessories unchanged, keeping configuration revision {}",
+                    accessoryRegistry.getConfigurationRevision());
+        }
+    }
+
+    /**
+     * re-create the root accessory of an item and replace the existing one if it changed.
+     *
+     * @param name item name
+     * @return true if the structure published to HomeKit clients changed
+     */
+    private boolean updateRootAccessory(String name) {
+        final @Nullable RootAccessory oldRootAccessory = rootAccessories.get(name);
+        final @Nullable RootAccessory newRootAccessory = getItemOptional(name).map(this::createRootAccessories)
+                .orElse(null);
+        if (oldRootAccessory != null && newRootAccessory != null && oldRootAccessory.isSameAs(newRootAccessory)) {
+            logger.trace("Accessory {} unchanged", name);
+            return false;
+        }
+        if (oldRootAccessory != null) {
+            removeRootAccessory(name, oldRootAccessory);
+        }
+        if (newRootAccessory != null) {
+            logger.trace(" add items {}", name);
+            addRootAccessory(name, newRootAccessory);
+        }
+        if (oldRootAccessory == null || newRootAccessory == null) {
+            return oldRootAccessory != newRootAccessory;
+        }
+        // an accessory re-created for updated item instances may still have the same structure
+        return !oldRootAccessory.structure.equals(newRootAccessory.structure);
+    }
+
+    private void addRootAccessory(String name, RootAccessory rootAccessory) {
+        accessoryRegistry.addRootAccessory(name, rootAccessory.accessory);
+        rootAccessories.put(name, rootAccessory);
+        for (Item item : rootAccessory.items) {
+            rootAccessoriesByItem.computeIfAbsent(item.getName(), k -> new HashSet<>()).add(name);
+        }
+    }
+
+    private void removeRootAccessory(String name, RootAccessory rootAccessory) {
+        accessoryRegistry.remove(name);
+        rootAccessories.remove(name);
+        for (Item item : rootAccessory.items) {
+            final @Nullable Set<String> names = rootAccessoriesByItem.get(item.getName());
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) {
+                    rootAccessoriesByItem.remove(item.getName());
+                }
+            }
         }
     }
 
@@ -224,6 +312,8 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public synchronized void clearAccessories() {
         accessoryRegistry.clear();
+        rootAccessories.clear();
+        rootAccessoriesByItem.clear();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
@@ -280,8 +370,9 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
      * Switch light "Light" (gLight) {homekit="Lighting.OnState"}
      *
      * @param item openHAB item
+     * @return the created root accessory, or null if the item is no root accessory
      */
-    private void createRootAccessories(Item item) {
+    private @Nullable RootAccessory createRootAccessories(Item item) {
         final List<Entry<HomekitAccessoryType, HomekitCharacteristicType>> accessoryTypes = HomekitAccessoryFactory
                 .getAccessoryTypes(item, metadataRegistry);
         final List<GroupItem> groups = HomekitAccessoryFactory.getAccessoryGroups(item, itemRegistry, metadataRegistry);
@@ -289,17 +380,59 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
                 && (groups.isEmpty() || groups.stream().noneMatch(g -> g.getBaseItem() == null))) {
             logger.trace("Item {} is a HomeKit accessory of types {}", item.getName(), accessoryTypes);
             final HomekitOHItemProxy itemProxy = new HomekitOHItemProxy(item);
-            accessoryTypes.forEach(rootAccessory -> createRootAccessory(new HomekitTaggedItem(itemProxy,
-                    rootAccessory.getKey(), HomekitAccessoryFactory.getItemConfiguration(item, metadataRegistry))));
+            // accessories are registered by item name, so the last created accessory type is used
+            @Nullable RootAccessory created = null;
+            for (Entry<HomekitAccessoryType, HomekitCharacteristicType> rootAccessory : accessoryTypes) {
+                final @Nullable RootAccessory accessory = createRootAccessory(new HomekitTaggedItem(itemProxy,
+                        rootAccessory.getKey(), HomekitAccessoryFactory.getItemConfiguration(item, metadataRegistry)));
+                if (accessory != null) {
+                    created = accessory;
+                }
+            }
+            return created;
         }
+        return null;
     }
 
-    private void createRootAccessory(HomekitTaggedItem taggedItem) {
+    private @Nullable RootAccessory createRootAccessory(HomekitTaggedItem taggedItem) {
         try {
-            accessoryRegistry.addRootAccessory(taggedItem.getName(),
-                    HomekitAccessoryFactory.create(taggedItem, metadataRegistry, updater, settings));
+            return new RootAccessory(HomekitAccessoryFactory.create(taggedItem, metadataRegistry, updater, settings));
         } catch (HomekitException e) {
             logger.warn("Could not add device {}: {}", taggedItem.getItem().getUID(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A created root accessory together with its structure and the items it was created from.
+     */
+    private static class RootAccessory {
+        private final HomekitAccessory accessory;
+        private final String structure;
+        private final List<Item> items;
+
+        private RootAccessory(HomekitAccessory accessory) {
+            this.accessory = accessory;
+            this.structure = HomekitAccessoryFactory.getStructure(accessory);
+            this.items = HomekitAccessoryFactory.getTaggedItems(accessory).stream().map(HomekitTaggedItem::getItem)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return true if both have the same structure and were created from the same item instances. An item which
+         *         was updated in the registry is a new instance, so the accessory must be re-created to follow its
+         *         state.
+         */
+        private boolean isSameAs(RootAccessory other) {
+            if (!structure.equals(other.structure) || items.size() != other.items.size()) {
+                return false;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) != other.items.get(i)) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 }
@@ -388,4 +388,52 @@ public class HomekitAccessoryFactory {
     private static boolean isRootAccessory(Entry<HomekitAccessoryType, HomekitCharacteristicType> accessory) {
         return ((accessory.getValue() == null) || (accessory.getValue() == EMPTY));
     }
+
+    /**
+     * return the tagged items an accessory was created from, i.e. the root accessory item and the items of all its
+     * characteristics.
+     *
+     * @param accessory accessory
+     * @return list of tagged items
+     */
+    public static List<HomekitTaggedItem> getTaggedItems(HomekitAccessory accessory) {
+        if (!(accessory instanceof AbstractHomekitAccessoryImpl)) {
+            return Collections.emptyList();
+        }
+        final AbstractHomekitAccessoryImpl accessoryImpl = (AbstractHomekitAccessoryImpl) accessory;
+        final List<HomekitTaggedItem> taggedItems = new ArrayList<>();
+        taggedItems.add(accessoryImpl.getRootAccessory());
+        taggedItems.addAll(accessoryImpl.getCharacteristics());
+        return taggedItems;
+    }
+
+    /**
+     * return the structure an accessory publishes to HomeKit clients, i.e. its id, name, services and
+     * characteristics, and the configuration of its items. States are not part of the structure.
+     * If the structure of a re-created accessory is unchanged, HomeKit clients need not be informed.
+     *
+     * @param accessory accessory
+     * @return description of the structure
+     */
+    public static String getStructure(HomekitAccessory accessory) {
+        final StringBuilder structure = new StringBuilder();
+        structure.append(accessory.getClass().getName()).append('|').append(accessory.getId()).append('|')
+                .append(accessory.getName().getNow(""));
+        for (Service service : accessory.getServices()) {
+            structure.append("|service:").append(service.getType());
+            for (Characteristic characteristic : service.getCharacteristics()) {
+                structure.append(',').append(characteristic.getClass().getName());
+            }
+        }
+        for (HomekitTaggedItem taggedItem : getTaggedItems(accessory)) {
+            structure.append("|item:").append(taggedItem.getName()).append(',').append(taggedItem.getItem().getType())
+                    .append(',').append(taggedItem.getAccessoryType()).append(',')
+                    .append(taggedItem.getCharacteristicType());
+            final @Nullable Map<String, Object> configuration = taggedItem.getConfiguration();
+            if (configuration != null) {
+                structure.append(',').append(new TreeMap<>(configuration));
+            }
+        }
+        return structure.toString();
+    }
 }
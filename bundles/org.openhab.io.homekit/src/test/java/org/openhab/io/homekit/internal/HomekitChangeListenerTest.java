@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.common.registry.RegistryChangeListener;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemNotFoundException;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.items.Metadata;
+import org.openhab.core.items.MetadataKey;
+import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.storage.Storage;
+import org.openhab.core.storage.StorageService;
+import org.openhab.io.homekit.internal.accessories.HomekitAccessoryFactory;
+
+import io.github.hapjava.accessories.HomekitAccessory;
+
+/**
+ * Tests when the {@link HomekitChangeListener} increases the configuration revision.
+ *
+ * @author agent - Initial contribution
+ */
+public class HomekitChangeListenerTest {
+    private static final String ITEM_NAME = "light";
+
+    private final Map<String, Item> items = new HashMap<>();
+    private final Map<MetadataKey, Metadata> metadata = new HashMap<>();
+    private final Map<String, String> stored = new HashMap<>();
+
+    private final ItemRegistry itemRegistry = mock(ItemRegistry.class);
+    private final MetadataRegistry metadataRegistry = mock(MetadataRegistry.class);
+    private final StorageService storageService = mock(StorageService.class);
+    @SuppressWarnings("unchecked")
+    private final Storage<String> storage = mock(Storage.class);
+
+    private HomekitChangeListener listener;
+    private RegistryChangeListener<Metadata> metadataListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ItemNotFoundException {
+        when(itemRegistry.get(anyString())).thenAnswer(invocation -> items.get(invocation.getArgument(0)));
+        when(itemRegistry.getItem(anyString())).thenAnswer(invocation -> {
+            Item item = items.get(invocation.getArgument(0));
+            if (item == null) {
+                throw new ItemNotFoundException((String) invocation.getArgument(0));
+            }
+            return item;
+        });
+        when(metadataRegistry.get(any())).thenAnswer(invocation -> metadata.get(invocation.getArgument(0)));
+        when(metadataRegistry.getAll()).thenAnswer(invocation -> metadata.values());
+        when(storage.get(anyString())).thenAnswer(invocation -> stored.get(invocation.getArgument(0)));
+        when(storage.put(anyString(), anyString()))
+                .thenAnswer(invocation -> stored.put(invocation.getArgument(0), invocation.getArgument(1)));
+        when(storageService.<String> getStorage(anyString())).thenReturn(storage);
+
+        items.put(ITEM_NAME, light("Light"));
+        setMetadata("Lighting");
+
+        listener = new HomekitChangeListener(itemRegistry, new HomekitSettings(), metadataRegistry, storageService);
+        ArgumentCaptor<RegistryChangeListener<Metadata>> captor = ArgumentCaptor
+                .forClass(RegistryChangeListener.class);
+        verify(metadataRegistry).addRegistryChangeListener(captor.capture());
+        metadataListener = captor.getValue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        listener.unsetBridge();
+        listener.stop();
+    }
+
+    private static DimmerItem light(String label) {
+        DimmerItem item = new DimmerItem(ITEM_NAME);
+        item.setLabel(label);
+        return item;
+    }
+
+    private Metadata setMetadata(String value) {
+        MetadataKey key = new MetadataKey(HomekitAccessoryFactory.METADATA_KEY, ITEM_NAME);
+        Metadata newMetadata = new Metadata(key, value, null);
+        metadata.put(key, newMetadata);
+        return newMetadata;
+    }
+
+    private void updateItem(Item newItem) {
+        Item oldItem = items.put(newItem.getName(), newItem);
+        listener.updated(oldItem, newItem);
+        listener.applyUpdates();
+    }
+
+    private void updateMetadata(String value) {
+        Metadata oldMetadata = metadata.get(new MetadataKey(HomekitAccessoryFactory.METADATA_KEY, ITEM_NAME));
+        metadataListener.updated(oldMetadata, setMetadata(value));
+        listener.applyUpdates();
+    }
+
+    private String getStructure() {
+        HomekitAccessory accessory = listener.getAccessories().get(ITEM_NAME);
+        assertNotNull(accessory);
+        return HomekitAccessoryFactory.getStructure(accessory);
+    }
+
+    @Test
+    public void nonStructuralChangeKeepsRevision() {
+        int revision = listener.getConfigurationRevision();
+        HomekitAccessory accessory = listener.getAccessories().get(ITEM_NAME);
+        String structure = getStructure();
+
+        // an updated item is a new instance with the same configuration
+        updateItem(light("Light"));
+
+        assertEquals(revision, listener.getConfigurationRevision());
+        assertEquals(structure, getStructure());
+        // the accessory follows the new item instance
+        assertNotSame(accessory, listener.getAccessories().get(ITEM_NAME));
+    }
+
+    @Test
+    public void addedCharacteristicIncreasesRevision() {
+        int revision = listener.getConfigurationRevision();
+        String structure = getStructure();
+
+        updateMetadata("Lighting,Brightness");
+
+        assertEquals(revision + 1, listener.getConfigurationRevision());
+        assertNotEquals(structure, getStructure());
+        assertEquals(String.valueOf(revision + 1), stored.get("revision"));
+    }
+
+    @Test
+    public void removedCharacteristicIncreasesRevision() {
+        updateMetadata("Lighting,Brightness");
+        int revision = listener.getConfigurationRevision();
+
+        updateMetadata("Lighting");
+
+        assertEquals(revision + 1, listener.getConfigurationRevision());
+    }
+
+    @Test
+    public void renameIncreasesRevision() {
+        int revision = listener.getConfigurationRevision();
+
+        updateItem(light("Kitchen Light"));
+
+        assertEquals(revision + 1, listener.getConfigurationRevision());
+        assertEquals("Kitchen Light", listener.getAccessories().get(ITEM_NAME).getName().join());
+    }
+
+    @Test
+    public void removedAccessoryIncreasesRevision() {
+        int revision = listener.getConfigurationRevision();
+
+        Item item = items.remove(ITEM_NAME);
+        listener.removed(item);
+        listener.applyUpdates();
+
+        assertEquals(revision + 1, listener.getConfigurationRevision());
+        assertTrue(listener.getAccessories().isEmpty());
+    }
+}
@@ -99,6 +99,11 @@ public class ConfigStore {
             .registerTypeAdapter(HueSuccessResponseStateChanged.class, new HueSuccessResponseStateChanged.Serializer())
             .registerTypeAdapter(HueGroupEntry.class, new HueGroupEntry.Serializer(this)).create();
 
+    /**
+     * Serialized lights and groups, for the frequently polled lights, groups and full state requests
+     */
+    public final SerializedStateCache stateCache = new SerializedStateCache(gson);
+
     @Reference
     protected @NonNullByDefault({}) ConfigurationAdmin configAdmin;
 
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.items.Item;
+import org.openhab.io.hueemulation.internal.dto.HueDataStore;
+import org.openhab.io.hueemulation.internal.dto.HueGroupEntry;
+import org.openhab.io.hueemulation.internal.dto.HueLightEntry;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+
+/**
+ * Keeps the serialized JSON of the lights and groups, so that polling clients do not cause a full serialization on
+ * every request.
+ * <p>
+ * Each light and group is kept as a JSON fragment together with the values it was serialized from (item state, label,
+ * last command, group members, ...). On a request the fragments are validated against the current values, and only
+ * the changed ones are serialized again. The combined document is only rebuilt if a fragment changed, and then gets a
+ * new tag which is used as HTTP ETag.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SerializedStateCache {
+    /**
+     * A serialized document and its tag. The tag changes whenever the document changes.
+     */
+    public static class CachedJson {
+        public final String json;
+        public final String tag;
+
+        CachedJson(String json, String tag) {
+            this.json = json;
+            this.tag = tag;
+        }
+    }
+
+    private final Gson gson;
+    // serializes the data store without lights and groups, which are taken from the fragments
+    private final Gson gsonWithoutLightsAndGroups;
+    // tags must not repeat after a restart, clients may still have one of the last run
+    private final String instanceTag = Long.toHexString(System.currentTimeMillis());
+
+    private final Fragments<HueLightEntry> lights = new Fragments<>(SerializedStateCache::lightValues);
+    private final Fragments<HueGroupEntry> groups = new Fragments<>(SerializedStateCache::groupValues);
+
+    public SerializedStateCache(Gson gson) {
+        this.gson = gson;
+        this.gsonWithoutLightsAndGroups = gson.newBuilder().addSerializationExclusionStrategy(new ExclusionStrategy() {
+            @Override
+            public boolean shouldSkipField(@NonNullByDefault({}) FieldAttributes f) {
+                return f.getDeclaringClass() == HueDataStore.class
+                        && ("lights".equals(f.getName()) || "groups".equals(f.getName()));
+            }
+
+            @Override
+            public boolean shouldSkipClass(@NonNullByDefault({}) Class<?> clazz) {
+                return false;
+            }
+        }).create();
+    }
+
+    /**
+     * Returns the JSON of all given lights, as {@code gson.toJson(lights)} would.
+     */
+    public CachedJson getLights(Map<String, HueLightEntry> entries) {
+        return lights.getAll(entries);
+    }
+
+    /**
+     * Returns the JSON of all given groups, as {@code gson.toJson(groups)} would.
+     */
+    public CachedJson getGroups(Map<String, HueGroupEntry> entries) {
+        return groups.getAll(entries);
+    }
+
+    /**
+     * Returns the JSON of a single light. The light is serialized again only if it changed.
+     */
+    public String getLight(String id, @Nullable HueLightEntry entry) {
+        return entry == null ? gson.toJson(null) : lights.get(id, entry);
+    }
+
+    /**
+     * Returns the JSON of a single group. The group is serialized again only if it changed.
+     */
+    public String getGroup(String id, @Nullable HueGroupEntry entry) {
+        return entry == null ? gson.toJson(null) : groups.get(id, entry);
+    }
+
+    /**
+     * Returns the JSON of the full data store, as {@code gson.toJson(ds)} would, with the lights and groups taken
+     * from the cache.
+     */
+    public String getFullState(HueDataStore ds) {
+        String others = gsonWithoutLightsAndGroups.toJson(ds);
+        StringBuilder builder = new StringBuilder(others.length() + 64);
+        builder.append("{\"lights\":").append(getLights(ds.lights).json).append(",\"groups\":")
+                .append(getGroups(ds.groups).json);
+        if (others.length() > 2) {
+            builder.append(',');
+        }
+        return builder.append(others, 1, others.length()).toString();
+    }
+
+    /**
+     * The values a light is serialized from. {@link HueLightEntry.Serializer} computes the state from the item state
+     * and the last command.
+     */
+    private static List<@Nullable Object> lightValues(HueLightEntry entry) {
+        Item item = entry.item;
+        return Arrays.asList(item, item.getState(), item.getLabel(), entry.name, entry.lastCommand,
+                entry.lastHueChange);
+    }
+
+    /**
+     * The values a group is serialized from. {@link HueGroupEntry.Serializer} computes the lights from the members.
+     * The action is replaced, not modified, on a group action.
+     */
+    private static List<@Nullable Object> groupValues(HueGroupEntry entry) {
+        GroupItem item = entry.groupItem;
+        List<String> members = item == null ? Collections.emptyList()
+                : item.getMembers().stream().map(Item::getUID).collect(Collectors.toList());
+        return Arrays.asList(item, members, new ArrayList<>(entry.lights), new ArrayList<>(entry.sensors),
+                entry.action, entry.name, entry.type, entry.roomclass);
+    }
+
+    private static class Fragment {
+        final Object entry;
+        final List<@Nullable Object> values;
+        final String json;
+
+        Fragment(Object entry, List<@Nullable Object> values, String json) {
+            this.entry = entry;
+            this.values = values;
+            this.json = json;
+        }
+    }
+
+    /**
+     * The fragments of one kind of entries, and the document combining them.
+     */
+    private class Fragments<T> {
+        private final Function<T, List<@Nullable Object>> valuesOf;
+        private final Map<String, Fragment> fragments = new HashMap<>();
+        private @Nullable String json;
+        // a fragment changed since the document was built
+        private boolean dirty = false;
+        private long version = 0;
+
+        Fragments(Function<T, List<@Nullable Object>> valuesOf) {
+            this.valuesOf = valuesOf;
+        }
+
+        synchronized String get(String id, T entry) {
+            return update(id, entry).json;
+        }
+
+        synchronized CachedJson getAll(Map<String, T> entries) {
+            boolean changed = fragments.keySet().retainAll(entries.keySet());
+            for (Entry<String, T> entry : entries.entrySet()) {
+                update(entry.getKey(), entry.getValue());
+            }
+            String cached = json;
+            if (cached == null || changed || dirty) {
+                StringBuilder builder = new StringBuilder();
+                for (String id : entries.keySet()) {
+                    Fragment fragment = fragments.get(id);
+                    if (fragment != null) {
+                        builder.append(builder.length() == 0 ? '{' : ',').append(gson.toJson(id)).append(':')
+                                .append(fragment.json);
+                    }
+                }
+                cached = builder.length() == 0 ? "{}" : builder.append('}').toString();
+                json = cached;
+                dirty = false;
+                version++;
+            }
+            return new CachedJson(cached, instanceTag + "-" + version);
+        }
+
+        private Fragment update(String id, T entry) {
+            List<@Nullable Object> values = valuesOf.apply(entry);
+            Fragment fragment = fragments.get(id);
+            if (fragment == null || fragment.entry != entry || !fragment.values.equals(values)) {
+                fragment = new Fragment(entry, values, gson.toJson(entry));
+                fragments.put(id, fragment);
+                dirty = true;
+            }
+            return fragment;
+        }
+    }
+}
@@ -21,6 +21,8 @@ import static org.mockito.Mockito.verify;
 import java.io.IOException;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -335,6 +337,44 @@ public class LightsAndGroupsTests {
         assertThat(body, containsString("color"));
     }
 
+    @Test
+    public void unchangedLightsAreNotModified() {
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request().get();
+        assertEquals(200, response.getStatus());
+        EntityTag etag = response.getEntityTag();
+        String body = response.readEntity(String.class);
+        assertThat(etag, notNullValue());
+        assertThat(body, is(cs.gson.toJson(cs.ds.lights)));
+
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request()
+                .header(HttpHeaders.IF_NONE_MATCH, etag).get();
+        assertEquals(304, response.getStatus());
+
+        // An item state change invalidates the light
+        cs.ds.lights.get("1").item.setState(OnOffType.ON);
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request()
+                .header(HttpHeaders.IF_NONE_MATCH, etag).get();
+        assertEquals(200, response.getStatus());
+        assertThat(response.getEntityTag(), not(is(etag)));
+        assertThat(response.readEntity(String.class), is(cs.gson.toJson(cs.ds.lights)));
+        assertThat(((HueStatePlug) cs.ds.lights.get("1").state).on, is(true));
+    }
+
+    @Test
+    public void removedLightsAndGroupsAreNotCached() {
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups").request().get();
+        assertEquals(200, response.getStatus());
+        assertThat(response.readEntity(String.class), containsString("\"10\""));
+
+        cs.ds.lights.remove("2");
+        cs.ds.groups.remove("10");
+
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups").request().get();
+        assertThat(response.readEntity(String.class), is(cs.gson.toJson(cs.ds.groups)));
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request().get();
+        assertThat(response.readEntity(String.class), is(cs.gson.toJson(cs.ds.lights)));
+    }
+
     private boolean assertHueValue(ItemCommandEvent ce, int hueValue) {
         assertThat(((HSBType) ce.getItemCommand()).getHue().intValue(), is(hueValue * 360 / HueStateColorBulb.MAX_HUE));
         return true;
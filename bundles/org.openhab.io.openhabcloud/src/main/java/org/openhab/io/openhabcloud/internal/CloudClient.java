@@ -19,10 +19,12 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -31,7 +33,7 @@ import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
@@ -39,7 +41,7 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
-import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -53,6 +55,7 @@ import io.socket.client.Manager;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 import io.socket.engineio.client.Transport;
+import io.socket.thread.EventThread;
 
 /**
  * This class provides communication between openHAB and the openHAB Cloud service.
@@ -96,9 +99,23 @@ public class CloudClient {
     private final HttpClient jettyClient;
 
     /*
-     * This map holds HTTP requests to local openHAB which are currently running
+     * This map holds the responses of HTTP requests to local openHAB which are currently running
      */
-    private final Map<Integer, Request> runningRequests = new ConcurrentHashMap<>();
+    private final Map<Integer, ResponseListener> runningRequests = new ConcurrentHashMap<>();
+
+    /*
+     * Maximum number of response bytes per request which are passed to socket.io but not sent yet. Further content
+     * is not read from the local openHAB until it is sent.
+     */
+    static final int MAX_IN_FLIGHT_BYTES = 256 * 1024;
+
+    /*
+     * The engine.io transport which was created last and the number of drains of all transports, i.e. of completed
+     * writes. Both are only used on the socket.io event thread. While a transport upgrade is probed, the drains of the
+     * probe are counted as well, so content may be released slightly before it is written.
+     */
+    private @Nullable Transport transport;
+    private long transportDrains = 0;
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
@@ -167,6 +184,13 @@ public class CloudClient {
             public void call(Object... args) {
                 logger.trace("Manager.EVENT_TRANSPORT");
                 Transport transport = (Transport) args[0];
+                CloudClient.this.transport = transport;
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        onTransportDrain();
+                    }
+                });
                 transport.on(Transport.EVENT_REQUEST_HEADERS, new Emitter.Listener() {
                     @Override
                     public void call(Object... args) {
@@ -242,7 +266,10 @@ public class CloudClient {
         logger.info("Disconnected from the openHAB Cloud service (UUID = {}, base URL = {})", this.uuid,
                 this.localBaseUrl);
         isConnected = false;
-        // And clean up the list of running requests
+        // Abort the running requests, nobody is waiting for their responses anymore, and release their content
+        for (ResponseListener listener : runningRequests.values()) {
+            listener.cancel("Disconnected from openHAB Cloud");
+        }
         runningRequests.clear();
     }
 
@@ -323,20 +350,20 @@ public class CloudClient {
                 request.method(HttpMethod.GET);
             } else if (requestMethod.equals("POST")) {
                 request.method(HttpMethod.POST);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new BytesContentProvider(requestBody.getBytes(StandardCharsets.UTF_8)));
             } else if (requestMethod.equals("PUT")) {
                 request.method(HttpMethod.PUT);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new BytesContentProvider(requestBody.getBytes(StandardCharsets.UTF_8)));
             } else {
                 // TODO: Reject unsupported methods
                 logger.warn("Unsupported request method {}", requestMethod);
                 return;
             }
-            ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
-            runningRequests.put(requestId, request);
+            ResponseListener listener = new ResponseListener(requestId, request);
+            // add it to the list of currently running requests before sending to be able to cancel it if needed
+            runningRequests.put(requestId, listener);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
         } catch (JSONException | IOException | URISyntaxException e) {
             logger.debug("{}", e.getMessage());
         }
@@ -364,11 +391,10 @@ public class CloudClient {
         try {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
-            // Find and abort running request
-            Request request = runningRequests.get(requestId);
-            if (request != null) {
-                request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
+            // Find and abort running request, releasing the content which is not sent yet
+            ResponseListener listener = runningRequests.remove(requestId);
+            if (listener != null) {
+                listener.cancel("Canceled by openHAB Cloud");
             }
         } catch (JSONException e) {
             logger.debug("{}", e.getMessage());
@@ -512,18 +538,66 @@ public class CloudClient {
         this.listener = listener;
     }
 
+    /**
+     * Called on the socket.io event thread when the transport has written all packets passed to it.
+     */
+    private void onTransportDrain() {
+        long drains = ++transportDrains;
+        for (ResponseListener listener : runningRequests.values()) {
+            listener.drained(drains);
+        }
+    }
+
+    /**
+     * Returns the number of transport drains after which content which is passed to socket.io now is written. Must be
+     * called on the socket.io event thread.
+     */
+    private long getWrittenAfterDrain() {
+        Transport currentTransport = transport;
+        // a writable transport writes the content immediately, otherwise it waits for the write in progress
+        return transportDrains + (currentTransport != null && currentTransport.writable ? 1 : 2);
+    }
+
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which forwards response headers and data back to the openHAB Cloud.
+     * Content is streamed: each chunk is copied once from Jetty's buffer and passed to socket.io, which sends it as a
+     * binary attachment. While more than MAX_IN_FLIGHT_BYTES are not written by the transport yet, no further content
+     * is read.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
         private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
+        private final Request mRequest;
         private boolean mHeadersSent = false;
+        private volatile boolean mCanceled = false;
+        private final InFlightContent mInFlightContent = new InFlightContent(MAX_IN_FLIGHT_BYTES,
+                ThreadPoolManager.getPool(THREADPOOL_OPENHABCLOUD));
+        private long mContentBytes = 0;
 
-        public ResponseListener(int requestId) {
+        public ResponseListener(int requestId, Request request) {
             mRequestId = requestId;
+            mRequest = request;
+        }
+
+        /**
+         * Aborts the request because the openHAB Cloud does not need the response anymore.
+         *
+         * @param reason why the response is not needed anymore
+         */
+        public void cancel(String reason) {
+            mCanceled = true;
+            CancellationException cancellation = new CancellationException(reason);
+            mInFlightContent.cancel(cancellation);
+            mRequest.abort(cancellation);
+        }
+
+        /**
+         * Releases the content which is written by the transport.
+         */
+        public void drained(long drainCount) {
+            mInFlightContent.drained(drainCount);
         }
 
         private JSONObject getJSONHeaders(HttpFields httpFields) {
@@ -541,7 +615,7 @@ public class CloudClient {
         @Override
         public void onComplete(Result result) {
             // Remove this request from list of running requests
-            runningRequests.remove(mRequestId);
+            runningRequests.remove(mRequestId, this);
             if ((result != null && result.isFailed())
                     && (result.getResponse() != null && result.getResponse().getStatus() != HttpStatus.OK_200)) {
                 if (result.getFailure() != null) {
@@ -565,7 +639,7 @@ public class CloudClient {
                 try {
                     responseJson.put("id", mRequestId);
                     socket.emit("responseFinished", responseJson);
-                    logger.debug("Finished responding to request {}", mRequestId);
+                    logger.debug("Finished responding to request {} with {} bytes", mRequestId, mContentBytes);
                 } catch (JSONException e) {
                     logger.debug("{}", e.getMessage());
                 }
@@ -585,16 +659,38 @@ public class CloudClient {
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
-            logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
+            final int size = content.remaining();
+            logger.debug("Jetty received response content of size {}", size);
+            if (mCanceled) {
+                callback.succeeded();
+                return;
+            }
+            // Jetty reuses the buffer after the callback, socket.io may send it later
+            byte[] body = new byte[size];
+            content.get(body);
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
+                responseJson.put("body", body);
             } catch (JSONException e) {
                 logger.debug("{}", e.getMessage());
+                callback.succeeded();
+                return;
+            }
+            synchronized (this) {
+                mContentBytes += size;
+            }
+            // emit on the event thread to know whether the transport writes the content immediately
+            EventThread.exec(() -> {
+                long writtenAfterDrain = getWrittenAfterDrain();
+                socket.emit("responseContentBinary", responseJson);
+                mInFlightContent.queued(size, writtenAfterDrain);
+            });
+            // the callback may read further content right away, which must be emitted after this content
+            if (!mInFlightContent.add(size, callback)) {
+                logger.trace("Request {} has {} bytes in flight, waiting before reading more content", mRequestId,
+                        mInFlightContent.getBytes());
             }
         }
 
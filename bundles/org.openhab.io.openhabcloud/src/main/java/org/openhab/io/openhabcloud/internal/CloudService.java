@@ -27,6 +27,7 @@ import java.util.Set;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.events.Event;
 import org.openhab.core.events.EventFilter;
@@ -73,6 +74,10 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_UPDATE_WINDOW = "updateWindow";
+    private static final String CFG_MAX_UPDATES_PER_SECOND = "maxUpdatesPerSecond";
+    private static final int DEFAULT_UPDATE_WINDOW = 1000;
+    private static final int DEFAULT_MAX_UPDATES_PER_SECOND = 50;
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
     private static final int DEFAULT_LOCAL_OPENHAB_MAX_CONCURRENT_REQUESTS = 200;
@@ -85,6 +90,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
     public static String clientVersion = null;
     private CloudClient cloudClient;
+    private ItemUpdateUplink itemUpdateUplink;
     private String cloudBaseUrl = null;
     private final HttpClient httpClient;
     protected final ItemRegistry itemRegistry;
@@ -185,6 +191,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     @Deactivate
     protected void deactivate() {
         logger.debug("openHAB Cloud connector deactivated");
+        itemUpdateUplink.shutdown();
         cloudClient.shutdown();
         try {
             httpClient.stop();
@@ -226,8 +233,14 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
             }
         }
 
+        int updateWindow = getIntConfig(config, CFG_UPDATE_WINDOW, DEFAULT_UPDATE_WINDOW);
+        int maxUpdatesPerSecond = getIntConfig(config, CFG_MAX_UPDATES_PER_SECOND, DEFAULT_MAX_UPDATES_PER_SECOND);
+
         logger.debug("UUID = {}, secret = {}", InstanceUUID.get(), getSecret());
 
+        if (itemUpdateUplink != null) {
+            itemUpdateUplink.shutdown();
+        }
         if (cloudClient != null) {
             cloudClient.shutdown();
         }
@@ -244,11 +257,29 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
         cloudClient = new CloudClient(httpClient, InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl,
                 remoteAccessEnabled, exposedItems);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
+        itemUpdateUplink = new ItemUpdateUplink(cloudClient,
+                ThreadPoolManager.getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON), updateWindow,
+                maxUpdatesPerSecond);
         cloudClient.connect();
         cloudClient.setListener(this);
         NotificationAction.cloudService = this;
     }
 
+    private int getIntConfig(Map<String, ?> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return Math.max(0, ((Number) value).intValue());
+        }
+        if (value != null) {
+            try {
+                return Math.max(0, Integer.parseInt(value.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for {}, using default {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     @Override
     public String getActionClassName() {
         return NotificationAction.class.getCanonicalName();
@@ -366,7 +397,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     public void receive(Event event) {
         ItemStateEvent ise = (ItemStateEvent) event;
         if (exposedItems != null && exposedItems.contains(ise.getItemName())) {
-            cloudClient.sendItemUpdate(ise.getItemName(), ise.getItemState().toString());
+            itemUpdateUplink.sendItemUpdate(ise.getItemName(), ise.getItemState().toString());
         }
     }
 }
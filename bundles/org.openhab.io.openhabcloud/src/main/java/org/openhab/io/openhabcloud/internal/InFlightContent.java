@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.util.Callback;
+
+/**
+ * Limits the response content of a request which is passed to socket.io but not written by the engine.io transport
+ * yet. While more than {@code maxBytes} are not written, the Jetty content callback is held, so no further content is
+ * read from the local openHAB.
+ *
+ * The engine.io transport emits a drain event whenever a write has completed. Content which is passed to a writable
+ * transport is part of the next write and is written after the next drain. Content which is passed while a write is
+ * in progress waits in the engine.io write buffer, which is written after the drain of the write in progress, so it is
+ * written after the drain after next.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class InFlightContent {
+    private final int maxBytes;
+    private final Executor executor;
+
+    // content passed to socket.io, in the order it is written, with the drain after which it is written
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private int bytes = 0;
+    private @Nullable Callback pendingCallback;
+    private boolean canceled = false;
+
+    /**
+     * @param maxBytes the maximum number of bytes which are not written
+     * @param executor runs the held callback, so that reading further content does not block the socket.io event
+     *            thread
+     */
+    InFlightContent(int maxBytes, Executor executor) {
+        this.maxBytes = maxBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Adds content which is about to be passed to socket.io. The callback is succeeded immediately if no more than
+     * {@code maxBytes} are in flight, otherwise once enough content is written.
+     *
+     * @return false if the callback is held
+     */
+    boolean add(int size, Callback callback) {
+        synchronized (this) {
+            if (canceled) {
+                callback.failed(new IllegalStateException("Content is canceled"));
+                return true;
+            }
+            bytes += size;
+            if (bytes > maxBytes) {
+                pendingCallback = callback;
+                return false;
+            }
+        }
+        callback.succeeded();
+        return true;
+    }
+
+    /**
+     * Records that content was passed to the transport.
+     *
+     * @param size the size of the content
+     * @param writtenAfterDrain the number of transport drains after which the content is written
+     */
+    synchronized void queued(int size, long writtenAfterDrain) {
+        if (!canceled) {
+            chunks.add(new Chunk(size, writtenAfterDrain));
+        }
+    }
+
+    /**
+     * Releases the content which is written by the transport and resumes reading if enough content is written.
+     *
+     * @param drainCount the number of transport drains so far
+     */
+    void drained(long drainCount) {
+        Callback callback;
+        synchronized (this) {
+            Chunk chunk = chunks.peek();
+            while (chunk != null && chunk.writtenAfterDrain <= drainCount) {
+                chunks.poll();
+                bytes -= chunk.size;
+                chunk = chunks.peek();
+            }
+            callback = pendingCallback;
+            if (callback == null || bytes > maxBytes) {
+                return;
+            }
+            pendingCallback = null;
+        }
+        executor.execute(callback::succeeded);
+    }
+
+    /**
+     * Fails the held callback and discards the content which is not written yet.
+     */
+    void cancel(Throwable cause) {
+        Callback callback;
+        synchronized (this) {
+            canceled = true;
+            callback = pendingCallback;
+            pendingCallback = null;
+            chunks.clear();
+            bytes = 0;
+        }
+        if (callback != null) {
+            callback.failed(cause);
+        }
+    }
+
+    synchronized int getBytes() {
+        return bytes;
+    }
+
+    private static class Chunk {
+        private final int size;
+        private final long writtenAfterDrain;
+
+        private Chunk(int size, long writtenAfterDrain) {
+            this.size = size;
+            this.writtenAfterDrain = writtenAfterDrain;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends item updates to the openHAB Cloud. An update is sent immediately and opens a window of time. Further updates
+ * within the window are collected, and only the latest state of each item is sent at the end of the window, which
+ * then opens the next window. Once a window ends without updates, the next update is sent immediately again. At most
+ * {@code maxUpdatesPerSecond} updates are sent, updates exceeding this budget are kept for the next window, where they
+ * may be coalesced with newer states.
+ *
+ * Updates are dropped while the openHAB Cloud is not connected, as before.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ItemUpdateUplink {
+
+    private final Logger logger = LoggerFactory.getLogger(ItemUpdateUplink.class);
+
+    private final CloudClient cloudClient;
+    private final ScheduledExecutorService scheduler;
+    private final int windowMillis;
+    private final int maxUpdatesPerSecond;
+
+    // latest state per item, in the order the items were updated first
+    private final Map<String, String> pendingUpdates = new LinkedHashMap<>();
+    private @Nullable ScheduledFuture<?> flushJob;
+    private boolean stopped = false;
+
+    // budget of updates which may be sent now, refilled with maxUpdatesPerSecond
+    private double budget;
+    private long budgetRefillNanos = System.nanoTime();
+
+    // metrics
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param cloudClient client sending the updates
+     * @param scheduler scheduler used to send the updates at the end of a window
+     * @param windowMillis window in milliseconds in which updates of an item are coalesced, 0 sends updates
+     *            immediately
+     * @param maxUpdatesPerSecond maximum number of updates sent per second, 0 for no limit
+     */
+    public ItemUpdateUplink(CloudClient cloudClient, ScheduledExecutorService scheduler, int windowMillis,
+            int maxUpdatesPerSecond) {
+        this.cloudClient = cloudClient;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.maxUpdatesPerSecond = maxUpdatesPerSecond;
+        this.budget = maxUpdatesPerSecond;
+    }
+
+    /**
+     * Adds an item update. It replaces an update of the same item which was not sent yet.
+     */
+    public synchronized void sendItemUpdate(String itemName, String itemState) {
+        if (stopped) {
+            return;
+        }
+        if (!cloudClient.isConnected()) {
+            droppedCount.incrementAndGet();
+            logger.debug("No connection, Item update is not sent");
+            return;
+        }
+        if (pendingUpdates.put(itemName, itemState) != null) {
+            coalescedCount.incrementAndGet();
+        }
+        if (flushJob == null) {
+            // no window is open, the update is sent immediately
+            flush();
+            scheduleFlush(windowMillis);
+        }
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (flushJob == null && !stopped && delayMillis > 0) {
+            flushJob = scheduler.schedule(this::flushSafely, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void flushSafely() {
+        flushJob = null;
+        try {
+            if (flush() > 0) {
+                // the window stays open while updates are sent
+                scheduleFlush(windowMillis);
+            }
+            logger.debug("{}", this);
+        } catch (RuntimeException e) {
+            logger.warn("Sending item updates failed unexpectedly", e);
+        }
+    }
+
+    /**
+     * Sends the pending updates within the budget. Updates exceeding the budget are sent later.
+     *
+     * @return the number of updates sent
+     */
+    private int flush() {
+        if (!cloudClient.isConnected()) {
+            droppedCount.addAndGet(pendingUpdates.size());
+            logger.debug("No connection, {} item updates are not sent", pendingUpdates.size());
+            pendingUpdates.clear();
+            return 0;
+        }
+        refillBudget();
+        int sent = 0;
+        Iterator<Entry<String, String>> iterator = pendingUpdates.entrySet().iterator();
+        while (iterator.hasNext() && (maxUpdatesPerSecond <= 0 || budget >= 1)) {
+            Entry<String, String> update = iterator.next();
+            iterator.remove();
+            cloudClient.sendItemUpdate(update.getKey(), update.getValue());
+            sentCount.incrementAndGet();
+            budget--;
+            sent++;
+        }
+        if (!pendingUpdates.isEmpty()) {
+            logger.trace("Update budget exhausted, {} item updates are sent later", pendingUpdates.size());
+            scheduleFlush(Math.max(windowMillis,
+                    maxUpdatesPerSecond > 0 ? Math.max(1, 1000 / maxUpdatesPerSecond) : 1));
+        }
+        return sent;
+    }
+
+    private void refillBudget() {
+        if (maxUpdatesPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        budget = Math.min(maxUpdatesPerSecond,
+                budget + (now - budgetRefillNanos) * maxUpdatesPerSecond / (double) TimeUnit.SECONDS.toNanos(1));
+        budgetRefillNanos = now;
+    }
+
+    /**
+     * Stops sending updates. Pending updates are dropped.
+     */
+    public synchronized void shutdown() {
+        stopped = true;
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        droppedCount.addAndGet(pendingUpdates.size());
+        pendingUpdates.clear();
+        logger.debug("Item update uplink stopped: {}", this);
+    }
+
+    /***********
+     * METRICS *
+     ***********/
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ItemUpdateUplink{sent=" + getSentCount() + ", coalesced=" + getCoalescedCount() + ", dropped="
+                + getDroppedCount() + "}";
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.util.Callback;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.socket.client.Socket;
+
+/**
+ * Tests that the {@link CloudClient} aborts the running requests when it is disconnected.
+ *
+ * @author agent - Initial contribution
+ */
+public class CloudClientTest {
+
+    private final HttpClient jettyClient = mock(HttpClient.class);
+    private final Request request = mock(Request.class, RETURNS_SELF);
+    private CloudClient client;
+
+    @BeforeEach
+    public void setUp() throws ReflectiveOperationException {
+        when(jettyClient.newRequest(any(URI.class))).thenReturn(request);
+        client = new CloudClient(jettyClient, "uuid", "secret", "https://myopenhab.org", "http://localhost:8080",
+                true, Set.of());
+        // the socket is created by connect(), which connects to the openHAB Cloud
+        Field socket = CloudClient.class.getDeclaredField("socket");
+        socket.setAccessible(true);
+        socket.set(client, mock(Socket.class));
+    }
+
+    private Response.AsyncContentListener sendRequest(int id) {
+        client.onEvent("request", new JSONObject().put("id", id).put("path", "/rest/items").put("method", "GET")
+                .put("body", "").put("headers", new JSONObject()).put("query", new JSONObject()));
+        ArgumentCaptor<Response.CompleteListener> listener = ArgumentCaptor.forClass(Response.CompleteListener.class);
+        verify(request).send(listener.capture());
+        return (Response.AsyncContentListener) listener.getValue();
+    }
+
+    @Test
+    public void disconnectReleasesHeldContent() {
+        Response.AsyncContentListener listener = sendRequest(1);
+        Callback callback = mock(Callback.class);
+
+        // more content than may be in flight, so reading waits until it is written
+        listener.onContent(mock(Response.class), ByteBuffer.allocate(CloudClient.MAX_IN_FLIGHT_BYTES + 1), callback);
+        verify(callback, never()).succeeded();
+
+        client.onDisconnect();
+
+        verify(callback).failed(any());
+        verify(request).abort(any());
+    }
+
+    @Test
+    public void disconnectAbortsRequestWithoutContent() {
+        sendRequest(1);
+
+        client.onDisconnect();
+
+        verify(request).abort(any());
+    }
+}
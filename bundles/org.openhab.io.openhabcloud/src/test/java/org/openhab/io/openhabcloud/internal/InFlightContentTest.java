@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link InFlightContent}.
+ *
+ * @author agent - Initial contribution
+ */
+public class InFlightContentTest {
+    private static final int MAX_BYTES = 100;
+
+    // held callbacks are resumed on the calling thread
+    private final InFlightContent content = new InFlightContent(MAX_BYTES, Runnable::run);
+
+    @Test
+    public void contentWithinLimitIsReadWithoutWaiting() {
+        Callback callback = mock(Callback.class);
+
+        assertTrue(content.add(60, callback));
+        content.queued(60, 1);
+
+        verify(callback).succeeded();
+        assertEquals(60, content.getBytes());
+    }
+
+    @Test
+    public void slowTransportPausesReading() {
+        Callback first = mock(Callback.class);
+        Callback second = mock(Callback.class);
+        // the transport writes the first content immediately
+        content.add(60, first);
+        content.queued(60, 1);
+        // the second content waits for the write in progress
+        assertFalse(content.add(60, second));
+        content.queued(60, 2);
+        verify(second, never()).succeeded();
+
+        // the second content is still not written
+        content.drained(1);
+        assertEquals(60, content.getBytes());
+        verify(second).succeeded();
+    }
+
+    @Test
+    public void readingResumesOnlyWhenContentIsWritten() {
+        Callback first = mock(Callback.class);
+        Callback second = mock(Callback.class);
+        // a write is in progress, all content waits for it
+        content.add(80, first);
+        content.queued(80, 2);
+        content.add(80, second);
+        content.queued(80, 2);
+
+        content.drained(1);
+        verify(second, never()).succeeded();
+        assertEquals(160, content.getBytes());
+
+        content.drained(2);
+        verify(second).succeeded();
+        assertEquals(0, content.getBytes());
+    }
+
+    @Test
+    public void cancelFailsHeldCallback() {
+        Callback callback = mock(Callback.class);
+        content.add(200, callback);
+        content.queued(200, 1);
+
+        content.cancel(new IllegalStateException("canceled"));
+
+        verify(callback, never()).succeeded();
+        verify(callback).failed(any(IllegalStateException.class));
+        assertEquals(0, content.getBytes());
+        content.drained(1);
+        verify(callback, never()).succeeded();
+    }
+}
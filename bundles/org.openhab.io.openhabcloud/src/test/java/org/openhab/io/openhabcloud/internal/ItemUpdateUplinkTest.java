@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+/**
+ * Tests the {@link ItemUpdateUplink}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ItemUpdateUplinkTest {
+    private static final int WINDOW = 1000;
+
+    private final CloudClient cloudClient = mock(CloudClient.class);
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    // scheduled flushes, which the tests run when the window ends
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        when(cloudClient.isConnected()).thenReturn(true);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        });
+    }
+
+    private void endWindow() {
+        assertFalse(scheduled.isEmpty(), "no window is open");
+        scheduled.remove(0).run();
+    }
+
+    @Test
+    public void firstUpdateIsSentImmediately() {
+        ItemUpdateUplink uplink = new ItemUpdateUplink(cloudClient, scheduler, WINDOW, 0);
+
+        uplink.sendItemUpdate("light", "ON");
+
+        verify(cloudClient).sendItemUpdate("light", "ON");
+        verify(scheduler).schedule(any(Runnable.class), eq((long) WINDOW), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void updatesWithinWindowAreCoalesced() {
+        ItemUpdateUplink uplink = new ItemUpdateUplink(cloudClient, scheduler, WINDOW, 0);
+        uplink.sendItemUpdate("light", "ON");
+
+        uplink.sendItemUpdate("light", "OFF");
+        uplink.sendItemUpdate("dimmer", "10");
+        uplink.sendItemUpdate("light", "ON");
+        verify(cloudClient, times(1)).sendItemUpdate(anyString(), anyString());
+
+        endWindow();
+        InOrder inOrder = inOrder(cloudClient);
+        inOrder.verify(cloudClient).sendItemUpdate("light", "ON");
+        inOrder.verify(cloudClient).sendItemUpdate("light", "ON");
+        inOrder.verify(cloudClient).sendItemUpdate("dimmer", "10");
+        verify(cloudClient, never()).sendItemUpdate("light", "OFF");
+        assertEquals(3, uplink.getSentCount());
+        assertEquals(1, uplink.getCoalescedCount());
+    }
+
+    @Test
+    public void updateAfterQuietWindowIsSentImmediately() {
+        ItemUpdateUplink uplink = new ItemUpdateUplink(cloudClient, scheduler, WINDOW, 0);
+        uplink.sendItemUpdate("light", "ON");
+        uplink.sendItemUpdate("light", "OFF");
+
+        // sends the coalesced update and keeps the window open
+        endWindow();
+        uplink.sendItemUpdate("light", "ON");
+        verify(cloudClient, times(2)).sendItemUpdate(anyString(), anyString());
+
+        // sends the update of the second window, the third window stays quiet
+        endWindow();
+        endWindow();
+        assertTrue(scheduled.isEmpty());
+
+        uplink.sendItemUpdate("light", "OFF");
+        verify(cloudClient, times(4)).sendItemUpdate(anyString(), anyString());
+    }
+
+    @Test
+    public void updatesOverBudgetAreSentLater() {
+        ItemUpdateUplink uplink = new ItemUpdateUplink(cloudClient, scheduler, 0, 2);
+
+        uplink.sendItemUpdate("a", "1");
+        uplink.sendItemUpdate("b", "1");
+        uplink.sendItemUpdate("c", "1");
+
+        verify(cloudClient, times(2)).sendItemUpdate(anyString(), anyString());
+        verify(cloudClient, never()).sendItemUpdate(eq("c"), anyString());
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    public void updatesAreDroppedWithoutConnection() {
+        ItemUpdateUplink uplink = new ItemUpdateUplink(cloudClient, scheduler, WINDOW, 0);
+        when(cloudClient.isConnected()).thenReturn(false);
+
+        uplink.sendItemUpdate("light", "ON");
+
+        verify(cloudClient, never()).sendItemUpdate(anyString(), anyString());
+        assertEquals(1, uplink.getDroppedCount());
+    }
+}
@@ -18,7 +18,7 @@ import java.time.ZonedDateTime;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -41,12 +41,14 @@ import org.slf4j.LoggerFactory;
 @NonNullByDefault
 public abstract class AbstractBufferedPersistenceService<T> implements PersistenceService {
 
-    private static final long BUFFER_OFFER_TIMEOUT_MILLIS = 500;
+    protected static final long BUFFER_OFFER_TIMEOUT_MILLIS = 500;
 
     private final Logger logger = LoggerFactory.getLogger(AbstractBufferedPersistenceService.class);
     protected @Nullable BlockingQueue<T> buffer;
 
     private boolean writeImmediately;
+    private final AtomicLong bufferFullCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
 
     protected void resetWithBufferSize(int bufferSize) {
         int capacity = Math.max(1, bufferSize);
@@ -60,6 +62,17 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
 
     protected abstract void flushBufferedData();
 
+    /**
+     * Writes the buffered data because the buffer is full and returns once it has been written, or at the latest after
+     * the given time. By default, the data is written by the calling thread.
+     *
+     * @param timeoutMillis maximum time to wait for the data to be written
+     * @throws InterruptedException if the calling thread was interrupted while waiting for the data to be written
+     */
+    protected void requestFlush(long timeoutMillis) throws InterruptedException {
+        flushBufferedData();
+    }
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -101,29 +114,70 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
                 logger.debug("Buffered item {} in {} ms. Total time for store(): {} [{}]", realName,
                         System.currentTimeMillis() - bufferStart, System.currentTimeMillis() - storeStart, uuid);
             } else {
+                bufferFullCount.incrementAndGet();
                 logger.debug(
                         "Buffer is full. Writing buffered data immediately and trying again. Consider increasing bufferSize");
-                // Buffer is full, commit it immediately
-                flushBufferedData();
-                boolean buffered2 = addToBuffer(persistenceItem);
-                if (buffered2) {
-                    logger.debug("Buffered item in {} ms (2nd try, flushed buffer in-between) [{}]",
+                if (addToFullBuffer(persistenceItem)) {
+                    logger.debug("Buffered item in {} ms (flushed buffer in-between) [{}]",
                             System.currentTimeMillis() - bufferStart, uuid);
-                } else {
-                    // The unlikely case happened -- buffer got full again immediately
-                    logger.warn("Buffering failed for the second time -- Too small bufferSize? Discarding data [{}]",
-                            uuid);
                 }
             }
         }
     }
 
-    protected boolean addToBuffer(T persistenceItem) {
+    /**
+     * Adds an item to the full buffer. The storing thread waits at most {@value #BUFFER_OFFER_TIMEOUT_MILLIS} ms for
+     * the buffered data to be written, so a slow or throttled database does not block the thread storing the item.
+     *
+     * @return whether the item was buffered
+     */
+    private boolean addToFullBuffer(T persistenceItem) {
         try {
-            return buffer != null && buffer.offer(persistenceItem, BUFFER_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            requestFlush(BUFFER_OFFER_TIMEOUT_MILLIS);
+            if (addToBuffer(persistenceItem)) {
+                return true;
+            }
+            discardedCount.incrementAndGet();
+            logger.warn(
+                    "Buffer is still full after waiting {} ms for the buffered data to be written, total discarded: {}. Discarding data: {}",
+                    BUFFER_OFFER_TIMEOUT_MILLIS, discardedCount.get(), persistenceItem);
         } catch (InterruptedException e) {
-            logger.warn("Interrupted when trying to buffer data! Dropping data");
-            return false;
+            Thread.currentThread().interrupt();
+            discardedCount.incrementAndGet();
+            logger.warn("Interrupted when trying to buffer data! Discarding data: {}", persistenceItem);
         }
+        return false;
+    }
+
+    protected boolean addToBuffer(T persistenceItem) {
+        BlockingQueue<T> localBuffer = buffer;
+        return localBuffer != null && localBuffer.offer(persistenceItem);
+    }
+
+    /**
+     * @return the percentage of the buffer which is occupied
+     */
+    protected int getBufferOccupancy() {
+        BlockingQueue<T> localBuffer = buffer;
+        if (localBuffer == null) {
+            return 0;
+        }
+        int size = localBuffer.size();
+        int capacity = size + localBuffer.remainingCapacity();
+        return capacity == 0 ? 0 : size * 100 / capacity;
+    }
+
+    /**
+     * @return how often an item could not be buffered at first because the buffer was full
+     */
+    protected long getBufferFullCount() {
+        return bufferFullCount.get();
+    }
+
+    /**
+     * @return how many items were discarded because the buffer was still full after waiting for it to be written
+     */
+    protected long getDiscardedCount() {
+        return discardedCount.get();
     }
 }
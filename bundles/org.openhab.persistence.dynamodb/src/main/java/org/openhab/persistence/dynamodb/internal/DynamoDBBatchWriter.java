@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Writes items with parallel <code>BatchWriteItem</code> requests of at most {@value #MAX_BATCH_SIZE} items.
+ *
+ * The write rate adapts to the consumed capacity reported by DynamoDB: writes are not limited until DynamoDB throttles
+ * a request, i.e. returns unprocessed items or rejects the request. The rate is then halved, and it is increased
+ * again by 10 % with every request which is written completely. Each request reserves its estimated capacity before
+ * it is sent, and the reservation is corrected with the capacity which was actually consumed, so the writer threads
+ * share one rate.
+ *
+ * Requests which fail with a transient error, e.g. a server or network error, are retried like throttled requests.
+ * Requests which DynamoDB rejects for other reasons are given up right away, without reducing the rate.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriter {
+
+    public static final int MAX_BATCH_SIZE = 25;
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final double MIN_RATE = 1;
+    private static final double RATE_INCREASE = 1.1;
+    private static final double RATE_DECREASE = 0.5;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBBatchWriter.class);
+
+    private final AmazonDynamoDB client;
+    private final ExecutorService executor;
+
+    // capacity units per second, 0 while writes are not limited
+    private double rate = 0;
+    private long nextWriteNanos = System.nanoTime();
+    // consumed capacity of the current and the previous window, to estimate the throughput when throttling starts
+    private long windowStartNanos = System.nanoTime();
+    private double windowUnits = 0;
+    private double previousWindowRate = 0;
+
+    // metrics
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+    private final DoubleAdder consumedUnits = new DoubleAdder();
+
+    /**
+     * @param client the DynamoDB client
+     * @param writerThreads number of requests which are sent in parallel
+     */
+    public DynamoDBBatchWriter(AmazonDynamoDB client, int writerThreads) {
+        this.client = client;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, writerThreads),
+                new NamedThreadFactory("dynamodbPersistenceService-writer"));
+    }
+
+    /**
+     * Writes items to a table and waits until all requests have been written or given up.
+     *
+     * @param tableName name of the table
+     * @param requests the items to write
+     * @return the items which could not be written, even after retries
+     * @throws ResourceNotFoundException if the table does not exist
+     * @throws InterruptedException if interrupted while waiting for the writes
+     */
+    public List<WriteRequest> write(String tableName, List<WriteRequest> requests) throws InterruptedException {
+        List<List<WriteRequest>> chunks = new ArrayList<>();
+        List<Future<List<WriteRequest>>> futures = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += MAX_BATCH_SIZE) {
+            List<WriteRequest> chunk = requests.subList(from, Math.min(requests.size(), from + MAX_BATCH_SIZE));
+            chunks.add(chunk);
+            futures.add(executor.submit(() -> writeChunk(tableName, chunk)));
+        }
+        List<WriteRequest> unwritten = new ArrayList<>();
+        ResourceNotFoundException resourceNotFound = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                unwritten.addAll(futures.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ResourceNotFoundException) {
+                    resourceNotFound = (ResourceNotFoundException) cause;
+                } else {
+                    logger.warn("Writing to table {} failed unexpectedly: {}", tableName,
+                            cause == null ? e.getMessage() : cause.getMessage());
+                    failedCount.addAndGet(chunks.get(i).size());
+                    unwritten.addAll(chunks.get(i));
+                }
+            }
+        }
+        if (resourceNotFound != null) {
+            throw resourceNotFound;
+        }
+        return unwritten;
+    }
+
+    private List<WriteRequest> writeChunk(String tableName, List<WriteRequest> chunk) throws InterruptedException {
+        List<WriteRequest> pending = chunk;
+        for (int attempt = 1;; attempt++) {
+            acquire(pending.size());
+            BatchWriteItemResult result;
+            try {
+                requestCount.incrementAndGet();
+                result = client.batchWriteItem(
+                        new BatchWriteItemRequest().withRequestItems(Collections.singletonMap(tableName, pending))
+                                .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+            } catch (ResourceNotFoundException e) {
+                release(pending.size(), 0);
+                throw e;
+            } catch (ProvisionedThroughputExceededException e) {
+                release(pending.size(), 0);
+                throttled();
+                if (attempt >= MAX_ATTEMPTS) {
+                    return gaveUp(tableName, pending);
+                }
+                continue;
+            } catch (AmazonClientException e) {
+                release(pending.size(), 0);
+                if (!isRetryable(e)) {
+                    logger.warn("Writing {} items to table {} failed: {}", pending.size(), tableName, e.getMessage());
+                    failedCount.addAndGet(pending.size());
+                    return pending;
+                }
+                logger.debug("Writing {} items to table {} failed: {}", pending.size(), tableName, e.getMessage());
+                throttled();
+                if (attempt >= MAX_ATTEMPTS) {
+                    return gaveUp(tableName, pending);
+                }
+                continue;
+            }
+            List<WriteRequest> unprocessed = result.getUnprocessedItems() == null ? null
+                    : result.getUnprocessedItems().get(tableName);
+            int written = pending.size() - (unprocessed == null ? 0 : unprocessed.size());
+            writtenCount.addAndGet(written);
+            release(pending.size(), getConsumedUnits(result, written));
+            if (unprocessed == null || unprocessed.isEmpty()) {
+                increaseRate();
+                return Collections.emptyList();
+            }
+            logger.debug("{} of {} items were not processed by table {}, attempt {}", unprocessed.size(),
+                    pending.size(), tableName, attempt);
+            throttled();
+            if (attempt >= MAX_ATTEMPTS) {
+                return gaveUp(tableName, unprocessed);
+            }
+            pending = unprocessed;
+        }
+    }
+
+    /**
+     * Returns whether a failed request may succeed when it is sent again. Requests which DynamoDB rejected as invalid
+     * would fail the same way.
+     */
+    private static boolean isRetryable(AmazonClientException e) {
+        if (e instanceof AmazonServiceException) {
+            return RetryUtils.isThrottlingException(e) || RetryUtils.isRetryableServiceException(e);
+        }
+        return e.isRetryable();
+    }
+
+    private List<WriteRequest> gaveUp(String tableName, List<WriteRequest> pending) {
+        logger.warn("Giving up writing {} items to table {} after {} attempts", pending.size(), tableName,
+                MAX_ATTEMPTS);
+        failedCount.addAndGet(pending.size());
+        return pending;
+    }
+
+    private static double getConsumedUnits(BatchWriteItemResult result, int written) {
+        List<ConsumedCapacity> capacities = result.getConsumedCapacity();
+        if (capacities == null || capacities.isEmpty()) {
+            // one write capacity unit per item of up to 1 KB
+            return written;
+        }
+        double units = 0;
+        for (ConsumedCapacity capacity : capacities) {
+            Double capacityUnits = capacity.getCapacityUnits();
+            units += capacityUnits == null ? 0 : capacityUnits;
+        }
+        return units;
+    }
+
+    /**
+     * Reserves the estimated capacity of a request and waits until it may be sent.
+     */
+    private void acquire(int estimatedUnits) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextWriteNanos);
+            if (rate > 0) {
+                nextWriteNanos = start + (long) (estimatedUnits * NANOS_PER_SECOND / rate);
+            }
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Corrects the reservation of a request with the capacity it actually consumed.
+     */
+    private synchronized void release(int estimatedUnits, double units) {
+        consumedUnits.add(units);
+        long now = System.nanoTime();
+        if (now - windowStartNanos > RATE_WINDOW_NANOS) {
+            previousWindowRate = windowUnits * NANOS_PER_SECOND / (now - windowStartNanos);
+            windowStartNanos = now;
+            windowUnits = 0;
+        }
+        windowUnits += units;
+        if (rate > 0) {
+            nextWriteNanos += (long) ((units - estimatedUnits) * NANOS_PER_SECOND / rate);
+        }
+    }
+
+    private synchronized void throttled() {
+        throttleCount.incrementAndGet();
+        long now = System.nanoTime();
+        if (rate == 0) {
+            // start from the throughput before throttling
+            double seconds = Math.max(1, (now - windowStartNanos) / (double) NANOS_PER_SECOND);
+            rate = Math.max(previousWindowRate, windowUnits / seconds);
+        }
+        rate = Math.max(MIN_RATE, rate * RATE_DECREASE);
+        // wait for one capacity unit before the next request
+        nextWriteNanos = Math.max(nextWriteNanos, now) + (long) (NANOS_PER_SECOND / rate);
+        logger.debug("DynamoDB throttled writes, reducing write rate to {} capacity units per second", rate);
+    }
+
+    private synchronized void increaseRate() {
+        if (rate > 0) {
+            rate = rate * RATE_INCREASE + MIN_RATE;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /***********
+     * METRICS *
+     ***********/
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    public double getConsumedCapacityUnits() {
+        return consumedUnits.sum();
+    }
+
+    /**
+     * @return the current write rate in capacity units per second, or 0 if writes are not limited
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "DynamoDBBatchWriter{requests=" + getRequestCount() + ", written=" + getWrittenCount() + ", failed="
+                + getFailedCount() + ", throttled=" + getThrottleCount() + ", consumedCapacityUnits="
+                + String.format("%.1f", getConsumedCapacityUnits()) + ", rate="
+                + (getRate() == 0 ? "unlimited" : String.format("%.1f/s", getRate())) + "}";
+    }
+}
@@ -39,6 +39,7 @@ public class DynamoDBConfig {
     public static final long DEFAULT_WRITE_CAPACITY_UNITS = 1;
     public static final long DEFAULT_BUFFER_COMMIT_INTERVAL_MILLIS = 1000;
     public static final int DEFAULT_BUFFER_SIZE = 1000;
+    public static final int DEFAULT_WRITER_THREADS = 2;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBConfig.class);
 
@@ -50,6 +51,8 @@ public class DynamoDBConfig {
     private long writeCapacityUnits = DEFAULT_WRITE_CAPACITY_UNITS;
     private long bufferCommitIntervalMillis = DEFAULT_BUFFER_COMMIT_INTERVAL_MILLIS;
     private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int writerThreads = DEFAULT_WRITER_THREADS;
+    private @Nullable String endpoint;
 
     /**
      *
@@ -141,8 +144,22 @@ public class DynamoDBConfig {
                 bufferSize = Integer.parseInt(bufferSizeParam);
             }
 
+            final int writerThreads;
+            String writerThreadsParam = (String) config.get("writerThreads");
+            if (writerThreadsParam == null || writerThreadsParam.isBlank()) {
+                LOGGER.debug("Writer threads: {}", DEFAULT_WRITER_THREADS);
+                writerThreads = DEFAULT_WRITER_THREADS;
+            } else {
+                writerThreads = Math.max(1, Integer.parseInt(writerThreadsParam));
+            }
+
+            String endpoint = (String) config.get("endpoint");
+            if (endpoint != null && endpoint.isBlank()) {
+                endpoint = null;
+            }
+
             return new DynamoDBConfig(region, credentials, table, createTable, readCapacityUnits, writeCapacityUnits,
-                    bufferCommitIntervalMillis, bufferSize);
+                    bufferCommitIntervalMillis, bufferSize, writerThreads, endpoint);
         } catch (Exception e) {
             LOGGER.error("Error with configuration", e);
             return null;
@@ -150,7 +167,8 @@ public class DynamoDBConfig {
     }
 
     public DynamoDBConfig(Regions region, AWSCredentials credentials, String table, boolean createTable,
-            long readCapacityUnits, long writeCapacityUnits, long bufferCommitIntervalMillis, int bufferSize) {
+            long readCapacityUnits, long writeCapacityUnits, long bufferCommitIntervalMillis, int bufferSize,
+            int writerThreads, @Nullable String endpoint) {
         this.region = region;
         this.credentials = credentials;
         this.tablePrefix = table;
@@ -159,6 +177,8 @@ public class DynamoDBConfig {
         this.writeCapacityUnits = writeCapacityUnits;
         this.bufferCommitIntervalMillis = bufferCommitIntervalMillis;
         this.bufferSize = bufferSize;
+        this.writerThreads = writerThreads;
+        this.endpoint = endpoint;
     }
 
     public AWSCredentials getCredentials() {
@@ -192,4 +212,15 @@ public class DynamoDBConfig {
     public int getBufferSize() {
         return bufferSize;
     }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    /**
+     * @return the service endpoint, e.g. of DynamoDB Local, or <code>null</code> to use the endpoint of the region
+     */
+    public @Nullable String getEndpoint() {
+        return endpoint;
+    }
 }
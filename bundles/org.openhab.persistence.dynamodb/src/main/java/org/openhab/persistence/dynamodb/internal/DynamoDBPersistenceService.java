@@ -15,18 +15,23 @@ package org.openhab.persistence.dynamodb.internal;
 import java.time.ZonedDateTime;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -55,15 +60,16 @@ import org.slf4j.LoggerFactory;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
-import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
@@ -92,80 +98,12 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
 
     protected static final String CONFIG_URI = "persistence:dynamodb";
 
-    private class ExponentialBackoffRetry implements Runnable {
-        private int retry;
-        private Map<String, List<WriteRequest>> unprocessedItems;
-        private @Nullable Exception lastException;
-
-        public ExponentialBackoffRetry(Map<String, List<WriteRequest>> unprocessedItems) {
-            this.unprocessedItems = unprocessedItems;
-        }
-
-        @Override
-        public void run() {
-            logger.debug("Error storing object to dynamo, unprocessed items: {}. Retrying with exponential back-off",
-                    unprocessedItems);
-            lastException = null;
-            while (!unprocessedItems.isEmpty() && retry < WAIT_MILLIS_IN_RETRIES.length) {
-                if (!sleep()) {
-                    // Interrupted
-                    return;
-                }
-                retry++;
-                try {
-                    BatchWriteItemOutcome outcome = DynamoDBPersistenceService.this.db.getDynamoDB()
-                            .batchWriteItemUnprocessed(unprocessedItems);
-                    unprocessedItems = outcome.getUnprocessedItems();
-                    lastException = null;
-                } catch (AmazonServiceException e) {
-                    if (e instanceof ResourceNotFoundException) {
-                        logger.debug(
-                                "DynamoDB query raised unexpected exception: {}. This might happen if table was recently created",
-                                e.getMessage());
-                    } else {
-                        logger.debug("DynamoDB query raised unexpected exception: {}.", e.getMessage());
-                    }
-                    lastException = e;
-                    continue;
-                }
-            }
-            if (unprocessedItems.isEmpty()) {
-                logger.debug("After {} retries successfully wrote all unprocessed items", retry);
-            } else {
-                logger.warn(
-                        "Even after retries failed to write some items. Last exception: {} {}, unprocessed items: {}",
-                        lastException == null ? "null" : lastException.getClass().getName(),
-                        lastException == null ? "null" : lastException.getMessage(), unprocessedItems);
-            }
-        }
-
-        private boolean sleep() {
-            try {
-                long sleepTime;
-                if (retry == 1 && lastException != null && lastException instanceof ResourceNotFoundException) {
-                    sleepTime = WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS;
-                } else {
-                    sleepTime = WAIT_MILLIS_IN_RETRIES[retry];
-                }
-                Thread.sleep(sleepTime);
-                return true;
-            } catch (InterruptedException e) {
-                logger.debug("Interrupted while writing data!");
-                return false;
-            }
-        }
-
-        public Map<String, List<WriteRequest>> getUnprocessedItems() {
-            return unprocessedItems;
-        }
-    }
-
     private static final int WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS = 5000;
-    private static final int[] WAIT_MILLIS_IN_RETRIES = new int[] { 100, 100, 200, 300, 500 };
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
 
     private final ItemRegistry itemRegistry;
     private @Nullable DynamoDBClient db;
+    private @Nullable DynamoDBBatchWriter batchWriter;
     private final Logger logger = LoggerFactory.getLogger(DynamoDBPersistenceService.class);
     private boolean isProperlyConfigured;
     private @NonNullByDefault({}) DynamoDBConfig dbConfig;
@@ -214,27 +152,27 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         resetWithBufferSize(dbConfig.getBufferSize());
         long commitIntervalMillis = dbConfig.getBufferCommitIntervalMillis();
         if (commitIntervalMillis > 0) {
-            writeBufferedDataFuture = scheduler.scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        DynamoDBPersistenceService.this.flushBufferedData();
-                    } catch (RuntimeException e) {
-                        // We want to catch all unexpected exceptions since all unhandled exceptions make
-                        // ScheduledExecutorService halt the regular running of the task.
-                        // It is better to print out the exception, and try again
-                        // (on next cycle)
-                        logger.warn(
-                                "Execution of scheduled flushing of buffered data failed unexpectedly. Ignoring exception, trying again according to configured commit interval of {} ms.",
-                                commitIntervalMillis, e);
-                    }
-                }
-            }, 0, commitIntervalMillis, TimeUnit.MILLISECONDS);
+            writeBufferedDataFuture = scheduler.scheduleWithFixedDelay(this::flushBufferedDataSafely, 0,
+                    commitIntervalMillis, TimeUnit.MILLISECONDS);
         }
         isProperlyConfigured = true;
         logger.debug("dynamodb persistence service activated");
     }
 
+    private void flushBufferedDataSafely() {
+        try {
+            flushBufferedData();
+        } catch (RuntimeException e) {
+            // We want to catch all unexpected exceptions since all unhandled exceptions make
+            // ScheduledExecutorService halt the regular running of the task.
+            // It is better to print out the exception, and try again
+            // (on next cycle)
+            logger.warn(
+                    "Execution of scheduled flushing of buffered data failed unexpectedly. Ignoring exception, trying again according to configured commit interval.",
+                    e);
+        }
+    }
+
     @Deactivate
     public void deactivate() {
         logger.debug("dynamodb persistence service deactivated");
@@ -255,7 +193,9 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     private boolean ensureClient() {
         if (db == null) {
             try {
-                db = new DynamoDBClient(dbConfig);
+                DynamoDBClient client = new DynamoDBClient(dbConfig);
+                batchWriter = new DynamoDBBatchWriter(client.getDynamoClient(), dbConfig.getWriterThreads());
+                db = client;
             } catch (Exception e) {
                 logger.error("Error constructing dynamodb client", e);
                 return false;
@@ -349,6 +289,12 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         if (db == null) {
             return;
         }
+        DynamoDBBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.shutdown();
+            logger.debug("Batch writer stopped: {}", writer);
+            batchWriter = null;
+        }
         db.shutdown();
         db = null;
         dbConfig = null;
@@ -356,11 +302,18 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         isProperlyConfigured = false;
     }
 
+    private DynamoDBMapperConfig getDBMapperConfig(String tableName) {
+        return new DynamoDBMapperConfig.Builder()
+                .withTableNameOverride(new DynamoDBMapperConfig.TableNameOverride(tableName))
+                .withPaginationLoadingStrategy(PaginationLoadingStrategy.LAZY_LOADING).build();
+    }
+
     private DynamoDBMapper getDBMapper(String tableName) {
+        return getDBMapper(getDBMapperConfig(tableName));
+    }
+
+    private DynamoDBMapper getDBMapper(DynamoDBMapperConfig mapperConfig) {
         try {
-            DynamoDBMapperConfig mapperConfig = new DynamoDBMapperConfig.Builder()
-                    .withTableNameOverride(new DynamoDBMapperConfig.TableNameOverride(tableName))
-                    .withPaginationLoadingStrategy(PaginationLoadingStrategy.LAZY_LOADING).build();
             return new DynamoDBMapper(db.getDynamoClient(), mapperConfig);
         } catch (AmazonClientException e) {
             logger.error("Error getting db mapper: {}", e.getMessage());
@@ -388,27 +341,52 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         return Collections.emptySet();
     }
 
+    /**
+     * Writes the buffered data in the scheduler thread, which also runs the periodic flushes, and waits until it has
+     * been written or the timeout has passed. A flush which takes longer, e.g. because the requests are throttled,
+     * continues in the background.
+     */
     @Override
-    protected void flushBufferedData() {
-        if (buffer != null && buffer.isEmpty()) {
+    protected void requestFlush(long timeoutMillis) throws InterruptedException {
+        try {
+            scheduler.submit(this::flushBufferedDataSafely).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            logger.warn("Writing buffered data failed unexpectedly", e.getCause());
+        } catch (TimeoutException e) {
+            logger.debug("Buffered data has not been written within {} ms, continuing in the background",
+                    timeoutMillis);
+        }
+    }
+
+    @Override
+    protected synchronized void flushBufferedData() {
+        BlockingQueue<DynamoDBItem<?>> localBuffer = buffer;
+        DynamoDBBatchWriter writer = batchWriter;
+        if (localBuffer == null || localBuffer.isEmpty() || writer == null) {
             return;
         }
-        logger.debug("Writing buffered data. Buffer size: {}", buffer.size());
+        long start = System.currentTimeMillis();
+        logger.debug("Writing buffered data. Buffer size: {} ({} % occupied)", localBuffer.size(),
+                getBufferOccupancy());
 
+        int count = 0;
         for (;;) {
             Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer();
-            // Write batch of data, one table at a time
+            // Write batch of data, one table at a time, each table with parallel requests
             for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
                 String tableName = entry.getKey();
                 Deque<DynamoDBItem<?>> batch = entry.getValue();
                 if (!batch.isEmpty()) {
-                    flushBatch(getDBMapper(tableName), batch);
+                    flushBatch(writer, tableName, batch);
+                    count += batch.size();
                 }
             }
-            if (buffer != null && buffer.isEmpty()) {
+            if (localBuffer.isEmpty()) {
                 break;
             }
         }
+        logger.debug("Wrote {} buffered items in {} ms, buffer full events: {}, discarded items: {}, {}", count,
+                System.currentTimeMillis() - start, getBufferFullCount(), getDiscardedCount(), writer);
     }
 
     private Map<String, Deque<DynamoDBItem<?>>> readBuffer() {
@@ -434,55 +412,78 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     /**
      * Flush batch of data to DynamoDB
      *
-     * @param mapper mapper associated with the batch
+     * @param writer writer sending the batch in parallel requests
+     * @param tableName table of the batch
      * @param batch batch of data to write to DynamoDB
      */
-    private void flushBatch(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch) {
+    private void flushBatch(DynamoDBBatchWriter writer, String tableName, Deque<DynamoDBItem<?>> batch) {
         long currentTimeMillis = System.currentTimeMillis();
-        List<FailedBatch> failed = mapper.batchSave(batch);
-        for (FailedBatch failedBatch : failed) {
-            if (failedBatch.getException() instanceof ResourceNotFoundException) {
-                // Table did not exist. Try again after creating table
-                retryFlushAfterCreatingTable(mapper, batch, failedBatch);
-            } else {
-                logger.debug("Batch failed with {}. Retrying next with exponential back-off",
-                        failedBatch.getException().getMessage());
-                new ExponentialBackoffRetry(failedBatch.getUnprocessedItems()).run();
-            }
+        DynamoDBMapperConfig mapperConfig = getDBMapperConfig(tableName);
+        DynamoDBMapper mapper = getDBMapper(mapperConfig);
+        List<WriteRequest> requests = toWriteRequests(mapper, mapperConfig, batch);
+        List<WriteRequest> unwritten;
+        try {
+            unwritten = writeCreatingTable(writer, mapper, tableName, batch, requests);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.debug("Interrupted while writing data!");
+            return;
         }
-        if (failed.isEmpty()) {
+        if (unwritten == null) {
+            logger.warn("Table {} could not be created. Not storing batch: {}", tableName, batch);
+        } else if (unwritten.isEmpty()) {
             logger.debug("flushBatch ended with {} items in {} ms: {}", batch.size(),
                     System.currentTimeMillis() - currentTimeMillis, batch);
         } else {
-            logger.warn(
-                    "flushBatch ended with {} items in {} ms: {}. There were some failed batches that were retried -- check logs for ERRORs to see if writes were successful",
-                    batch.size(), System.currentTimeMillis() - currentTimeMillis, batch);
+            logger.warn("flushBatch ended with {} items in {} ms, {} items could not be written: {}", batch.size(),
+                    System.currentTimeMillis() - currentTimeMillis, unwritten.size(), unwritten);
         }
     }
 
     /**
-     * Retry flushing data after creating table associated with mapper
+     * Writes the requests and creates the table if it does not exist yet.
      *
-     * @param mapper mapper associated with the batch
-     * @param batch original batch of data. Used for logging and to determine table name
-     * @param failedBatch failed batch that should be retried
+     * @return the requests which could not be written, or null if the table could not be created
      */
-    private void retryFlushAfterCreatingTable(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch,
-            FailedBatch failedBatch) {
-        logger.debug("Table was not found. Trying to create table and try saving again");
-        if (createTable(mapper, batch.peek().getClass())) {
-            logger.debug("Table creation successful, trying to save again");
-            if (!failedBatch.getUnprocessedItems().isEmpty()) {
-                ExponentialBackoffRetry retry = new ExponentialBackoffRetry(failedBatch.getUnprocessedItems());
-                retry.run();
-                if (retry.getUnprocessedItems().isEmpty()) {
-                    logger.debug("Successfully saved items after table creation");
-                }
-            }
-        } else {
-            logger.warn("Table creation failed. Not storing some parts of batch: {}. Unprocessed items: {}", batch,
-                    failedBatch.getUnprocessedItems());
+    private @Nullable List<WriteRequest> writeCreatingTable(DynamoDBBatchWriter writer, DynamoDBMapper mapper,
+            String tableName, Deque<DynamoDBItem<?>> batch, List<WriteRequest> requests) throws InterruptedException {
+        try {
+            return writer.write(tableName, requests);
+        } catch (ResourceNotFoundException e) {
+            // Table did not exist. Try again after creating table
+            logger.debug("Table was not found. Trying to create table and try saving again");
+        }
+        if (!createTable(mapper, batch.peek().getClass())) {
+            return null;
+        }
+        logger.debug("Table creation successful, trying to save again");
+        try {
+            return writer.write(tableName, requests);
+        } catch (ResourceNotFoundException e) {
+            logger.debug("Table {} not found although it was just created, trying again in {} ms", tableName,
+                    WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS);
+        }
+        Thread.sleep(WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS);
+        try {
+            return writer.write(tableName, requests);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts items to put requests. Items with the same key, i.e. the same item name and time, would be rejected by
+     * DynamoDB within one request, so only the last of them is kept.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<WriteRequest> toWriteRequests(DynamoDBMapper mapper, DynamoDBMapperConfig mapperConfig,
+            Collection<DynamoDBItem<?>> items) {
+        Map<Map<String, AttributeValue>, WriteRequest> requests = new LinkedHashMap<>();
+        for (DynamoDBItem<?> item : items) {
+            DynamoDBMapperTableModel model = mapper.getTableModel(item.getClass(), mapperConfig);
+            requests.put(model.convertKey(item), new WriteRequest(new PutRequest(model.convert(item))));
         }
+        return new ArrayList<>(requests.values());
     }
 
     @Override
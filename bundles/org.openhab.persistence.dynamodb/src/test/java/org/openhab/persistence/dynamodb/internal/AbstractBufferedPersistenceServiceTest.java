@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.strategy.PersistenceStrategy;
+import org.openhab.core.types.State;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Tests that storing waits only a bounded time for a full buffer to be written.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class AbstractBufferedPersistenceServiceTest {
+
+    private static final String TABLE = "openhab-bigdecimal";
+
+    private final AmazonDynamoDB client = mock(AmazonDynamoDB.class);
+    private final DynamoDBBatchWriter writer = new DynamoDBBatchWriter(client, 1);
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor();
+    // values of the items DynamoDB accepted
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private final List<WriteRequest> unwritten = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Writes the buffer with a {@link DynamoDBBatchWriter} in a separate thread, like the DynamoDB service.
+     */
+    private class TestService extends AbstractBufferedPersistenceService<WriteRequest> {
+
+        @Override
+        protected WriteRequest persistenceItemFromState(String name, State state, ZonedDateTime time) {
+            return new WriteRequest(new PutRequest().addItemEntry("itemname", new AttributeValue(name))
+                    .addItemEntry("itemstate", new AttributeValue().withN(state.toString())));
+        }
+
+        @Override
+        protected boolean isReadyToStore() {
+            return true;
+        }
+
+        @Override
+        protected void requestFlush(long timeoutMillis) throws InterruptedException {
+            try {
+                flushExecutor.submit(this::flushBufferedData).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                fail(e);
+            } catch (TimeoutException e) {
+                // the flush continues in the background
+            }
+        }
+
+        @Override
+        protected synchronized void flushBufferedData() {
+            BlockingQueue<WriteRequest> localBuffer = buffer;
+            List<WriteRequest> requests = new ArrayList<>();
+            localBuffer.drainTo(requests);
+            if (!requests.isEmpty()) {
+                try {
+                    unwritten.addAll(writer.write(TABLE, requests));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+
+        @Override
+        public String getLabel(@Nullable Locale locale) {
+            return "Test";
+        }
+
+        @Override
+        public List<PersistenceStrategy> getDefaultStrategies() {
+            return List.of();
+        }
+    }
+
+    private final TestService service = new TestService();
+
+    @AfterEach
+    public void after() {
+        writer.shutdown();
+        flushExecutor.shutdownNow();
+    }
+
+    private BatchWriteItemResult accept(BatchWriteItemRequest request) {
+        for (WriteRequest writeRequest : request.getRequestItems().get(TABLE)) {
+            written.add(writeRequest.getPutRequest().getItem().get("itemstate").getN());
+        }
+        return new BatchWriteItemResult().withUnprocessedItems(Collections.emptyMap());
+    }
+
+    private void store(int value) {
+        NumberItem item = new NumberItem("item");
+        item.setState(new DecimalType(value));
+        service.store(item);
+    }
+
+    @Test
+    public void testFullBufferDoesNotBlockWhileBatchIsThrottled() throws Exception {
+        CountDownLatch throttling = new CountDownLatch(1);
+        CountDownLatch throttled = new CountDownLatch(1);
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            throttling.countDown();
+            throttled.await();
+            throw new ProvisionedThroughputExceededException("throttled");
+        }).thenAnswer(invocation -> accept(invocation.getArgument(0)));
+        service.resetWithBufferSize(2);
+
+        store(1);
+        store(2);
+        // the flush takes the buffered items and is throttled, so the third item fits into the buffer again
+        CompletableFuture.runAsync(() -> store(3)).get(5, TimeUnit.SECONDS);
+        assertTrue(throttling.await(5, TimeUnit.SECONDS));
+        store(4);
+
+        // the buffer stays full while the batch is throttled, storing gives up after the offer timeout
+        long start = System.currentTimeMillis();
+        CompletableFuture.runAsync(() -> store(5)).get(5, TimeUnit.SECONDS);
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, service.getDiscardedCount());
+
+        throttled.countDown();
+        flushExecutor.submit(service::flushBufferedData).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1", "2", "3", "4"), written);
+        assertTrue(unwritten.isEmpty());
+        assertEquals(2, service.getBufferFullCount());
+        assertEquals(1, writer.getThrottleCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+}
@@ -181,6 +181,10 @@ public class BaseIntegrationTest {
         config.put("accessKey", value != null ? value : "");
         value = System.getProperty("DYNAMODBTEST_SECRET");
         config.put("secretKey", value != null ? value : "");
+        value = System.getProperty("DYNAMODBTEST_ENDPOINT");
+        if (value != null) {
+            config.put("endpoint", value);
+        }
         config.put("tablePrefix", "dynamodb-integration-tests-");
 
         // Disable buffering
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class DynamoDBBatchWriterTest {
+
+    private static final String TABLE = "openhab-bigdecimal";
+
+    private final AmazonDynamoDB client = mock(AmazonDynamoDB.class);
+    private final DynamoDBBatchWriter writer = new DynamoDBBatchWriter(client, 2);
+
+    @AfterEach
+    public void after() {
+        writer.shutdown();
+    }
+
+    private static List<WriteRequest> createRequests(int count) {
+        List<WriteRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new WriteRequest(
+                    new PutRequest(Collections.singletonMap("itemname", new AttributeValue("item" + i)))));
+        }
+        return requests;
+    }
+
+    private static BatchWriteItemResult result(BatchWriteItemRequest request, int unprocessed) {
+        List<WriteRequest> items = request.getRequestItems().get(TABLE);
+        return new BatchWriteItemResult()
+                .withUnprocessedItems(unprocessed == 0 ? Collections.emptyMap()
+                        : Collections.singletonMap(TABLE, items.subList(items.size() - unprocessed, items.size())))
+                .withConsumedCapacity(new ConsumedCapacity().withTableName(TABLE)
+                        .withCapacityUnits((double) items.size() - unprocessed));
+    }
+
+    @Test
+    public void testRequestsAreSplitToBatches() throws InterruptedException {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenAnswer(invocation -> result(invocation.getArgument(0), 0));
+
+        assertTrue(writer.write(TABLE, createRequests(60)).isEmpty());
+
+        ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(client, times(3)).batchWriteItem(captor.capture());
+        List<Integer> sizes = new ArrayList<>();
+        for (BatchWriteItemRequest request : captor.getAllValues()) {
+            sizes.add(request.getRequestItems().get(TABLE).size());
+        }
+        Collections.sort(sizes);
+        assertEquals(List.of(10, 25, 25), sizes);
+        assertEquals(60, writer.getWrittenCount());
+        assertEquals(60, writer.getConsumedCapacityUnits(), 0.001);
+        assertEquals(0, writer.getThrottleCount());
+        assertEquals(0, writer.getRate(), 0.001);
+    }
+
+    @Test
+    public void testUnprocessedItemsAreRetriedWithReducedRate() throws InterruptedException {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenAnswer(invocation -> result(invocation.getArgument(0), 5))
+                .thenAnswer(invocation -> result(invocation.getArgument(0), 0));
+
+        assertTrue(writer.write(TABLE, createRequests(20)).isEmpty());
+
+        ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(client, times(2)).batchWriteItem(captor.capture());
+        assertEquals(5, captor.getAllValues().get(1).getRequestItems().get(TABLE).size());
+        assertEquals(20, writer.getWrittenCount());
+        assertEquals(1, writer.getThrottleCount());
+        assertTrue(writer.getRate() > 0);
+    }
+
+    @Test
+    public void testThrottledRequestIsRetried() throws InterruptedException {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenThrow(new ProvisionedThroughputExceededException("throttled"))
+                .thenAnswer(invocation -> result(invocation.getArgument(0), 0));
+
+        assertTrue(writer.write(TABLE, createRequests(3)).isEmpty());
+
+        verify(client, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(1, writer.getThrottleCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+
+    @Test
+    public void testMissingTableIsReported() {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class))).thenThrow(new ResourceNotFoundException("none"));
+
+        assertThrows(ResourceNotFoundException.class, () -> writer.write(TABLE, createRequests(30)));
+    }
+
+    private static AmazonServiceException serviceException(String errorCode, int statusCode) {
+        AmazonServiceException e = new AmazonServiceException(errorCode);
+        e.setErrorCode(errorCode);
+        e.setStatusCode(statusCode);
+        return e;
+    }
+
+    @Test
+    public void testTransientErrorIsRetried() throws InterruptedException {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenThrow(new SdkClientException("connection reset"))
+                .thenThrow(serviceException("InternalServerError", 500))
+                .thenAnswer(invocation -> result(invocation.getArgument(0), 0));
+
+        assertTrue(writer.write(TABLE, createRequests(3)).isEmpty());
+
+        verify(client, times(3)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+
+    @Test
+    public void testRejectedRequestFailsWithoutReducingRate() throws InterruptedException {
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenThrow(serviceException("ValidationException", 400));
+
+        assertEquals(3, writer.write(TABLE, createRequests(3)).size());
+
+        verify(client, times(1)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertEquals(3, writer.getFailedCount());
+        assertEquals(0, writer.getThrottleCount());
+        assertEquals(0, writer.getRate(), 0.001);
+    }
+}
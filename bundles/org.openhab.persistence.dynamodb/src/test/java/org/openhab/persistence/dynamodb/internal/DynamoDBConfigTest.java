@@ -78,6 +78,17 @@ public class DynamoDBConfigTest {
         assertEquals(1, fromConfig.getWriteCapacityUnits());
         assertEquals(1000L, fromConfig.getBufferCommitIntervalMillis());
         assertEquals(1000, fromConfig.getBufferSize());
+        assertEquals(2, fromConfig.getWriterThreads());
+        assertNull(fromConfig.getEndpoint());
+    }
+
+    @Test
+    public void testRegionWithAccessKeysWithWriterThreadsAndEndpoint() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1",
+                "secretKey", "secret1", "writerThreads", "4", "endpoint", "http://localhost:8000"));
+        assertEquals(Regions.EU_WEST_1, fromConfig.getRegion());
+        assertEquals(4, fromConfig.getWriterThreads());
+        assertEquals("http://localhost:8000", fromConfig.getEndpoint());
     }
 
     @Test
@@ -12,21 +12,33 @@
  */
 package org.openhab.persistence.influxdb;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
+import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -35,12 +47,16 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
+import org.openhab.persistence.influxdb.internal.InfluxDBQueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteQueue;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
+import org.openhab.persistence.influxdb.internal.InfluxPointSpool;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.ItemToStorePointCreator;
 import org.openhab.persistence.influxdb.internal.RepositoryFactory;
@@ -81,6 +97,14 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     protected static final String CONFIG_URI = "persistence:influxdb";
 
+    // pages up to this size, e.g. the single value asked for by historicState, are never aggregated
+    static final int AGGREGATION_MIN_PAGE_SIZE = 10;
+    private static final int QUERY_BUFFER_SIZE = 1000;
+    private static final String QUERY_THREAD_POOL_NAME = "persistence.influxdb.query";
+
+    private static final Path SPOOL_FILE = Paths.get(OpenHAB.getUserDataFolder(), "persistence", "influxdb",
+            "spool.txt");
+
     // External dependencies
     private final ItemRegistry itemRegistry;
     private final MetadataRegistry metadataRegistry;
@@ -91,6 +115,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private volatile @Nullable InfluxDBWriteQueue writeQueue;
+    // abandoned query results are cancelled by their timeout, so the shared pool is not blocked for long
+    private final ExecutorService queryExecutor = ThreadPoolManager.getPool(QUERY_THREAD_POOL_NAME);
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -110,6 +137,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            if (configuration.getBatchSize() > 0) {
+                writeQueue = createWriteQueue();
+            }
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -122,12 +152,26 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         return RepositoryFactory.createRepository(configuration);
     }
 
+    private InfluxDBWriteQueue createWriteQueue() {
+        InfluxPointSpool spool = configuration.getSpoolSize() > 0
+                ? new InfluxPointSpool(SPOOL_FILE, configuration.getSpoolSize())
+                : null;
+        return new InfluxDBWriteQueue(influxDBRepository, configuration.getBatchSize(),
+                configuration.getFlushInterval(), configuration.getQueueSize(), spool);
+    }
+
     /**
      * Disconnect from database when service is deactivated
      */
     @Deactivate
     public void deactivate() {
         logger.debug("InfluxDB persistence service deactivated");
+        InfluxDBWriteQueue currentWriteQueue = writeQueue;
+        if (currentWriteQueue != null) {
+            // stores racing the shutdown find the queue stopped and write directly
+            writeQueue = null;
+            currentWriteQueue.shutdown();
+        }
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
             influxDBRepository = null;
@@ -199,11 +243,22 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     @Override
     public void store(Item item, @Nullable String alias) {
-        if (influxDBRepository != null && influxDBRepository.isConnected()) {
+        InfluxDBWriteQueue currentWriteQueue = writeQueue;
+        if (currentWriteQueue != null) {
+            // the write queue keeps points while InfluxDB is unavailable
+            InfluxPoint point = itemToStorePointCreator.convert(item, alias);
+            if (point == null) {
+                logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
+            } else if (currentWriteQueue.offer(point)) {
+                logger.trace("Queued item {} as InfluxDB point {}", item, point);
+            } else {
+                // the queue has been stopped by deactivate() meanwhile
+                writeDirectly(item, point);
+            }
+        } else if (influxDBRepository != null && influxDBRepository.isConnected()) {
             InfluxPoint point = itemToStorePointCreator.convert(item, alias);
             if (point != null) {
-                logger.trace("Storing item {} in InfluxDB point {}", item, point);
-                influxDBRepository.write(point);
+                writeDirectly(item, point);
             } else {
                 logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
             }
@@ -212,6 +267,16 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private void writeDirectly(Item item, InfluxPoint point) {
+        InfluxDBRepository currentRepository = influxDBRepository;
+        if (currentRepository != null && currentRepository.isConnected()) {
+            logger.trace("Storing item {} in InfluxDB point {}", item, point);
+            currentRepository.write(point);
+        } else {
+            logger.debug("store ignored, InfluxDB is not connected");
+        }
+    }
+
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         logger.debug("Got a query for historic points!");
@@ -222,17 +287,63 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
                     filter.getItemName(), filter.getOrdering().toString(), filter.getState(), filter.getOperator(),
                     filter.getBeginDate(), filter.getEndDate(), filter.getPageSize(), filter.getPageNumber());
 
+            long aggregationWindow = getAggregationWindow(filter);
+            if (aggregationWindow > 0 && filter.getPageNumber() != 0) {
+                // the first page already holds the whole aggregated time range
+                logger.debug("Query of page {} ignored, the first page holds all aggregated points",
+                        filter.getPageNumber());
+                return Collections.emptyList();
+            }
             String query = RepositoryFactory.createQueryCreator(configuration).createQuery(filter,
-                    configuration.getRetentionPolicy());
+                    configuration.getRetentionPolicy(), configuration.getAggregation(), aggregationWindow);
             logger.trace("Query {}", query);
-            List<InfluxRow> results = influxDBRepository.query(query);
-            return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
+            if (filter.getPageSize() == Integer.MAX_VALUE) {
+                // unpaged queries, e.g. of persistence extensions, are read while they are iterated
+                return new InfluxDBQueryResult(influxDBRepository, query, this::mapRow2HistoricItem, queryExecutor,
+                        QUERY_BUFFER_SIZE);
+            }
+            List<HistoricItem> items = new ArrayList<>();
+            influxDBRepository.query(query, row -> items.add(mapRow2HistoricItem(row)));
+            logger.debug("Query returned {} points (aggregation window {} s)", items.size(), aggregationWindow);
+            return items;
         } else {
             logger.debug("query ignored, InfluxDB is not yet connected");
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Returns the length of the windows in which values are aggregated server side, so that the first page holds the
+     * whole time range and later pages are empty. Only paged queries of a time range of a numeric item with a page
+     * size above {@value #AGGREGATION_MIN_PAGE_SIZE} are aggregated, all other queries return the raw values.
+     *
+     * @return window length in seconds or 0 if values are not aggregated
+     */
+    private long getAggregationWindow(FilterCriteria filter) {
+        String itemName = filter.getItemName();
+        ZonedDateTime beginDate = filter.getBeginDate();
+        int pageSize = filter.getPageSize();
+        if (configuration.getAggregation() == InfluxDBAggregation.NONE || itemName == null || beginDate == null
+                || filter.getState() != null || pageSize == Integer.MAX_VALUE || pageSize <= AGGREGATION_MIN_PAGE_SIZE
+                || !isNumericItem(itemName)) {
+            return 0;
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        Instant end = endDate != null ? endDate.toInstant() : Instant.now();
+        long rangeSeconds = Duration.between(beginDate.toInstant(), end).getSeconds();
+        // windows are aligned to the epoch, so a range not starting at a window start touches one window more than
+        // it is divided into. Rounded up, so the range never touches more windows than the page size.
+        return Math.max(1, (rangeSeconds + pageSize - 2) / (pageSize - 1));
+    }
+
+    private boolean isNumericItem(String itemName) {
+        Item item = itemRegistry.get(itemName);
+        if (item instanceof GroupItem) {
+            item = ((GroupItem) item).getBaseItem();
+        }
+        return item instanceof NumberItem || item instanceof DimmerItem || item instanceof RollershutterItem;
+    }
+
     private HistoricItem mapRow2HistoricItem(InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.getItemName(), state,
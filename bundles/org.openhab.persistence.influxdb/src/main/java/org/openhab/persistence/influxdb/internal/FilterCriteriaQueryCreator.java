@@ -29,7 +29,22 @@ public interface FilterCriteriaQueryCreator {
      * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
      * @return Created query as an String
      */
-    String createQuery(FilterCriteria criteria, String retentionPolicy);
+    default String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        return createQuery(criteria, retentionPolicy, InfluxDBAggregation.NONE, 0);
+    }
+
+    /**
+     * Create query from {@link FilterCriteria} which aggregates the values server side, returning one point per window
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param aggregation Function used to aggregate the values of a window, {@link InfluxDBAggregation#NONE} to return
+     *            the raw values
+     * @param windowSeconds Length of the aggregation windows in seconds, values aren't aggregated if not positive
+     * @return Created query as an String
+     */
+    String createQuery(FilterCriteria criteria, String retentionPolicy, InfluxDBAggregation aggregation,
+            long windowSeconds);
 
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         switch (operator) {
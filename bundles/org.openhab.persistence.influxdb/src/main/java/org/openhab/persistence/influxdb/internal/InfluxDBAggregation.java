@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.Locale;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Function used to aggregate values server side if a query covers more points than requested
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum InfluxDBAggregation {
+    NONE,
+    MEAN,
+    MIN,
+    MAX,
+    LAST;
+
+    /**
+     * @return name of the function in InfluxQL and Flux
+     */
+    public String getFunctionName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -13,6 +13,7 @@
 package org.openhab.persistence.influxdb.internal;
 
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -39,6 +40,11 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+    public static final String FLUSH_INTERVAL_PARAM = "flushInterval";
+    public static final String QUEUE_SIZE_PARAM = "queueSize";
+    public static final String SPOOL_SIZE_PARAM = "spoolSize";
+    public static final String AGGREGATION_PARAM = "aggregation";
     public static InfluxDBConfiguration NO_CONFIGURATION = new InfluxDBConfiguration(Collections.emptyMap());
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
@@ -54,6 +60,13 @@ public class InfluxDBConfiguration {
     private final boolean addTypeTag;
     private final boolean addLabelTag;
 
+    private final int batchSize;
+    private final int flushInterval;
+    private final int queueSize;
+    private final int spoolSize;
+
+    private final InfluxDBAggregation aggregation;
+
     public InfluxDBConfiguration(Map<String, Object> config) {
         url = (String) config.getOrDefault(URL_PARAM, "http://127.0.0.1:8086");
         user = (String) config.getOrDefault(USER_PARAM, "openhab");
@@ -67,6 +80,27 @@ public class InfluxDBConfiguration {
         addCategoryTag = getConfigBooleanValue(config, ADD_CATEGORY_TAG_PARAM, false);
         addLabelTag = getConfigBooleanValue(config, ADD_LABEL_TAG_PARAM, false);
         addTypeTag = getConfigBooleanValue(config, ADD_TYPE_TAG_PARAM, false);
+
+        batchSize = getConfigIntValue(config, BATCH_SIZE_PARAM, 0);
+        flushInterval = Math.max(100, getConfigIntValue(config, FLUSH_INTERVAL_PARAM, 1000));
+        queueSize = Math.max(1, getConfigIntValue(config, QUEUE_SIZE_PARAM, 10000));
+        spoolSize = getConfigIntValue(config, SPOOL_SIZE_PARAM, 100000);
+
+        aggregation = parseAggregation(config.getOrDefault(AGGREGATION_PARAM, InfluxDBAggregation.NONE.name()));
+    }
+
+    private int getConfigIntValue(Map<String, Object> config, String key, int defaultValue) {
+        Object object = config.get(key);
+        if (object instanceof Number) {
+            return ((Number) object).intValue();
+        } else if (object instanceof String && !((String) object).isBlank()) {
+            try {
+                return Integer.parseInt(((String) object).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid {} {}", key, object);
+            }
+        }
+        return defaultValue;
     }
 
     private static boolean getConfigBooleanValue(Map<String, Object> config, String key, boolean defaultValue) {
@@ -89,6 +123,15 @@ public class InfluxDBConfiguration {
         }
     }
 
+    private InfluxDBAggregation parseAggregation(@Nullable Object value) {
+        try {
+            return InfluxDBAggregation.valueOf(String.valueOf(value).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid aggregation {}", value);
+            return InfluxDBAggregation.NONE;
+        }
+    }
+
     public boolean isValid() {
         boolean hasVersion = version != InfluxDBVersion.UNKNOWN;
         boolean hasCredentials = false;
@@ -156,6 +199,36 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    /**
+     * @return number of points written with one request, 0 if the write pipeline is disabled
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return maximum number of points spooled to disk while InfluxDB is unavailable, 0 if spooling is disabled
+     */
+    public int getSpoolSize() {
+        return spoolSize;
+    }
+
+    /**
+     * @return function used to aggregate numeric values server side, {@link InfluxDBAggregation#NONE} if values are
+     *         never aggregated
+     */
+    public InfluxDBAggregation getAggregation() {
+        return aggregation;
+    }
+
     public String getUser() {
         return user;
     }
@@ -174,7 +247,9 @@ public class InfluxDBConfiguration {
                 + password.length() + " chars" + '\'' + ", token='" + token.length() + " chars" + '\''
                 + ", databaseName='" + databaseName + '\'' + ", retentionPolicy='" + retentionPolicy + '\''
                 + ", version=" + version + ", replaceUnderscore=" + replaceUnderscore + ", addCategoryTag="
-                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + '}';
+                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + ", batchSize="
+                + batchSize + ", flushInterval=" + flushInterval + ", queueSize=" + queueSize + ", spoolSize="
+                + spoolSize + ", aggregation=" + aggregation + '}';
         return sb;
     }
 
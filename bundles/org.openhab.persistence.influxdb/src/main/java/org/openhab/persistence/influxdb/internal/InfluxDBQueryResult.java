@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Result of a query which is read from InfluxDB while it is iterated. Each iterator runs the query on a thread of the
+ * executor, the rows are passed through a buffer of {@code bufferSize} rows, and are converted only when they are
+ * iterated. While the buffer is full the client stops reading the response, so a result is never held in memory as a
+ * whole.
+ *
+ * If an iterator is abandoned before its end, the query is cancelled once the iterator has not taken a row for
+ * {@value #ABANDON_TIMEOUT_SECONDS} seconds. Likewise, the iterator fails if the query has not delivered a row for
+ * that long.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBQueryResult implements Iterable<HistoricItem> {
+    static final long ABANDON_TIMEOUT_SECONDS = 60;
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final Object END = new Object();
+
+    private static class QueryFailure {
+        final RuntimeException exception;
+
+        QueryFailure(RuntimeException exception) {
+            this.exception = exception;
+        }
+    }
+
+    private final InfluxDBRepository repository;
+    private final String query;
+    private final Function<InfluxRow, HistoricItem> mapper;
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeoutNanos;
+
+    public InfluxDBQueryResult(InfluxDBRepository repository, String query, Function<InfluxRow, HistoricItem> mapper,
+            Executor executor, int bufferSize) {
+        this(repository, query, mapper, executor, bufferSize, TimeUnit.SECONDS.toMillis(ABANDON_TIMEOUT_SECONDS));
+    }
+
+    // Visible for testing
+    InfluxDBQueryResult(InfluxDBRepository repository, String query, Function<InfluxRow, HistoricItem> mapper,
+            Executor executor, int bufferSize, long timeoutMillis) {
+        this.repository = repository;
+        this.query = query;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        ResultIterator iterator = new ResultIterator();
+        executor.execute(iterator::runQuery);
+        return iterator;
+    }
+
+    private class ResultIterator implements Iterator<HistoricItem> {
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        // END or the QueryFailure, set when the query has ended
+        private volatile @Nullable Object last;
+        // when the iterator has last taken a row
+        private volatile long lastTakeNanos = System.nanoTime();
+        private @Nullable Object next;
+
+        private void runQuery() {
+            Object result = new QueryFailure(new IllegalStateException("Query ended unexpectedly"));
+            try {
+                repository.query(query, this::put);
+                result = END;
+            } catch (RuntimeException e) {
+                result = new QueryFailure(e);
+            } finally {
+                last = result;
+                // wakes up the iterator, if the buffer is full it finds the end once it has taken the remaining rows
+                buffer.offer(END);
+            }
+        }
+
+        private void put(InfluxRow row) {
+            try {
+                while (!buffer.offer(row, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (System.nanoTime() - lastTakeNanos > timeoutNanos) {
+                        // the repository cancels the query if the consumer fails
+                        throw new IllegalStateException("Query result is not read anymore, query cancelled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading query result", e);
+            }
+        }
+
+        private Object take() {
+            long startNanos = System.nanoTime();
+            try {
+                while (true) {
+                    Object row = buffer.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (row != null && row != END) {
+                        lastTakeNanos = System.nanoTime();
+                        return row;
+                    }
+                    Object result = last;
+                    if (result != null) {
+                        // the rows were buffered before the query ended
+                        row = buffer.poll();
+                        return row == null || row == END ? result : row;
+                    }
+                    if (System.nanoTime() - startNanos > timeoutNanos) {
+                        throw new IllegalStateException("No response from InfluxDB, query result is incomplete");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading query result", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = take();
+            }
+            Object current = next;
+            if (current instanceof QueryFailure) {
+                // keep failing, the remaining rows are never received
+                throw ((QueryFailure) current).exception;
+            }
+            return current != END;
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            InfluxRow row = (InfluxRow) next;
+            next = null;
+            return mapper.apply(row);
+        }
+    }
+}
@@ -12,8 +12,10 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
@@ -63,7 +65,19 @@ public interface InfluxDBRepository {
      * @param query Query
      * @return Query results
      */
-    List<InfluxRow> query(String query);
+    default List<InfluxRow> query(String query) {
+        List<InfluxRow> rows = new ArrayList<>();
+        query(query, rows::add);
+        return rows;
+    }
+
+    /**
+     * Executes query streaming the results, so they are not kept in memory by the client
+     *
+     * @param query Query
+     * @param consumer Called for each result row in the order returned by the server
+     */
+    void query(String query, Consumer<InfluxRow> consumer);
 
     /**
      * Write point to database
@@ -71,4 +85,13 @@ public interface InfluxDBRepository {
      * @param influxPoint Point to write
      */
     void write(InfluxPoint influxPoint);
+
+    /**
+     * Write points to database with a single request, waiting for the result
+     *
+     * @param influxPoints Points to write
+     * @throws InfluxPointsRejectedException if InfluxDB rejected the points with a client error
+     * @throws RuntimeException if the points could not be written
+     */
+    void write(List<InfluxPoint> influxPoints);
 }
@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batching write pipeline in front of an {@link InfluxDBRepository}. Points are collected in a bounded queue and
+ * written every {@code flushInterval} milliseconds, or as soon as {@code batchSize} points are pending, with one
+ * request per batch.
+ *
+ * Points which cannot be written because InfluxDB is not reachable or fails with a server error are moved to an
+ * optional {@link InfluxPointSpool}. While InfluxDB is unavailable, the connection is checked at most every 10 seconds
+ * and the spool is replayed as soon as InfluxDB is reachable again. Points are only dropped if both the queue and the
+ * spool are full, or if InfluxDB rejects them with a client error, as writing them again would fail the same way.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteQueue {
+    private static final long CONNECTION_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWriteQueue.class);
+
+    private final InfluxDBRepository repository;
+    private final int batchSize;
+    private final BlockingQueue<InfluxPoint> queue;
+    private final @Nullable InfluxPointSpool spool;
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("InfluxDB-Writer"));
+    private final ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    // offers hold the read lock, so no point is queued after shutdown() has stopped the queue
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private volatile boolean stopped = false;
+    private boolean offline = false;
+    private long nextConnectionCheck = 0;
+
+    // metrics
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong spooledCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private volatile long lastWriteMillis = 0;
+    private volatile long maxWriteMillis = 0;
+
+    public InfluxDBWriteQueue(InfluxDBRepository repository, int batchSize, int flushInterval, int queueSize,
+            @Nullable InfluxPointSpool spool) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.spool = spool;
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        logger.debug("Write queue started with batchSize={} flushInterval={} ms queueSize={} spool={}", batchSize,
+                flushInterval, queueSize, spool != null);
+    }
+
+    /**
+     * Adds a point to the queue. If the queue is full, the point is spooled or, without spool, dropped.
+     *
+     * @return <code>false</code> if the queue is stopped and the point was not accepted
+     */
+    public boolean offer(InfluxPoint point) {
+        stopLock.readLock().lock();
+        try {
+            if (stopped) {
+                logger.debug("Write queue is stopped, point {} has to be written directly", point);
+                return false;
+            }
+            if (!queue.offer(point)) {
+                spoolOrDrop(List.of(point));
+                return true;
+            }
+        } finally {
+            stopLock.readLock().unlock();
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // the point was queued before shutdown() stopped the queue, so its final flush writes it
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all pending points, after replaying the spool if InfluxDB is reachable again.
+     */
+    public synchronized void flush() {
+        flushPending.set(false);
+        InfluxPointSpool currentSpool = spool;
+        if (offline || (currentSpool != null && !currentSpool.isEmpty())) {
+            if (offline && System.currentTimeMillis() < nextConnectionCheck) {
+                spoolPending();
+                return;
+            }
+            if (!repository.checkConnectionStatus()) {
+                setOffline();
+                spoolPending();
+                return;
+            }
+            if (offline) {
+                logger.info("InfluxDB is reachable again");
+                offline = false;
+            }
+            if (currentSpool != null && !currentSpool.isEmpty()) {
+                List<InfluxPoint> spooled = currentSpool.takeAll();
+                logger.debug("Replaying {} spooled points", spooled.size());
+                if (!writeBatches(spooled)) {
+                    return;
+                }
+            }
+        }
+        List<InfluxPoint> pending = new ArrayList<>(Math.min(queue.size(), batchSize));
+        boolean written = false;
+        while (queue.drainTo(pending, batchSize) > 0) {
+            if (!writeBatches(pending)) {
+                return;
+            }
+            pending.clear();
+            written = true;
+        }
+        if (written) {
+            logger.debug("{}", this);
+        }
+    }
+
+    /**
+     * Writes the points in batches of {@code batchSize}. A batch rejected by InfluxDB is dropped. If a batch fails
+     * otherwise, it and all following points are spooled.
+     *
+     * @return true if all points were written
+     */
+    private boolean writeBatches(List<InfluxPoint> points) {
+        for (int from = 0; from < points.size(); from += batchSize) {
+            List<InfluxPoint> batch = points.subList(from, Math.min(points.size(), from + batchSize));
+            long start = System.nanoTime();
+            try {
+                repository.write(batch);
+            } catch (InfluxPointsRejectedException e) {
+                rejectedCount.addAndGet(batch.size());
+                logger.warn("InfluxDB rejected {} points, total rejected points: {}: {}", batch.size(),
+                        rejectedCount.get(), e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed, InfluxDB may be unavailable: {}", batch.size(), e.getMessage());
+                setOffline();
+                spoolOrDrop(points.subList(from, points.size()));
+                spoolPending();
+                return false;
+            }
+            long nanos = System.nanoTime() - start;
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            writeCount.incrementAndGet();
+            writeNanos.addAndGet(nanos);
+            lastWriteMillis = millis;
+            maxWriteMillis = Math.max(maxWriteMillis, millis);
+            writtenCount.addAndGet(batch.size());
+            logger.trace("Wrote {} points in {} ms", batch.size(), millis);
+        }
+        return true;
+    }
+
+    private void setOffline() {
+        offline = true;
+        nextConnectionCheck = System.currentTimeMillis() + CONNECTION_CHECK_INTERVAL;
+    }
+
+    private void spoolPending() {
+        List<InfluxPoint> pending = new ArrayList<>(queue.size());
+        queue.drainTo(pending);
+        spoolOrDrop(pending);
+    }
+
+    private void spoolOrDrop(List<InfluxPoint> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+        InfluxPointSpool currentSpool = spool;
+        int spooled = currentSpool != null ? currentSpool.append(points) : 0;
+        spooledCount.addAndGet(spooled);
+        int dropped = points.size() - spooled;
+        if (dropped > 0) {
+            droppedCount.addAndGet(dropped);
+            logger.warn("Dropped {} points, total dropped points: {}", dropped, droppedCount.get());
+        }
+    }
+
+    /**
+     * Stops accepting points and the periodic flush and writes all pending points, or spools them if InfluxDB is not
+     * reachable.
+     */
+    public void shutdown() {
+        stopLock.writeLock().lock();
+        try {
+            stopped = true;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        flushJob.cancel(false);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.debug("Write queue stopped: {}", this);
+    }
+
+    /***********
+     * METRICS *
+     ***********/
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getSpoolSize() {
+        InfluxPointSpool currentSpool = spool;
+        return currentSpool != null ? currentSpool.size() : 0;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getSpooledCount() {
+        return spooledCount.get();
+    }
+
+    public long getLastWriteTime() {
+        return lastWriteMillis;
+    }
+
+    public long getMaxWriteTime() {
+        return maxWriteMillis;
+    }
+
+    public long getAverageWriteTime() {
+        long writes = writeCount.get();
+        return writes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(writeNanos.get() / writes);
+    }
+
+    @Override
+    public String toString() {
+        return "InfluxDBWriteQueue{queueDepth=" + getQueueDepth() + ", spoolSize=" + getSpoolSize() + ", written="
+                + getWrittenCount() + ", spooled=" + getSpooledCount() + ", dropped=" + getDroppedCount()
+                + ", rejected=" + getRejectedCount() + ", lastWriteTime=" + getLastWriteTime()
+                + " ms, averageWriteTime=" + getAverageWriteTime() + " ms, maxWriteTime=" + getMaxWriteTime() + " ms}";
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File based spool for points which could not be written to InfluxDB. Each point is stored as one line, so points
+ * can be appended without reading the file. The number of spooled points is limited; points exceeding the limit are
+ * not spooled.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxPointSpool {
+    private static final String SEPARATOR = "\t";
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxPointSpool.class);
+
+    private final Path file;
+    private final int maxSize;
+    private int size;
+
+    public InfluxPointSpool(Path file, int maxSize) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.size = countLines();
+        if (size > 0) {
+            logger.info("Found {} spooled points in {}", size, file);
+        }
+    }
+
+    private int countLines() {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return (int) lines.count();
+        } catch (IOException e) {
+            logger.warn("Could not read spool file {}: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Appends points to the spool.
+     *
+     * @return number of points which were spooled, the others exceeded the size limit or could not be written
+     */
+    public synchronized int append(List<InfluxPoint> points) {
+        int count = Math.min(points.size(), maxSize - size);
+        if (count <= 0) {
+            return 0;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(encode(points.get(i)));
+                    writer.newLine();
+                }
+            }
+            size += count;
+            return count;
+        } catch (IOException e) {
+            logger.warn("Could not write spool file {}: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Removes all points from the spool.
+     *
+     * @return the spooled points in the order they were appended
+     */
+    public synchronized List<InfluxPoint> takeAll() {
+        List<InfluxPoint> points = new ArrayList<>(size);
+        if (!Files.exists(file)) {
+            size = 0;
+            return points;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                InfluxPoint point = decode(line);
+                if (point != null) {
+                    points.add(point);
+                }
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            logger.warn("Could not read spool file {}: {}", file, e.getMessage());
+            return points;
+        }
+        size = 0;
+        return points;
+    }
+
+    // Visible for testing
+    static String encode(InfluxPoint point) {
+        StringBuilder line = new StringBuilder();
+        line.append(escape(point.getMeasurementName())).append(SEPARATOR);
+        line.append(point.getTime().toEpochMilli()).append(SEPARATOR);
+        Object value = point.getValue();
+        if (value instanceof BigDecimal) {
+            line.append('d');
+        } else if (value instanceof Integer) {
+            line.append('i');
+        } else if (value instanceof Long) {
+            line.append('l');
+        } else if (value instanceof Number) {
+            line.append('f');
+        } else if (value instanceof Boolean) {
+            line.append('b');
+        } else {
+            line.append('s');
+        }
+        line.append(escape(String.valueOf(value)));
+        for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+            line.append(SEPARATOR).append(escape(tag.getKey())).append('=').append(escape(tag.getValue()));
+        }
+        return line.toString();
+    }
+
+    // Visible for testing
+    @Nullable
+    static InfluxPoint decode(String line) {
+        String[] parts = line.split(SEPARATOR);
+        if (parts.length < 3 || parts[2].isEmpty()) {
+            return null;
+        }
+        try {
+            InfluxPoint.Builder builder = InfluxPoint.newBuilder(unescape(parts[0]))
+                    .withTime(Instant.ofEpochMilli(Long.parseLong(parts[1])));
+            String value = unescape(parts[2].substring(1));
+            switch (parts[2].charAt(0)) {
+                case 'd':
+                    builder.withValue(new BigDecimal(value));
+                    break;
+                case 'i':
+                    builder.withValue(Integer.valueOf(value));
+                    break;
+                case 'l':
+                    builder.withValue(Long.valueOf(value));
+                    break;
+                case 'f':
+                    builder.withValue(Double.valueOf(value));
+                    break;
+                case 'b':
+                    builder.withValue(Boolean.valueOf(value));
+                    break;
+                default:
+                    builder.withValue(value);
+            }
+            for (int i = 3; i < parts.length; i++) {
+                int index = parts[i].indexOf('=');
+                if (index > 0) {
+                    builder.withTag(unescape(parts[i].substring(0, index)), unescape(parts[i].substring(index + 1)));
+                }
+            }
+            return builder.build();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String escape(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String unescape(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Thrown if InfluxDB rejected written points with a client error, e.g. a field type conflict. Writing the same points
+ * again fails the same way, so they must not be retried.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxPointsRejectedException extends RuntimeException {
+    private static final long serialVersionUID = -4925735473598170562L;
+
+    public InfluxPointsRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -21,10 +21,12 @@ import org.influxdb.dto.Query;
 import org.influxdb.querybuilder.Appender;
 import org.influxdb.querybuilder.BuiltQuery;
 import org.influxdb.querybuilder.Select;
+import org.influxdb.querybuilder.SelectionQueryImpl;
 import org.influxdb.querybuilder.Where;
 import org.influxdb.querybuilder.clauses.SimpleClause;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 
 /**
@@ -36,7 +38,8 @@ import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQueryCreator {
 
     @Override
-    public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+    public String createQuery(FilterCriteria criteria, String retentionPolicy, InfluxDBAggregation aggregation,
+            long windowSeconds) {
         final String tableName;
         boolean hasCriteriaName = criteria.getItemName() != null;
         if (hasCriteriaName) {
@@ -45,8 +48,11 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             tableName = "/.*/";
         }
 
-        Select select = select(COLUMN_VALUE_NAME_V1).fromRaw(null,
-                fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        boolean aggregate = aggregation != InfluxDBAggregation.NONE && windowSeconds > 0;
+        SelectionQueryImpl selection = aggregate
+                ? select().function(aggregation.getFunctionName(), COLUMN_VALUE_NAME_V1).as(COLUMN_VALUE_NAME_V1)
+                : select(COLUMN_VALUE_NAME_V1);
+        Select select = selection.fromRaw(null, fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
 
         Where where = select.where();
         if (criteria.getBeginDate() != null) {
@@ -64,6 +70,10 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
                     stateToObject(criteria.getState())));
         }
 
+        if (aggregate) {
+            select = select.groupBy(time(windowSeconds, "s")).fill("none");
+        }
+
         if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
             select = select.orderBy(desc());
         } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
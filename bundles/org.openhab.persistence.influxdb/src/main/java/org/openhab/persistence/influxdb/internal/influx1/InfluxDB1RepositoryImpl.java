@@ -17,16 +17,20 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
 import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
@@ -34,6 +38,7 @@ import org.influxdb.dto.QueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
+import org.openhab.persistence.influxdb.internal.InfluxPointsRejectedException;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
@@ -47,6 +52,9 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
+    private static final int QUERY_CHUNK_SIZE = 10000;
+    private static final String QUERY_DONE = "DONE";
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB1RepositoryImpl.class);
     private InfluxDBConfiguration configuration;
     @Nullable
@@ -120,6 +128,28 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
         }
     }
 
+    @Override
+    public void write(List<InfluxPoint> points) {
+        final InfluxDB currentClient = this.client;
+        if (currentClient != null) {
+            BatchPoints.Builder batch = BatchPoints.database(configuration.getDatabaseName())
+                    .retentionPolicy(configuration.getRetentionPolicy()).precision(TimeUnit.MILLISECONDS);
+            points.forEach(point -> batch.point(convertPointToClientFormat(point)));
+            // batch points are written directly, not through the client's batch buffer
+            try {
+                currentClient.write(batch.build());
+            } catch (InfluxDBException e) {
+                // errors which are not worth a retry, like parse errors or field type conflicts, are client errors
+                if (!e.isRetryWorth()) {
+                    throw new InfluxPointsRejectedException(e.getMessage(), e);
+                }
+                throw e;
+            }
+        } else {
+            throw new IllegalStateException("client isn't connected");
+        }
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point.Builder clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime().toEpochMilli(),
                 TimeUnit.MILLISECONDS);
@@ -142,21 +172,50 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
         }
     }
 
+    /**
+     * Executes the query in chunks of {@value #QUERY_CHUNK_SIZE} points, which are passed to the consumer as soon as
+     * they are received, so the whole result is never kept in memory by the client.
+     */
     @Override
-    public List<InfluxRow> query(String query) {
+    public void query(String query, Consumer<InfluxRow> consumer) {
         final InfluxDB currentClient = client;
         if (currentClient != null) {
             Query parsedQuery = new Query(query, configuration.getDatabaseName());
-            List<QueryResult.Result> results = currentClient.query(parsedQuery, TimeUnit.MILLISECONDS).getResults();
-            return convertClientResutToRepository(results);
+            // chunks are passed to the callbacks by the client's HTTP thread, wait until the query is complete
+            CompletableFuture<@Nullable Void> completion = new CompletableFuture<>();
+            currentClient.query(parsedQuery, QUERY_CHUNK_SIZE,
+                    (cancellable, result) -> {
+                        try {
+                            convertClientResultToRepository(result, consumer);
+                        } catch (RuntimeException e) {
+                            cancellable.cancel();
+                            completion.completeExceptionally(e);
+                        }
+                    }, () -> completion.complete(null), completion::completeExceptionally);
+            try {
+                completion.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
         } else {
             logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<QueryResult.Result> results) {
-        List<InfluxRow> rows = new ArrayList<>();
+    private void convertClientResultToRepository(QueryResult queryResult, Consumer<InfluxRow> consumer) {
+        String error = queryResult.getError();
+        if (error != null) {
+            // the client marks the end of a chunked response with a DONE error
+            if (!QUERY_DONE.equals(error)) {
+                logger.warn("{}", error);
+            }
+            return;
+        }
+        List<QueryResult.Result> results = queryResult.getResults();
+        if (results == null) {
+            return;
+        }
         for (QueryResult.Result result : results) {
             List<QueryResult.Series> seriess = result.getSeries();
             if (result.getError() != null) {
@@ -190,18 +249,24 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                                 throw new IllegalStateException("missing column");
                             }
                             for (int i = 0; i < valuess.size(); i++) {
-                                Double rawTime = (Double) valuess.get(i).get(timestampColumn);
-                                Instant time = Instant.ofEpochMilli(rawTime.longValue());
+                                Instant time = parseTime(valuess.get(i).get(timestampColumn));
                                 Object value = valuess.get(i).get(valueColumn);
                                 logger.trace("adding historic item {}: time {} value {}", itemName, time, value);
-                                rows.add(new InfluxRow(time, itemName, value));
+                                consumer.accept(new InfluxRow(time, itemName, value));
                             }
                         }
                     }
                 }
             }
         }
-        return rows;
+    }
+
+    private Instant parseTime(Object rawTime) {
+        // chunked queries don't support epoch precision, so the time is returned as RFC3339 string
+        if (rawTime instanceof Number) {
+            return Instant.ofEpochMilli(((Number) rawTime).longValue());
+        }
+        return Instant.parse(rawTime.toString());
     }
 
     @Override
@@ -21,6 +21,7 @@ import java.time.temporal.ChronoUnit;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 
 import com.influxdb.query.dsl.Flux;
@@ -35,7 +36,8 @@ import com.influxdb.query.dsl.functions.restriction.Restrictions;
 @NonNullByDefault
 public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQueryCreator {
     @Override
-    public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+    public String createQuery(FilterCriteria criteria, String retentionPolicy, InfluxDBAggregation aggregation,
+            long windowSeconds) {
         Flux flux = Flux.from(retentionPolicy);
 
         RangeFlux range = flux.range();
@@ -60,6 +62,13 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             flux = flux.filter(restrictions);
         }
 
+        if (aggregation != InfluxDBAggregation.NONE && windowSeconds > 0) {
+            // flux-dsl has no aggregateWindow function, which combines window(), the aggregate and the time column.
+            // A window is stamped with its start like the GROUP BY time() of InfluxDB 1, not with its stop.
+            flux = flux.expression("aggregateWindow(every: " + windowSeconds + "s, fn: "
+                    + aggregation.getFunctionName() + ", timeSrc: \"_start\", createEmpty: false)");
+        }
+
         if (criteria.getOrdering() != null) {
             boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
             flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
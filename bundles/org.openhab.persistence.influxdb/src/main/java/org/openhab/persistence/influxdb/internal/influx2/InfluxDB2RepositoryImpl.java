@@ -19,8 +19,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -28,6 +30,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
+import org.openhab.persistence.influxdb.internal.InfluxPointsRejectedException;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
@@ -38,9 +41,12 @@ import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
 import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+import com.influxdb.exceptions.InfluxException;
+import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
 
 /**
@@ -58,6 +64,8 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     private QueryApi queryAPI;
     @Nullable
     private WriteApi writeAPI;
+    @Nullable
+    private WriteApiBlocking writeAPIBlocking;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -95,6 +103,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
         writeAPI = createdClient.getWriteApi();
+        writeAPIBlocking = createdClient.getWriteApiBlocking();
         return checkConnectionStatus();
     }
 
@@ -148,6 +157,31 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         }
     }
 
+    /**
+     * Write points to database with a single request
+     *
+     * @param points
+     */
+    @Override
+    public void write(List<InfluxPoint> points) {
+        final WriteApiBlocking currentWriteAPI = writeAPIBlocking;
+        if (currentWriteAPI != null) {
+            try {
+                currentWriteAPI.writePoints(points.stream().map(this::convertPointToClientFormat)
+                        .collect(Collectors.toList()));
+            } catch (InfluxException e) {
+                int status = e.status();
+                // client errors except request timeout and too many requests
+                if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                    throw new InfluxPointsRejectedException(e.getMessage(), e);
+                }
+                throw e;
+            }
+        } else {
+            throw new IllegalStateException("writeAPI isn't present");
+        }
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime(), WritePrecision.MS);
         setPointValue(point.getValue(), clientPoint);
@@ -170,34 +204,41 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Executes Flux query
+     * Executes Flux query streaming the result records, so the result tables aren't kept in memory
      *
      * @param query Query
-     * @return Query results
+     * @param consumer Called for each result row
      */
     @Override
-    public List<InfluxRow> query(String query) {
+    public void query(String query, Consumer<InfluxRow> consumer) {
         final QueryApi currentQueryAPI = queryAPI;
         if (currentQueryAPI != null) {
-            List<FluxTable> clientResult = currentQueryAPI.query(query);
-            return convertClientResutToRepository(clientResult);
+            // records are passed to the callbacks by the client's HTTP thread, wait until the query is complete
+            CompletableFuture<@Nullable Void> completion = new CompletableFuture<>();
+            currentQueryAPI.query(query, (cancellable, record) -> {
+                try {
+                    consumer.accept(mapRecordToRow(record));
+                } catch (RuntimeException e) {
+                    cancellable.cancel();
+                    completion.completeExceptionally(e);
+                }
+            }, completion::completeExceptionally, () -> completion.complete(null));
+            try {
+                completion.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
         } else {
             logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<FluxTable> clientResult) {
-        return clientResult.stream().flatMap(this::mapRawResultToHistoric).collect(Collectors.toList());
-    }
-
-    private Stream<InfluxRow> mapRawResultToHistoric(FluxTable rawRow) {
-        return rawRow.getRecords().stream().map(r -> {
-            String itemName = (String) r.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
-            Object value = r.getValueByKey(COLUMN_VALUE_NAME_V2);
-            Instant time = (Instant) r.getValueByKey(COLUMN_TIME_NAME_V2);
-            return new InfluxRow(time, itemName, value);
-        });
+    private InfluxRow mapRecordToRow(FluxRecord record) {
+        String itemName = (String) record.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
+        Object value = record.getValueByKey(COLUMN_VALUE_NAME_V2);
+        Instant time = (Instant) record.getValueByKey(COLUMN_TIME_NAME_V2);
+        return new InfluxRow(time, itemName, value);
     }
 
     /**
@@ -12,10 +12,21 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -23,10 +34,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
 import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 
 /**
@@ -38,13 +55,14 @@ public class InfluxDBPersistenceServiceTest {
     private InfluxDBPersistenceService instance;
 
     private @Mock InfluxDBRepository influxDBRepository;
+    private @Mock ItemRegistry itemRegistry;
 
     private Map<String, Object> validConfig;
     private Map<String, Object> invalidConfig;
 
     @BeforeEach
     public void before() {
-        instance = new InfluxDBPersistenceService(mock(ItemRegistry.class), mock(MetadataRegistry.class)) {
+        instance = new InfluxDBPersistenceService(itemRegistry, mock(MetadataRegistry.class)) {
             @Override
             protected InfluxDBRepository createInfluxDBRepository() {
                 return influxDBRepository;
@@ -103,4 +121,114 @@ public class InfluxDBPersistenceServiceTest {
         instance.store(ItemTestHelper.createNumberItem("number", 5));
         verify(influxDBRepository, never()).write(any());
     }
+
+    private List<String> queryWithAggregation(FilterCriteria filter, int rows) throws ItemNotFoundException {
+        NumberItem item = ItemTestHelper.createNumberItem("number", 5);
+        lenient().when(itemRegistry.get("number")).thenReturn(item);
+        lenient().when(itemRegistry.getItem("number")).thenReturn(item);
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        lenient().doAnswer(invocation -> {
+            Consumer<InfluxRow> consumer = invocation.getArgument(1);
+            for (int i = 0; i < rows; i++) {
+                consumer.accept(new InfluxRow(Instant.ofEpochSecond(i), "number", i));
+            }
+            return null;
+        }).when(influxDBRepository).query(anyString(), any());
+
+        validConfig.put(InfluxDBConfiguration.AGGREGATION_PARAM, InfluxDBAggregation.MEAN.name());
+        instance.activate(validConfig);
+        List<String> values = new ArrayList<>();
+        for (HistoricItem historicItem : instance.query(filter)) {
+            values.add(historicItem.getState().toString());
+        }
+        return values;
+    }
+
+    private String executedQuery() {
+        ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+        verify(influxDBRepository).query(query.capture(), any());
+        return query.getValue();
+    }
+
+    private static FilterCriteria dayFilter() {
+        return dayFilter(ZonedDateTime.of(2021, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    private static FilterCriteria dayFilter(ZonedDateTime begin) {
+        return new FilterCriteria().setItemName("number").setBeginDate(begin).setEndDate(begin.plusDays(1));
+    }
+
+    private static long executedWindowSeconds(String query) {
+        Matcher matcher = Pattern.compile("aggregateWindow\\(every: (\\d+)s").matcher(query);
+        assertThat(matcher.find(), is(true));
+        return Long.parseLong(matcher.group(1));
+    }
+
+    @Test
+    public void unpagedQueryReturnsAllRawValues() throws ItemNotFoundException {
+        // as queried by persistence extensions like maximumSince or averageSince
+        List<String> values = queryWithAggregation(dayFilter(), 2500);
+
+        assertThat(executedQuery(), not(containsString("aggregateWindow")));
+        assertThat(values, hasSize(2500));
+        assertThat(values.get(2499), is(new DecimalType(2499).toString()));
+    }
+
+    @Test
+    public void smallPageIsNotAggregated() throws ItemNotFoundException {
+        // as queried by historicState
+        List<String> values = queryWithAggregation(dayFilter().setPageSize(1), 1);
+
+        assertThat(executedQuery(), not(containsString("aggregateWindow")));
+        assertThat(values, hasSize(1));
+    }
+
+    @Test
+    public void largePageIsAggregated() throws ItemNotFoundException {
+        queryWithAggregation(dayFilter().setPageSize(24), 24);
+
+        // 86400 s divided into 23 windows, rounded up
+        assertThat(executedQuery(), containsString(
+                "aggregateWindow(every: 3757s, fn: mean, timeSrc: \"_start\", createEmpty: false)"));
+    }
+
+    @Test
+    public void unalignedRangeTouchesNoMoreWindowsThanThePageSize() throws ItemNotFoundException {
+        ZonedDateTime begin = ZonedDateTime.of(2021, 3, 1, 0, 30, 17, 0, ZoneOffset.UTC);
+        FilterCriteria filter = dayFilter(begin).setPageSize(24);
+        queryWithAggregation(filter, 24);
+
+        // InfluxDB starts the windows at multiples of the window length since the epoch
+        long window = executedWindowSeconds(executedQuery());
+        long firstWindow = begin.toEpochSecond() / window;
+        long lastWindow = begin.plusDays(1).toEpochSecond() / window;
+        assertThat(lastWindow - firstWindow + 1, lessThanOrEqualTo(24L));
+    }
+
+    @Test
+    public void laterPageOfAggregatedQueryIsEmpty() throws ItemNotFoundException {
+        List<String> values = queryWithAggregation(dayFilter().setPageSize(24).setPageNumber(1), 24);
+
+        assertThat(values, is(empty()));
+        verify(influxDBRepository, never()).query(anyString(), any());
+    }
+
+    @Test
+    public void laterPageOfSmallPageIsNotAggregated() throws ItemNotFoundException {
+        List<String> values = queryWithAggregation(dayFilter().setPageSize(1).setPageNumber(3), 1);
+
+        assertThat(executedQuery(), not(containsString("aggregateWindow")));
+        assertThat(values, hasSize(1));
+    }
+
+    @Test
+    public void queryIsNotAggregatedByDefault() throws ItemNotFoundException {
+        validConfig.remove(InfluxDBConfiguration.AGGREGATION_PARAM);
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        instance.activate(validConfig);
+
+        instance.query(dayFilter().setPageSize(24));
+
+        assertThat(executedQuery(), not(containsString("aggregateWindow")));
+    }
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBQueryResultTest {
+    private static final String QUERY = "SELECT value FROM origin.sampleItem;";
+
+    private final InfluxDBRepository repository = mock(InfluxDBRepository.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    private static HistoricItem historicItem(InfluxRow row) {
+        HistoricItem item = mock(HistoricItem.class);
+        when(item.getName()).thenReturn(String.valueOf(row.getValue()));
+        return item;
+    }
+
+    private void answerRows(int rows) {
+        doAnswer(invocation -> {
+            Consumer<InfluxRow> consumer = invocation.getArgument(1);
+            for (int i = 0; i < rows; i++) {
+                consumer.accept(new InfluxRow(Instant.ofEpochSecond(i), "sampleItem", i));
+            }
+            return null;
+        }).when(repository).query(anyString(), any());
+    }
+
+    @Test
+    public void allRowsAreReturnedThroughASmallerBuffer() {
+        answerRows(100);
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 10);
+
+        List<String> names = new ArrayList<>();
+        result.forEach(item -> names.add(item.getName()));
+
+        assertThat(names, hasSize(100));
+        assertThat(names.get(0), is("0"));
+        assertThat(names.get(99), is("99"));
+    }
+
+    @Test
+    public void eachIterationQueriesAgain() {
+        answerRows(3);
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 10);
+
+        result.forEach(item -> {
+        });
+        result.forEach(item -> {
+        });
+
+        verify(repository, times(2)).query(eq(QUERY), any());
+    }
+
+    @Test
+    public void failedQueryIsThrownByTheIterator() {
+        doThrow(new IllegalStateException("connection reset")).when(repository).query(anyString(), any());
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 10);
+
+        Iterator<HistoricItem> iterator = result.iterator();
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+
+    @Test
+    public void errorOfTheQueryEndsTheIteration() {
+        doThrow(new NoClassDefFoundError("missing")).when(repository).query(anyString(), any());
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 10);
+
+        Iterator<HistoricItem> iterator = result.iterator();
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+
+    @Test
+    public void endIsFoundBehindAFullBuffer() {
+        answerRows(3);
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 1);
+
+        Iterator<HistoricItem> iterator = result.iterator();
+        // the query ends while its last row fills the buffer
+        verify(repository, timeout(5000)).query(eq(QUERY), any());
+        List<String> names = new ArrayList<>();
+        iterator.forEachRemaining(item -> names.add(item.getName()));
+
+        assertThat(names, is(List.of("0", "1", "2")));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void iteratorFailsIfTheQueryDoesNotRespond() throws InterruptedException {
+        CountDownLatch response = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            response.await();
+            return null;
+        }).when(repository).query(anyString(), any());
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 10, 100);
+
+        Iterator<HistoricItem> iterator = result.iterator();
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+        response.countDown();
+    }
+
+    @Test
+    public void abandonedIteratorCancelsTheQuery() throws Exception {
+        CompletableFuture<RuntimeException> cancelled = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            Consumer<InfluxRow> consumer = invocation.getArgument(1);
+            try {
+                for (int i = 0; i < 10; i++) {
+                    consumer.accept(new InfluxRow(Instant.ofEpochSecond(i), "sampleItem", i));
+                }
+            } catch (RuntimeException e) {
+                cancelled.complete(e);
+                throw e;
+            }
+            return null;
+        }).when(repository).query(anyString(), any());
+        InfluxDBQueryResult result = new InfluxDBQueryResult(repository, QUERY,
+                InfluxDBQueryResultTest::historicItem, executor, 2, 100);
+
+        Iterator<HistoricItem> iterator = result.iterator();
+        assertTrue(iterator.hasNext());
+
+        assertThat(cancelled.get(5, TimeUnit.SECONDS), instanceOf(IllegalStateException.class));
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBWriteQueueTest {
+    private static final int FLUSH_INTERVAL = 60000;
+
+    private @Mock InfluxDBRepository influxDBRepository;
+    public @TempDir Path tempDir;
+    private InfluxDBWriteQueue instance;
+
+    @AfterEach
+    public void after() {
+        if (instance != null) {
+            instance.shutdown();
+        }
+        instance = null;
+    }
+
+    private static InfluxPoint createPoint(int value) {
+        return InfluxPoint.newBuilder("item").withTime(Instant.ofEpochMilli(1000L * value))
+                .withValue(new BigDecimal(value)).withTag(InfluxDBConstants.TAG_ITEM_NAME, "item").build();
+    }
+
+    @Test
+    public void pendingPointsAreWrittenWithOneRequest() {
+        List<Integer> batchSizes = new ArrayList<>();
+        // the queue reuses its batch list, so its size is recorded when written
+        doAnswer(invocation -> batchSizes.add(invocation.<List<?>> getArgument(0).size())).when(influxDBRepository)
+                .write(anyList());
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100, null);
+        instance.offer(createPoint(1));
+        instance.offer(createPoint(2));
+        instance.offer(createPoint(3));
+        assertThat(instance.getQueueDepth(), is(3));
+
+        instance.flush();
+
+        assertThat(batchSizes, is(List.of(3)));
+        assertThat(instance.getQueueDepth(), is(0));
+        assertThat(instance.getWrittenCount(), is(3L));
+    }
+
+    @Test
+    public void pointsAreDroppedIfQueueIsFullAndNoSpoolIsConfigured() {
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 2, null);
+        instance.offer(createPoint(1));
+        instance.offer(createPoint(2));
+        instance.offer(createPoint(3));
+
+        assertThat(instance.getQueueDepth(), is(2));
+        assertThat(instance.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void failedWriteIsSpooledAndReplayed() {
+        Path spoolFile = tempDir.resolve("spool.txt");
+        doThrow(new IllegalStateException("unavailable")).when(influxDBRepository).write(anyList());
+
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100,
+                new InfluxPointSpool(spoolFile, 100));
+        instance.offer(createPoint(1));
+        instance.offer(createPoint(2));
+        instance.flush();
+
+        assertThat(instance.getSpoolSize(), is(2));
+        assertThat(instance.getDroppedCount(), is(0L));
+        instance.shutdown();
+
+        // a new queue finds the spooled points and replays them once InfluxDB is reachable
+        reset(influxDBRepository);
+        when(influxDBRepository.checkConnectionStatus()).thenReturn(true);
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100,
+                new InfluxPointSpool(spoolFile, 100));
+        assertThat(instance.getSpoolSize(), is(2));
+        instance.offer(createPoint(3));
+        instance.flush();
+
+        verify(influxDBRepository, times(2)).write(anyList());
+        assertThat(instance.getSpoolSize(), is(0));
+        assertThat(instance.getWrittenCount(), is(3L));
+    }
+
+    @Test
+    public void rejectedBatchIsDroppedAndNotSpooled() {
+        Path spoolFile = tempDir.resolve("spool.txt");
+        doThrow(new InfluxPointsRejectedException("field type conflict", new RuntimeException())).doNothing()
+                .when(influxDBRepository).write(anyList());
+
+        instance = new InfluxDBWriteQueue(influxDBRepository, 2, FLUSH_INTERVAL, 100,
+                new InfluxPointSpool(spoolFile, 100));
+        instance.offer(createPoint(1));
+        instance.offer(createPoint(2));
+        instance.offer(createPoint(3));
+        instance.flush();
+
+        // the following batch is still written
+        verify(influxDBRepository, times(2)).write(anyList());
+        verify(influxDBRepository, never()).checkConnectionStatus();
+        assertThat(instance.getRejectedCount(), is(2L));
+        assertThat(instance.getWrittenCount(), is(1L));
+        assertThat(instance.getSpoolSize(), is(0));
+        assertThat(instance.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void rejectedSpooledPointsAreNotReplayedAgain() {
+        Path spoolFile = tempDir.resolve("spool.txt");
+        doThrow(new IllegalStateException("unavailable")).when(influxDBRepository).write(anyList());
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100,
+                new InfluxPointSpool(spoolFile, 100));
+        instance.offer(createPoint(1));
+        instance.flush();
+        assertThat(instance.getSpoolSize(), is(1));
+        instance.shutdown();
+
+        reset(influxDBRepository);
+        when(influxDBRepository.checkConnectionStatus()).thenReturn(true);
+        doThrow(new InfluxPointsRejectedException("unable to parse", new RuntimeException())).doNothing()
+                .when(influxDBRepository).write(anyList());
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100,
+                new InfluxPointSpool(spoolFile, 100));
+        instance.offer(createPoint(2));
+        instance.flush();
+        assertThat(instance.getSpoolSize(), is(0));
+        assertThat(instance.getRejectedCount(), is(1L));
+        assertThat(instance.getWrittenCount(), is(1L));
+
+        instance.flush();
+        verify(influxDBRepository, times(2)).write(anyList());
+    }
+
+    @Test
+    public void offerAfterShutdownIsRejected() {
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100, null);
+        instance.shutdown();
+
+        assertThat(instance.offer(createPoint(1)), is(false));
+        assertThat(instance.getQueueDepth(), is(0));
+        assertThat(instance.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void everyAcceptedPointIsWrittenByShutdown() throws InterruptedException {
+        instance = new InfluxDBWriteQueue(influxDBRepository, 10, FLUSH_INTERVAL, 100000, null);
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch offering = new CountDownLatch(100);
+        Thread producer = new Thread(() -> {
+            while (instance.offer(createPoint(1))) {
+                accepted.incrementAndGet();
+                offering.countDown();
+            }
+        });
+        producer.start();
+        assertThat(offering.await(10, TimeUnit.SECONDS), is(true));
+
+        instance.shutdown();
+        producer.join(10000);
+
+        assertThat(producer.isAlive(), is(false));
+        assertThat(instance.getQueueDepth(), is(0));
+        // no accepted point is left behind in the queue
+        assertThat(instance.getWrittenCount() + instance.getDroppedCount(), is(accepted.get()));
+    }
+}
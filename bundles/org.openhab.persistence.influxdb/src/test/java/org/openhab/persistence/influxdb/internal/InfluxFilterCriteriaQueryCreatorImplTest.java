@@ -159,6 +159,40 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
                         + "|> sort(desc:false, columns:[\"_time\"])"));
     }
 
+    @Test
+    public void testAggregation() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime now = ZonedDateTime.now();
+        criteria.setBeginDate(now);
+        criteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        String queryV1 = instanceV1.createQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MEAN, 60);
+        String expectedQueryV1 = String.format(
+                "SELECT mean(value) AS value FROM origin.sampleItem WHERE time >= '%s' GROUP BY time(60s) fill(none) "
+                        + "ORDER BY time ASC;",
+                now.toInstant());
+        assertThat(queryV1, equalTo(expectedQueryV1));
+
+        String queryV2 = instanceV2.createQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MAX, 60);
+        String expectedQueryV2 = String.format("from(bucket:\"origin\")\n\t" + "|> range(start:%s)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                + "|> aggregateWindow(every: 60s, fn: max, timeSrc: \"_start\", createEmpty: false)\n\t"
+                + "|> sort(desc:false, columns:[\"_time\"])", INFLUX2_DATE_FORMATTER.format(now.toInstant()));
+        assertThat(queryV2, equalTo(expectedQueryV2));
+    }
+
+    @Test
+    public void testNoAggregationWithoutWindow() {
+        FilterCriteria criteria = createBaseCriteria();
+
+        String queryV1 = instanceV1.createQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MEAN, 0);
+        assertThat(queryV1, equalTo("SELECT value FROM origin.sampleItem;"));
+
+        String queryV2 = instanceV2.createQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.NONE, 60);
+        assertThat(queryV2, equalTo("from(bucket:\"origin\")\n\t" + "|> range(start:-100y)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")"));
+    }
+
     private FilterCriteria createBaseCriteria() {
         return createBaseCriteria(ITEM_NAME);
     }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author agent - Initial contribution
+ */
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxPointSpoolTest {
+    public @TempDir Path tempDir;
+
+    @ParameterizedTest
+    @MethodSource
+    public void encodedPointIsDecodedWithSameValueType(Object value) {
+        InfluxPoint point = InfluxPoint.newBuilder("my item\t1").withTime(Instant.ofEpochMilli(1234567))
+                .withValue(value).withTag("item", "my=item").withTag("label", "Température").build();
+
+        InfluxPoint decoded = InfluxPointSpool.decode(InfluxPointSpool.encode(point));
+
+        assertThat(decoded.getMeasurementName(), is(point.getMeasurementName()));
+        assertThat(decoded.getTime(), is(point.getTime()));
+        assertThat(decoded.getValue(), is(value));
+        assertThat(decoded.getTags(), is(point.getTags()));
+    }
+
+    private static Stream<Object> encodedPointIsDecodedWithSameValueType() {
+        return Stream.of(new BigDecimal("5.50"), 1, 1612345678901L, 2.5d, true, "a string\nwith newline", "");
+    }
+
+    @Test
+    public void spoolIsLimitedToMaxSize() {
+        InfluxPointSpool spool = new InfluxPointSpool(tempDir.resolve("spool.txt"), 2);
+        List<InfluxPoint> points = List.of(createPoint(1), createPoint(2), createPoint(3));
+
+        assertThat(spool.append(points), is(2));
+        assertThat(spool.size(), is(2));
+
+        List<InfluxPoint> spooled = spool.takeAll();
+        assertThat(spooled, hasSize(2));
+        assertThat(spooled.get(0).getValue(), is(new BigDecimal(1)));
+        assertThat(spool.isEmpty(), is(true));
+    }
+
+    private static InfluxPoint createPoint(int value) {
+        return InfluxPoint.newBuilder("item").withTime(Instant.ofEpochMilli(value)).withValue(new BigDecimal(value))
+                .build();
+    }
+}
@@ -13,20 +13,30 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
 
+import org.apache.commons.dbutils.QueryRunner;
 import org.eclipse.jdt.annotation.Nullable;
 import org.knowm.yank.Yank;
 import org.openhab.core.items.GroupItem;
@@ -85,6 +95,15 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    protected String sqlInsertItemValues;
+    protected String sqlInsertItemValuesRow;
+
+    // Generated SQL per statement and table, all values are bound as parameters so the text stays constant and the
+    // driver or the database can reuse the prepared statement
+    private final Map<String, String> statementCache = new ConcurrentHashMap<>();
+
+    // Upper bound for the number of rows in one multi-row INSERT, keeps the bind parameter count within driver limits
+    protected int maxRowsPerInsert = 500;
 
     /********
      * INIT *
@@ -144,6 +163,8 @@ public class JdbcBaseDAO {
         sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='#jdbcUriDatabaseName#' AND NOT table_name='#itemsManageTable#'";
         sqlCreateItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time))";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES #valueRows# ON DUPLICATE KEY UPDATE VALUE=VALUES(VALUE)";
+        sqlInsertItemValuesRow = "( ?, ? )";
     }
 
     /**
@@ -244,6 +265,29 @@ public class JdbcBaseDAO {
         // databaseProps.setProperty("validationTimeout",""+validationTimeout);
     }
 
+    /**
+     * Sets the database properties which depend on the configured JDBC url. Called once the url is known.
+     *
+     * @param url the JDBC url configured by the user
+     */
+    public void initDbPropsForUrl(String url) {
+    }
+
+    /**
+     * Sets a property of the data source, unless the user set it as a parameter of the JDBC url.
+     */
+    protected void setDataSourcePropertyIfAbsent(String url, String key, String value) {
+        if (hasUrlParameter(url, key)) {
+            logger.debug("JDBC::setDataSourcePropertyIfAbsent: keeping {} of the url", key);
+        } else {
+            databaseProps.setProperty("dataSource." + key, value);
+        }
+    }
+
+    static boolean hasUrlParameter(String url, String key) {
+        return Pattern.compile("[?&;]" + Pattern.quote(key) + "=", Pattern.CASE_INSENSITIVE).matcher(url).find();
+    }
+
     public void initAfterFirstDbConnection() {
         logger.debug("JDBC::initAfterFirstDbConnection: Initializing step, after db is connected.");
         // Initialize sqlTypes, depending on DB version for example
@@ -327,19 +371,66 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
+        String sql = getStatement("insertItemValue", storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Stores several values of one item table with multi-row INSERT statements. Unlike
+     * {@link #doStoreItemValue(Item, ItemVO)} the time of each row is taken from {@link ItemVO#getTime()} instead of
+     * being generated by the database, so values can be written some time after they have been collected.
+     *
+     * All statements are executed in one transaction. Unlike {@link Yank#execute(String, Object[])} errors are not only
+     * logged, so the caller can tell whether the values were stored.
+     *
+     * @param tableName the item table all values belong to
+     * @param vol the values prepared by {@link #getItemValue(Item, ItemVO)}
+     * @throws SQLException if the values could not be stored, no value is stored then
+     */
+    public void doStoreItemValues(String tableName, List<ItemVO> vol) throws SQLException {
+        if (vol.isEmpty()) {
+            return;
+        }
+        String dbType = vol.get(0).getDbType();
+        try (Connection connection = Yank.getDefaultConnectionPool().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < vol.size(); from += maxRowsPerInsert) {
+                    List<ItemVO> rows = vol.subList(from, Math.min(from + maxRowsPerInsert, vol.size()));
+                    // not cached, there would be one statement per table and row count
+                    String sql = insertItemValuesProvider(tableName, dbType, rows.size());
+                    Object[] params = new Object[rows.size() * 2];
+                    int i = 0;
+                    for (ItemVO vo : rows) {
+                        params[i++] = getTimeParameter(vo.getTime());
+                        params[i++] = vo.getValue();
+                    }
+                    logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, rows.size());
+                    new QueryRunner().update(connection, sql, params);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
-        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        logger.debug("JDBC::doGetHistItemFilterQuery sql={}", sql);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        String sql = getStatement(histItemFilterQueryKey(filter, numberDecimalcount, name), table,
+                () -> histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone));
+        Object[] params = histItemFilterQueryPageParams(filter, timeZone);
+        logger.debug("JDBC::doGetHistItemFilterQuery sql={} params={}", sql, params);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
         // we already retrieve the unit here once as it is a very costly operation
         String itemName = item.getName();
         Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
@@ -347,6 +438,70 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Queries the rows of an item table lazily in chunks of {@code fetchSize} rows, see {@link JdbcHistItemCursor}.
+     * Paging of the filter is ignored.
+     */
+    public Iterable<HistoricItem> doGetHistItemCursor(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, ZoneId timeZone, int fetchSize) {
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        boolean hasBegin = filter.getBeginDate() != null;
+        boolean hasEnd = filter.getEndDate() != null;
+        int decimals = item instanceof NumberItem ? numberDecimalcount : -1;
+        String key = "" + ascending + hasBegin + hasEnd + fetchSize + ":" + decimals;
+        String firstSql = getStatement("histItemCursor" + key, table,
+                () -> histItemCursorQueryProvider(table, decimals, ascending, hasBegin, hasEnd, fetchSize));
+        // following chunks start after the time of the last row
+        String nextSql = getStatement("histItemCursorNext" + key, table, () -> histItemCursorQueryProvider(table,
+                decimals, ascending, ascending || hasBegin, !ascending || hasEnd, fetchSize));
+        Object[] params = histItemFilterQueryParams(filter, timeZone);
+        logger.debug("JDBC::doGetHistItemCursor sql={} fetchSize={}", firstSql, fetchSize);
+
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return new JdbcHistItemCursor(lastTime -> {
+            if (lastTime == null) {
+                return Yank.queryObjectArrays(firstSql, params);
+            }
+            Object[] nextParams;
+            if (ascending) {
+                nextParams = hasEnd ? new Object[] { lastTime, params[params.length - 1] } : new Object[] { lastTime };
+            } else {
+                nextParams = hasBegin ? new Object[] { params[0], lastTime } : new Object[] { lastTime };
+            }
+            return Yank.queryObjectArrays(nextSql, nextParams);
+        }, o -> new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0])), fetchSize);
+    }
+
+    /**
+     * Counts the rows of an item table within the period of the filter. Paging of the filter is ignored.
+     */
+    public long doGetHistItemCount(FilterCriteria filter, String table, ZoneId timeZone) {
+        String sql = getStatement("histItemCount" + (filter.getBeginDate() != null ? "B" : "")
+                + (filter.getEndDate() != null ? "E" : ""), table, () -> histItemCountQueryProvider(filter, table));
+        logger.debug("JDBC::doGetHistItemCount sql={}", sql);
+        Number count = Yank.queryScalar(sql, Number.class, histItemFilterQueryParams(filter, timeZone));
+        return count == null ? 0 : count.longValue();
+    }
+
+    /**
+     * Queries one aggregated row per time bucket instead of the raw rows of an item table.
+     *
+     * @param function one of AVG, MIN, MAX or LAST
+     * @param bucketSize length of a time bucket in seconds
+     */
+    public List<HistoricItem> doGetHistItemAggregateQuery(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, ZoneId timeZone, String function, long bucketSize) {
+        String sql = histItemAggregateQueryProvider(filter, numberDecimalcount, table, function, bucketSize);
+        logger.debug("JDBC::doGetHistItemAggregateQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, histItemFilterQueryParams(filter, timeZone));
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return m.stream().filter(o -> o[1] != null)
+                .map(o -> new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0])))
+                .collect(Collectors.<HistoricItem> toList());
+    }
+
     /*************
      * Providers *
      *************/
@@ -358,25 +513,15 @@ public class JdbcBaseDAO {
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
                 filter, numberDecimalcount, table, simpleName);
 
-        String filterString = "";
-        if (filter.getBeginDate() != null) {
-            filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
-        }
-        if (filter.getEndDate() != null) {
-            filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
-        }
+        String filterString = histItemFilterWhereProvider(filter);
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC ";
         if (filter.getPageSize() != 0x7fffffff) {
-            filterString += " LIMIT " + filter.getPageNumber() * filter.getPageSize() + "," + filter.getPageSize();
+            filterString += " LIMIT ?,?";
         }
         // SELECT time, ROUND(value,3) FROM number_item_0114 ORDER BY time DESC LIMIT 0,1
         // rounding HALF UP
         String queryString = "NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1
-                ? "SELECT time, ROUND(value," + numberDecimalcount + ") FROM " + table
+                ? "SELECT time, " + roundedValueProvider(numberDecimalcount) + " FROM " + table
                 : "SELECT time, value FROM " + table;
         if (!filterString.isEmpty()) {
             queryString += filterString;
@@ -385,6 +530,140 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Creates the WHERE clause of a history query. The dates are bound as parameters, see
+     * {@link #histItemFilterQueryParams(FilterCriteria, ZoneId)}.
+     */
+    protected String histItemFilterWhereProvider(FilterCriteria filter) {
+        return histItemFilterWhereProvider(filter.getBeginDate() != null, filter.getEndDate() != null);
+    }
+
+    protected String histItemFilterWhereProvider(boolean hasBegin, boolean hasEnd) {
+        String filterString = "";
+        if (hasBegin) {
+            filterString += " WHERE TIME>?";
+        }
+        if (hasEnd) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += " TIME<?";
+        }
+        return filterString;
+    }
+
+    protected Object[] histItemFilterQueryParams(FilterCriteria filter, ZoneId timeZone) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        ZonedDateTime endDate = filter.getEndDate();
+        if (beginDate != null && endDate != null) {
+            return new Object[] { getQueryTimeParameter(beginDate, timeZone),
+                    getQueryTimeParameter(endDate, timeZone) };
+        } else if (beginDate != null) {
+            return new Object[] { getQueryTimeParameter(beginDate, timeZone) };
+        } else if (endDate != null) {
+            return new Object[] { getQueryTimeParameter(endDate, timeZone) };
+        }
+        return new Object[0];
+    }
+
+    /**
+     * Returns the parameters of {@link #histItemFilterQueryProvider}, the dates of the WHERE clause followed by the
+     * parameters of the page, if the filter has a page size.
+     */
+    protected Object[] histItemFilterQueryPageParams(FilterCriteria filter, ZoneId timeZone) {
+        Object[] params = histItemFilterQueryParams(filter, timeZone);
+        if (filter.getPageSize() == 0x7fffffff) {
+            return params;
+        }
+        Object[] pageParams = histItemFilterQueryLimitParams(filter);
+        Object[] result = Arrays.copyOf(params, params.length + pageParams.length);
+        System.arraycopy(pageParams, 0, result, params.length, pageParams.length);
+        return result;
+    }
+
+    /**
+     * Returns the parameters of the LIMIT clause of {@link #histItemFilterQueryProvider}, the offset and the row count.
+     */
+    protected Object[] histItemFilterQueryLimitParams(FilterCriteria filter) {
+        return new Object[] { filter.getPageNumber() * filter.getPageSize(), filter.getPageSize() };
+    }
+
+    /**
+     * Returns the key of the generated SQL of {@link #histItemFilterQueryProvider}. The page is bound as parameters,
+     * only whether there is a page is part of the key.
+     */
+    protected String histItemFilterQueryKey(FilterCriteria filter, int numberDecimalcount, String simpleName) {
+        return "histItemFilterQuery" + (filter.getBeginDate() != null ? "B" : "")
+                + (filter.getEndDate() != null ? "E" : "") + filter.getOrdering()
+                + (filter.getPageSize() != 0x7fffffff ? "P" : "") + ":" + numberDecimalcount + ":" + simpleName;
+    }
+
+    /**
+     * @param numberDecimalcount number of decimals numeric values are rounded to, or -1 for the raw values
+     */
+    protected String histItemCursorQueryProvider(String table, int numberDecimalcount, boolean ascending,
+            boolean hasBegin, boolean hasEnd, int fetchSize) {
+        String value = numberDecimalcount > -1 ? roundedValueProvider(numberDecimalcount) : "value";
+        String queryString = "SELECT time, " + value + " FROM " + table + histItemFilterWhereProvider(hasBegin, hasEnd)
+                + (ascending ? " ORDER BY time ASC" : " ORDER BY time DESC") + limitProvider(fetchSize);
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Returns the value column rounded HALF UP to the given number of decimals.
+     */
+    protected String roundedValueProvider(int numberDecimalcount) {
+        return "ROUND(value," + numberDecimalcount + ")";
+    }
+
+    protected String limitProvider(int rowCount) {
+        return " LIMIT " + rowCount;
+    }
+
+    protected String histItemCountQueryProvider(FilterCriteria filter, String table) {
+        String queryString = "SELECT COUNT(*) FROM " + table + histItemFilterWhereProvider(filter);
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Creates a query returning one row per time bucket. For LAST the newest raw row of each bucket is selected,
+     * otherwise the aggregated value together with the oldest time of the bucket.
+     */
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+            String function, long bucketSize) {
+        String order = (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        String groupBy = " GROUP BY " + aggregateBucketProvider(bucketSize);
+        String queryString;
+        if ("LAST".equals(function)) {
+            queryString = "SELECT time, value FROM " + table + " WHERE time IN (SELECT MAX(time) FROM " + table
+                    + histItemFilterWhereProvider(filter) + groupBy + ")" + order;
+        } else {
+            queryString = "SELECT MIN(time), " + aggregateValueProvider(function, numberDecimalcount) + " FROM "
+                    + table + histItemFilterWhereProvider(filter) + groupBy + order;
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Returns an expression which maps the time column to the number of its time bucket.
+     */
+    protected String aggregateBucketProvider(long bucketSize) {
+        return "FLOOR(UNIX_TIMESTAMP(time) / " + bucketSize + ")";
+    }
+
+    protected String aggregateValueProvider(String function, int numberDecimalcount) {
+        return numberDecimalcount > -1 ? "ROUND(" + function + "(value), " + numberDecimalcount + ")"
+                : function + "(value)";
+    }
+
+    protected String insertItemValuesProvider(String tableName, String dbType, int rowCount) {
+        String row = sqlInsertItemValuesRow.replace("#dbType#", dbType).replace("#tablePrimaryKey#",
+                sqlTypes.get("tablePrimaryKey"));
+        String valueRows = String.join(", ", Collections.nCopies(rowCount, row));
+        return sqlInsertItemValues.replace("#tableName#", tableName).replace("#valueRows#", valueRows);
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -396,6 +675,16 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Converts the current state of the item into the value to be stored and stamps it with the current time, so it
+     * can be written later with {@link #doStoreItemValues(String, List)}.
+     */
+    public ItemVO getItemValue(Item item, ItemVO vo) {
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        storedVO.setTime(new Date());
+        return storedVO;
+    }
+
     protected ItemVO storeItemValueProvider(Item item, ItemVO vo) {
         String itemType = getItemType(item);
 
@@ -500,8 +789,9 @@ public class JdbcBaseDAO {
                 return unit == null ? new DecimalType((BigDecimal) v)
                         : QuantityType.valueOf(((BigDecimal) v).doubleValue(), unit);
             } else if (it.toUpperCase().contains("INT")) {
-                return unit == null ? new DecimalType(((Integer) v).intValue())
-                        : QuantityType.valueOf(((Integer) v).doubleValue(), unit);
+                // aggregated values of integer columns are returned as decimals
+                return unit == null ? new DecimalType(((Number) v).intValue())
+                        : QuantityType.valueOf(((Number) v).doubleValue(), unit);
             }
             return unit == null ? DecimalType.valueOf(((String) v).toString())
                     : QuantityType.valueOf(((String) v).toString());
@@ -525,6 +815,28 @@ public class JdbcBaseDAO {
         }
     }
 
+    protected Object getTimeParameter(Date time) {
+        return new Timestamp(time.getTime());
+    }
+
+    /**
+     * Converts a query date to the local time of the given time zone with a precision of seconds.
+     */
+    protected Object getQueryTimeParameter(ZonedDateTime date, ZoneId timeZone) {
+        return Timestamp.valueOf(date.withZoneSameInstant(timeZone).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Returns the SQL for a statement on a table, generating it only once.
+     *
+     * @param statement name of the statement, including all options which change the generated SQL
+     * @param tableName the item table
+     * @param provider generates the SQL on a cache miss
+     */
+    protected String getStatement(String statement, String tableName, Supplier<String> provider) {
+        return statementCache.computeIfAbsent(statement + "#" + tableName, key -> provider.get());
+    }
+
     protected ZonedDateTime objectAsDate(Object v) {
         if (v instanceof java.lang.String) {
             return ZonedDateTime.ofInstant(Timestamp.valueOf(v.toString()).toInstant(), ZoneId.systemDefault());
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.sql.SQLException;
 import java.time.ZoneId;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -62,6 +63,8 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         // Prevent error against duplicate time value (seldom): No powerful Merge found:
         // http://www.codeproject.com/Questions/162627/how-to-insert-new-record-in-my-table-if-not-exists
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES #valueRows#";
+        sqlInsertItemValuesRow = "( ?, CAST( ? as #dbType#) )";
     }
 
     private void initSqlTypes() {
@@ -149,20 +152,28 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
 
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName().toUpperCase(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = getStatement("insertItemValue", storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName().toUpperCase(), storedVO.getDbType(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    @Override
+    public void doStoreItemValues(String tableName, List<ItemVO> vol) throws SQLException {
+        super.doStoreItemValues(tableName.toUpperCase(), vol);
+    }
+
     @Override
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
-        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        String sql = getStatement(histItemFilterQueryKey(filter, numberDecimalcount, name), table,
+                () -> histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone));
+        List<Object[]> m = Yank.queryObjectArrays(sql, histItemFilterQueryPageParams(filter, timeZone));
         logger.debug("JDBC::doGetHistItemFilterQuery got Array length={}", m.size());
         // we already retrieve the unit here once as it is a very costly operation
         String itemName = item.getName();
@@ -176,6 +187,41 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
+    @Override
+    protected String histItemCursorQueryProvider(String table, int numberDecimalcount, boolean ascending,
+            boolean hasBegin, boolean hasEnd, int fetchSize) {
+        return super.histItemCursorQueryProvider(table.toUpperCase(), numberDecimalcount, ascending, hasBegin, hasEnd,
+                fetchSize);
+    }
+
+    @Override
+    protected String limitProvider(int rowCount) {
+        return " FETCH FIRST " + rowCount + " ROWS ONLY";
+    }
+
+    @Override
+    protected String histItemCountQueryProvider(FilterCriteria filter, String table) {
+        return super.histItemCountQueryProvider(filter, table.toUpperCase());
+    }
+
+    @Override
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+            String function, long bucketSize) {
+        return super.histItemAggregateQueryProvider(filter, numberDecimalcount, table.toUpperCase(), function,
+                bucketSize);
+    }
+
+    @Override
+    protected String aggregateBucketProvider(long bucketSize) {
+        // integer division
+        return "{fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('1970-01-01 00:00:00'), time)} / " + bucketSize;
+    }
+
+    @Override
+    protected String aggregateValueProvider(String function, int numberDecimalcount) {
+        // Derby has no ROUND function
+        return function + "(value)";
+    }
 
     @Override
     protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
@@ -184,47 +230,16 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
                 StringUtilsExt.filterToString(filter), numberDecimalcount, table, simpleName);
 
-        String filterString = "";
-        if (filter.getBeginDate() != null) {
-            filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
-        }
-        if (filter.getEndDate() != null) {
-            filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
-        }
+        String filterString = histItemFilterWhereProvider(filter);
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
-            // TODO: TESTING!!!
-            // filterString += " LIMIT " + filter.getPageNumber() *
-            // filter.getPageSize() + "," + filter.getPageSize();
-            // SELECT time, value FROM ohscriptfiles_sw_ace_paths_0001 ORDER BY
-            // time DESC OFFSET 1 ROWS FETCH NEXT 0 ROWS ONLY
-            // filterString += " OFFSET " + filter.getPageSize() +" ROWS FETCH
-            // FIRST||NEXT " + filter.getPageNumber() * filter.getPageSize() + "
-            // ROWS ONLY";
-            filterString += " OFFSET " + filter.getPageSize() + " ROWS FETCH FIRST "
-                    + (filter.getPageNumber() * filter.getPageSize() + 1) + " ROWS ONLY";
+            // offset and row count are bound in the order of histItemFilterQueryLimitParams
+            filterString += " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY";
         }
 
-        // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
-        // simulated round function in Derby: CAST(value 0.0005 AS DECIMAL(15,3))
-        // simulated round function in Derby: "CAST(value 0.0005 AS DECIMAL(15,"+numberDecimalcount+"))"
-
-        String queryString = "SELECT time,";
-        if ("NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1) {
-            // rounding HALF UP
-            queryString += "CAST(value 0.";
-            for (int i = 0; i < numberDecimalcount; i++) {
-                queryString += "0";
-            }
-            queryString += "5 AS DECIMAL(31," + numberDecimalcount + "))"; // 31 is DECIMAL max precision
-                                                                           // https://db.apache.org/derby/docs/10.0/manuals/develop/develop151.html
-        } else {
-            queryString += " value FROM " + table.toUpperCase();
-        }
+        String queryString = "NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1
+                ? "SELECT time, " + roundedValueProvider(numberDecimalcount) + " FROM " + table.toUpperCase()
+                : "SELECT time, value FROM " + table.toUpperCase();
 
         if (!filterString.isEmpty()) {
             queryString += filterString;
@@ -233,6 +248,14 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String roundedValueProvider(int numberDecimalcount) {
+        // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
+        // simulated round function in Derby: CAST(value + 0.0005 AS DECIMAL(31,3)), rounding HALF UP
+        // 31 is DECIMAL max precision https://db.apache.org/derby/docs/10.0/manuals/develop/develop151.html
+        return "CAST(value + 0." + "0".repeat(numberDecimalcount) + "5 AS DECIMAL(31," + numberDecimalcount + "))";
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
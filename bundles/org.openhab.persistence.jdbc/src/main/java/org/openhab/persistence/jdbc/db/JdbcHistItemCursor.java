@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Lazy result of a history query. Rows are read in chunks of {@code fetchSize} rows, each chunk continuing after
+ * the time of the last row of the previous one, and converted to {@link HistoricItem}s only when they are iterated.
+ *
+ * No database connection is held between two chunks, so an iteration may be abandoned at any time.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcHistItemCursor implements Iterable<HistoricItem> {
+
+    private final Function<Object, List<Object[]>> chunkQuery;
+    private final Function<Object[], HistoricItem> rowMapper;
+    private final int fetchSize;
+
+    /**
+     * @param chunkQuery returns at most {@code fetchSize} rows following the given time value, or the first rows if
+     *            the time value is <code>null</code>
+     * @param rowMapper converts a row to a {@link HistoricItem}
+     * @param fetchSize number of rows of a chunk
+     */
+    public JdbcHistItemCursor(Function<Object, List<Object[]>> chunkQuery, Function<Object[], HistoricItem> rowMapper,
+            int fetchSize) {
+        this.chunkQuery = chunkQuery;
+        this.rowMapper = rowMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new Iterator<HistoricItem>() {
+            private List<Object[]> chunk = chunkQuery.apply(null);
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (index < chunk.size()) {
+                    return true;
+                }
+                if (chunk.size() < fetchSize) {
+                    // the last chunk was not full, there are no more rows
+                    return false;
+                }
+                Object lastTime = chunk.get(chunk.size() - 1)[0];
+                chunk = chunkQuery.apply(lastTime);
+                index = 0;
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public HistoricItem next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return rowMapper.apply(chunk.get(index++));
+            }
+        };
+    }
+}
@@ -75,6 +75,12 @@ public class JdbcMysqlDAO extends JdbcBaseDAO {
         databaseProps.setProperty("minimumIdle", "2");
     }
 
+    @Override
+    public void initDbPropsForUrl(String url) {
+        // prepare the constant SQL once per connection on the server, unless the user configured it
+        setDataSourcePropertyIfAbsent(url, "useServerPrepStmts", "true");
+    }
+
     @Override
     public void initAfterFirstDbConnection() {
         logger.debug("JDBC::initAfterFirstDbConnection: Initializing step, after db is connected.");
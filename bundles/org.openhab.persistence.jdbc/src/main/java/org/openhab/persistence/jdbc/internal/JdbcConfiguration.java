@@ -37,6 +37,7 @@ public class JdbcConfiguration {
 
     private static final Pattern EXTRACT_CONFIG_PATTERN = Pattern.compile("^(.*?)\\.([0-9.a-zA-Z]+)$");
     private static final String DB_DAO_PACKAGE = "org.openhab.persistence.jdbc.db.Jdbc";
+    private static final Set<String> AGGREGATION_FUNCTIONS = Set.of("NONE", "AVG", "MIN", "MAX", "LAST");
 
     private Map<Object, Object> configuration;
 
@@ -60,6 +61,19 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // lazy, chunked query results, disabled by default
+    private int queryFetchSize = 0;
+
+    // server-side downsampling of paged queries, disabled by default
+    private String aggregation = "NONE";
+    private long aggregationBucketSize = 0;
+
+    // write-behind queue, disabled by default
+    private boolean batchEnabled = false;
+    private int batchSize = 100;
+    private int batchInterval = 1000;
+    private int batchQueueSize = 10000;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -173,6 +187,53 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String qf = (String) configuration.get("queryFetchSize");
+        if (qf != null && !qf.isBlank() && isNumericPattern.matcher(qf).matches()) {
+            queryFetchSize = Integer.parseInt(qf);
+            logger.debug("JDBC::updateConfig: queryFetchSize={}", queryFetchSize);
+        }
+
+        String ag = (String) configuration.get("aggregation");
+        if (ag != null && !ag.isBlank()) {
+            ag = ag.trim().toUpperCase();
+            if (AGGREGATION_FUNCTIONS.contains(ag)) {
+                aggregation = ag;
+            } else {
+                logger.warn("JDBC::updateConfig: unknown aggregation '{}', use one of {}", ag, AGGREGATION_FUNCTIONS);
+            }
+            logger.debug("JDBC::updateConfig: aggregation={}", aggregation);
+        }
+
+        String ab = (String) configuration.get("aggregationBucketSize");
+        if (ab != null && !ab.isBlank() && isNumericPattern.matcher(ab).matches()) {
+            aggregationBucketSize = Long.parseLong(ab);
+            logger.debug("JDBC::updateConfig: aggregationBucketSize={}", aggregationBucketSize);
+        }
+
+        String be = (String) configuration.get("batchEnabled");
+        if (be != null && !be.isBlank()) {
+            batchEnabled = Boolean.parseBoolean(be);
+            logger.debug("JDBC::updateConfig: batchEnabled={}", batchEnabled);
+        }
+
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Math.max(1, Integer.parseInt(bs));
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (bi != null && !bi.isBlank() && isNumericPattern.matcher(bi).matches()) {
+            batchInterval = Math.max(100, Integer.parseInt(bi));
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Math.max(batchSize, Integer.parseInt(bq));
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -216,6 +277,7 @@ public class JdbcConfiguration {
         } else {
             dBDAO.databaseProps.setProperty("jdbcUrl", url);
         }
+        dBDAO.initDbPropsForUrl(url);
 
         // test if JDBC driver bundle is available
         testJDBCDriver(dn);
@@ -350,6 +412,34 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public int getQueryFetchSize() {
+        return queryFetchSize;
+    }
+
+    public String getAggregation() {
+        return aggregation;
+    }
+
+    public long getAggregationBucketSize() {
+        return aggregationBucketSize;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -12,11 +12,13 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.knowm.yank.Yank;
@@ -45,7 +47,8 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // item name -> table name, read lock-free on every store and query, loaded once in checkDBSchema()
+    protected final Map<String, String> sqlTables = new ConcurrentHashMap<>();
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -159,6 +162,29 @@ public class JdbcMapper {
         return item;
     }
 
+    public ItemVO getItemValue(Item item) {
+        logger.debug("JDBC::getItemValue: item={}", item);
+        String tableName = getTable(item);
+        if (tableName == null) {
+            logger.error("JDBC::getItemValue: Unable to store item '{}'.", item.getName());
+            return null;
+        }
+        return conf.getDBDAO().getItemValue(item, new ItemVO(tableName, null));
+    }
+
+    /**
+     * Stores several values of one item table.
+     *
+     * @throws SQLException if the values could not be stored, no value is stored then
+     */
+    public void storeItemValues(String tableName, List<ItemVO> vol) throws SQLException {
+        logger.debug("JDBC::storeItemValues: table={} rows={}", tableName, vol.size());
+        long timerStart = System.currentTimeMillis();
+        conf.getDBDAO().doStoreItemValues(tableName, vol);
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+    }
+
     public List<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
             Item item) {
         logger.debug(
@@ -177,6 +203,33 @@ public class JdbcMapper {
         return null;
     }
 
+    public Iterable<HistoricItem> getHistItemCursor(FilterCriteria filter, String table, Item item, int fetchSize) {
+        logger.debug("JDBC::getHistItemCursor table='{}' item='{}' fetchSize={}", table, item.getName(), fetchSize);
+        return conf.getDBDAO().doGetHistItemCursor(item, filter, conf.getNumberDecimalcount(), table,
+                timeZoneProvider.getTimeZone(), fetchSize);
+    }
+
+    public long getHistItemCount(FilterCriteria filter, String table) {
+        logger.debug("JDBC::getHistItemCount table='{}'", table);
+        long timerStart = System.currentTimeMillis();
+        long result = conf.getDBDAO().doGetHistItemCount(filter, table, timeZoneProvider.getTimeZone());
+        logTime("getHistItemCount", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    public List<HistoricItem> getHistItemAggregateQuery(FilterCriteria filter, int numberDecimalcount, String table,
+            Item item, String function, long bucketSize) {
+        logger.debug("JDBC::getHistItemAggregateQuery table='{}' item='{}' function={} bucketSize={}", table,
+                item.getName(), function, bucketSize);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetHistItemAggregateQuery(item, filter, numberDecimalcount,
+                table, timeZoneProvider.getTimeZone(), function, bucketSize);
+        logTime("getHistItemAggregateQuery", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
@@ -240,14 +293,25 @@ public class JdbcMapper {
     }
 
     protected String getTable(Item item) {
+        String tableName = sqlTables.get(item.getName());
+
+        // Table already exists - return the name
+        if (tableName != null) {
+            return tableName;
+        }
+        synchronized (sqlTables) {
+            return createTable(item);
+        }
+    }
+
+    private String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
 
         String itemName = item.getName();
+        // the table may have been created while waiting for the lock
         String tableName = sqlTables.get(itemName);
-
-        // Table already exists - return the name
         if (tableName != null) {
             return tableName;
         }
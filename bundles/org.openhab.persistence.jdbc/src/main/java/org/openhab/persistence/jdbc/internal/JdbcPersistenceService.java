@@ -12,6 +12,9 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -25,6 +28,7 @@ import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -32,6 +36,7 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.jdbc.model.ItemVO;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -56,10 +61,15 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
 
     protected static final String CONFIG_URI = "persistence:jdbc";
 
+    // pages up to this size, e.g. the single value asked for by historicState, are never aggregated
+    static final int AGGREGATION_MIN_PAGE_SIZE = 10;
+
     private final Logger logger = LoggerFactory.getLogger(JdbcPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
 
+    private @Nullable JdbcWriteQueue writeQueue;
+
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry,
             final @Reference TimeZoneProvider timeZoneProvider) {
@@ -104,6 +114,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopWriteQueue();
         initialized = false;
     }
 
@@ -140,6 +151,29 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             return;
         }
         long timerStart = System.currentTimeMillis();
+        JdbcWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null) {
+            ItemVO vo = getItemValue(item);
+            if (vo == null) {
+                // no item table, already logged
+                return;
+            }
+            if (writeQueue.offer(vo)) {
+                logger.debug("JDBC: Queued item '{}' as '{}' in {} ms.", item.getName(), item.getState(),
+                        System.currentTimeMillis() - timerStart);
+                return;
+            }
+            // queue is full or stopped, store synchronously to throttle the producer instead of dropping the value,
+            // with the time of the value like the queued values
+            try {
+                storeItemValues(vo.getTableName(), List.of(vo));
+                logger.debug("JDBC: Stored item '{}' as '{}' in SQL database at {} in {} ms.", item.getName(),
+                        item.getState(), vo.getTime(), System.currentTimeMillis() - timerStart);
+            } catch (SQLException e) {
+                logger.warn("JDBC::store: Unable to store item '{}': {}", item.getName(), e.getMessage());
+            }
+            return;
+        }
         storeItemValue(item);
         logger.debug("JDBC: Stored item '{}' as '{}' in SQL database at {} in {} ms.", item.getName(), item.getState(),
                 new java.util.Date(), System.currentTimeMillis() - timerStart);
@@ -191,18 +225,32 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             }
         }
 
+        // all existing tables are known since checkDBSchema(), a missing table means there is no data yet
         String table = sqlTables.get(itemName);
         if (table == null) {
-            logger.warn(
+            logger.debug(
                     "JDBC::query: unable to find table for query, no data in database for item '{}'. Current number of tables in the database: {}",
                     itemName, sqlTables.size());
-            // if enabled, table will be created immediately
-            logger.warn("JDBC::query: try to generate the table for item '{}'", itemName);
-            table = getTable(item);
+            return List.of();
+        }
+
+        JdbcWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null && !writeQueue.isEmpty()) {
+            // make sure pending values are part of the result
+            writeQueue.flush();
+        }
+
+        if (conf.getQueryFetchSize() > 0 && filter.getPageSize() == Integer.MAX_VALUE) {
+            // unpaged queries, e.g. of persistence extensions, are read lazily
+            errCnt = 0;
+            return getHistItemCursor(filter, table, item, conf.getQueryFetchSize());
         }
 
         long timerStart = System.currentTimeMillis();
-        List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+        List<HistoricItem> items = getAggregatedItems(filter, table, item);
+        if (items == null) {
+            items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+        }
 
         logger.debug("JDBC::query: query for {} returned {} rows in {} ms", itemName, items.size(),
                 System.currentTimeMillis() - timerStart);
@@ -212,14 +260,73 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         return items;
     }
 
+    /**
+     * Downsamples a query on a number item if an aggregation function is configured and the period holds more rows
+     * than fit into a page. A chart asking for 500 values of a whole year then gets at most 500 aggregated values
+     * instead of the first 500 raw rows.
+     * <p>
+     * The first page holds the aggregated values of the whole period, so further pages of such a query are empty.
+     *
+     * @return the aggregated values or <code>null</code> if the raw rows have to be queried
+     */
+    // Visible for testing
+    @Nullable
+    List<HistoricItem> getAggregatedItems(FilterCriteria filter, String table, Item item) {
+        String function = conf.getAggregation();
+        if ("NONE".equals(function) || !(item instanceof NumberItem)) {
+            return null;
+        }
+        long bucketSize = getAggregationBucketSize(filter, conf.getAggregationBucketSize(), ZonedDateTime.now());
+        if (bucketSize == 0) {
+            return null;
+        }
+        long count = getHistItemCount(filter, table);
+        if (count <= filter.getPageSize()) {
+            logger.debug("JDBC::query: {} rows of item '{}' fit into the page, not aggregated", count, item.getName());
+            return null;
+        }
+        if (filter.getPageNumber() != 0) {
+            logger.debug("JDBC::query: page {} of item '{}' is empty, the first page holds all aggregated values",
+                    filter.getPageNumber(), item.getName());
+            return List.of();
+        }
+        logger.debug("JDBC::query: aggregate {} rows of item '{}' with {} per {} seconds", count, item.getName(),
+                function, bucketSize);
+        return getHistItemAggregateQuery(filter, conf.getNumberDecimalcount(), table, item, function, bucketSize);
+    }
+
+    /**
+     * Returns the length in seconds of the time buckets a query is aggregated into, or 0 if it must not be aggregated.
+     * Only queries with a start date and a page size above {@link #AGGREGATION_MIN_PAGE_SIZE} are aggregated. The
+     * range is split into buckets such that the period never touches more buckets than the page size,
+     * although the buckets are aligned to the epoch instead of the start date.
+     */
+    static long getAggregationBucketSize(FilterCriteria filter, long minBucketSize, ZonedDateTime now) {
+        int pageSize = filter.getPageSize();
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate == null || pageSize == Integer.MAX_VALUE || pageSize <= AGGREGATION_MIN_PAGE_SIZE) {
+            return 0;
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        long range = Duration.between(beginDate, endDate != null ? endDate : now).getSeconds();
+        // one bucket less than the page size, as the first and the last bucket may be partial
+        long buckets = pageSize - 1;
+        return Math.max(minBucketSize, Math.max(1, (range + buckets - 1) / buckets));
+    }
+
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
+        stopWriteQueue();
         conf = new JdbcConfiguration(configuration);
         if (conf.valid && checkDBAccessability()) {
             checkDBSchema();
             // connection has been established ... initialization completed!
             initialized = true;
+            if (conf.isBatchEnabled()) {
+                writeQueue = new JdbcWriteQueue(this, conf.getBatchSize(), conf.getBatchInterval(),
+                        conf.getBatchQueueSize(), conf.enableLogTime);
+            }
         } else {
             initialized = false;
         }
@@ -227,6 +334,15 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getId());
     }
 
+    private void stopWriteQueue() {
+        JdbcWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null) {
+            this.writeQueue = null;
+            writeQueue.shutdown();
+            logger.debug("JDBC::stopWriteQueue: {}", writeQueue);
+        }
+    }
+
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.CHANGE);
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.openhab.persistence.jdbc.utils.MovingAverage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for item values. Values are collected in a bounded queue and written periodically, or as soon
+ * as {@code batchSize} values are pending, grouped per item table with one multi-row INSERT per table.
+ *
+ * If the queue is full or has been shut down, {@link #offer(ItemVO)} returns <code>false</code> and the caller is
+ * expected to store the value synchronously.
+ *
+ * If the database cannot be reached, the values of a table are kept and written with the next flush, up to
+ * {@code queueSize} values, the oldest are dropped beyond. If a multi-row INSERT is rejected for another reason, e.g. a
+ * duplicate time, the values of the table are written one by one, and only the rejected ones are dropped.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcWriteQueue {
+    private final Logger logger = LoggerFactory.getLogger(JdbcWriteQueue.class);
+
+    private final JdbcMapper mapper;
+    private final int batchSize;
+    private final int queueSize;
+    private final boolean logTime;
+    private final BlockingQueue<ItemVO> queue;
+    // values which could not be written because the database could not be reached, written first by the next flush
+    private final Deque<ItemVO> retries = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("JDBC-Writer"));
+    private final ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    // offers hold the read lock, so no value is queued after shutdown() has started
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private boolean shutdown = false;
+
+    // metrics
+    private final AtomicLong storedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final MovingAverage flushTimeAverage = new MovingAverage(50);
+    private long lastFlushTime = 0;
+    private long maxFlushTime = 0;
+
+    public JdbcWriteQueue(JdbcMapper mapper, int batchSize, int batchInterval, int queueSize, boolean logTime) {
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.queueSize = queueSize;
+        this.logTime = logTime;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+        logger.debug("JDBC::JdbcWriteQueue: started with batchSize={} batchInterval={} ms queueSize={}", batchSize,
+                batchInterval, queueSize);
+    }
+
+    /**
+     * Adds a value to the queue.
+     *
+     * @param vo value prepared by {@link JdbcMapper#getItemValue(org.openhab.core.items.Item)}
+     * @return <code>false</code> if the queue is full or shut down and the value was not accepted
+     */
+    public boolean offer(ItemVO vo) {
+        shutdownLock.readLock().lock();
+        try {
+            if (shutdown) {
+                logger.debug("JDBC::offer: queue is shut down, value for table '{}' has to be stored directly",
+                        vo.getTableName());
+                return false;
+            }
+            if (!queue.offer(vo)) {
+                rejectedCount.incrementAndGet();
+                logger.debug("JDBC::offer: queue is full, value for table '{}' has to be stored directly",
+                        vo.getTableName());
+                return false;
+            }
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // shutting down, pending values are written by shutdown()
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return queue.isEmpty() && retries.isEmpty();
+    }
+
+    /**
+     * Writes all pending values to the database.
+     */
+    public synchronized void flush() {
+        flushPending.set(false);
+        List<ItemVO> pending = new ArrayList<>(retries.size() + queue.size());
+        pending.addAll(retries);
+        retries.clear();
+        queue.drainTo(pending);
+        if (pending.isEmpty()) {
+            return;
+        }
+        long timerStart = System.currentTimeMillis();
+
+        // group by table, a later value with the same timestamp replaces the earlier one
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : pending) {
+            Map<Long, ItemVO> rows = tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>());
+            if (rows.put(vo.getTime().getTime(), vo) != null) {
+                coalescedCount.incrementAndGet();
+            }
+        }
+        for (Map.Entry<String, Map<Long, ItemVO>> table : tables.entrySet()) {
+            store(table.getKey(), new ArrayList<>(table.getValue().values()));
+        }
+
+        long flushTime = System.currentTimeMillis() - timerStart;
+        flushCount.incrementAndGet();
+        lastFlushTime = flushTime;
+        maxFlushTime = Math.max(maxFlushTime, flushTime);
+        flushTimeAverage.add(flushTime);
+        logger.debug("JDBC::flush: wrote {} values into {} tables in {} ms, queueDepth={} retries={}", pending.size(),
+                tables.size(), flushTime, queue.size(), retries.size());
+        if (logTime && logger.isInfoEnabled()) {
+            logger.info("JDBC::flush: {}", this);
+        }
+    }
+
+    private void store(String tableName, List<ItemVO> rows) {
+        try {
+            mapper.storeItemValues(tableName, rows);
+            storedCount.addAndGet(rows.size());
+            return;
+        } catch (SQLException e) {
+            if (isTransient(e)) {
+                logger.warn("JDBC::flush: failed to store {} values into table '{}', retrying with the next flush: {}",
+                        rows.size(), tableName, e.getMessage());
+                retry(rows);
+                return;
+            }
+            logger.debug("JDBC::flush: failed to store {} values into table '{}', storing them one by one: {}",
+                    rows.size(), tableName, e.getMessage());
+        }
+        for (ItemVO vo : rows) {
+            try {
+                mapper.storeItemValues(tableName, Collections.singletonList(vo));
+                storedCount.incrementAndGet();
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    retry(Collections.singletonList(vo));
+                } else {
+                    droppedCount.incrementAndGet();
+                    logger.warn("JDBC::flush: dropped value '{}' at {} of table '{}': {}", vo.getValue(), vo.getTime(),
+                            tableName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void retry(List<ItemVO> rows) {
+        retries.addAll(rows);
+        retriedCount.addAndGet(rows.size());
+        int dropped = 0;
+        while (retries.size() > queueSize) {
+            retries.removeFirst();
+            dropped++;
+        }
+        if (dropped > 0) {
+            droppedCount.addAndGet(dropped);
+            logger.warn("JDBC::flush: dropped the {} oldest values which could not be stored, at most {} are kept",
+                    dropped, queueSize);
+        }
+    }
+
+    /**
+     * Returns whether the statement may succeed if it is executed again later, i.e. the database could not be
+     * reached. SQL state class 08 is a connection exception.
+     */
+    static boolean isTransient(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || (sqlState != null && sqlState.startsWith("08"));
+    }
+
+    /**
+     * Stops accepting values and the periodic flush and writes all pending values.
+     */
+    public void shutdown() {
+        shutdownLock.writeLock().lock();
+        try {
+            shutdown = true;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        flushJob.cancel(false);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /***********
+     * METRICS *
+     ***********/
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getStoredCount() {
+        return storedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public synchronized long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    public synchronized long getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public synchronized int getAverageFlushTime() {
+        return flushTimeAverage.getAverageInteger();
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcWriteQueue [queueDepth=" + getQueueDepth() + ", stored=" + getStoredCount() + ", coalesced="
+                + getCoalescedCount() + ", rejected=" + getRejectedCount() + ", retried=" + getRetriedCount()
+                + ", dropped=" + getDroppedCount() + ", flushes=" + getFlushCount()
+                + ", lastFlushTime=" + getLastFlushTime() + " ms, averageFlushTime=" + getAverageFlushTime()
+                + " ms, maxFlushTime=" + getMaxFlushTime() + " ms]";
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+
+/**
+ * Tests the SQL generated by the {@link JdbcDerbyDAO}.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcDerbyDAOTest {
+    private final JdbcDerbyDAO dao = new JdbcDerbyDAO();
+
+    @Test
+    public void pageIsBoundAsOffsetAndRowCount() {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setOrdering(Ordering.DESCENDING);
+        filter.setPageSize(10);
+        filter.setPageNumber(3);
+
+        String sql = dao.histItemFilterQueryProvider(filter, -1, "item0001", "STRINGITEM", ZoneId.of("UTC"));
+
+        assertEquals("SELECT time, value FROM ITEM0001 ORDER BY time DESC OFFSET ? ROWS FETCH FIRST ? ROWS ONLY", sql);
+        assertArrayEquals(new Object[] { 30, 10 }, dao.histItemFilterQueryPageParams(filter, ZoneId.of("UTC")));
+    }
+
+    @Test
+    public void firstPageStartsAtTheFirstRow() {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setPageSize(25);
+        filter.setPageNumber(0);
+
+        assertArrayEquals(new Object[] { 0, 25 }, dao.histItemFilterQueryPageParams(filter, ZoneId.of("UTC")));
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the data source properties of the {@link JdbcMysqlDAO}.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcMysqlDAOTest {
+    private final JdbcMysqlDAO dao = new JdbcMysqlDAO();
+
+    @Test
+    public void serverPreparedStatementsAreEnabledByDefault() {
+        dao.initDbPropsForUrl("jdbc:mysql://localhost:3306/test?serverTimezone=UTC");
+
+        assertEquals("true", dao.databaseProps.getProperty("dataSource.useServerPrepStmts"));
+    }
+
+    @Test
+    public void serverPreparedStatementsOfTheUrlAreKept() {
+        dao.initDbPropsForUrl("jdbc:mysql://localhost:3306/test?serverTimezone=UTC&useServerPrepStmts=false");
+
+        assertNull(dao.databaseProps.getProperty("dataSource.useServerPrepStmts"));
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.core.i18n.TimeZoneProvider;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Tests which queries the {@link JdbcPersistenceService} downsamples.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcPersistenceServiceTest {
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2021, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final HistoricItem aggregated = mock(HistoricItem.class);
+    private final Item item = new NumberItem("Temperature");
+
+    private static FilterCriteria dayFilter(int pageSize) {
+        return new FilterCriteria().setItemName("Temperature").setBeginDate(NOW.minusDays(1)).setEndDate(NOW)
+                .setPageSize(pageSize);
+    }
+
+    @Test
+    public void unpagedQueryIsNotAggregated() {
+        assertEquals(0, JdbcPersistenceService.getAggregationBucketSize(dayFilter(Integer.MAX_VALUE), 0, NOW));
+    }
+
+    @Test
+    public void smallPageIsNotAggregated() {
+        assertEquals(0, JdbcPersistenceService.getAggregationBucketSize(dayFilter(1), 0, NOW));
+        assertEquals(0, JdbcPersistenceService
+                .getAggregationBucketSize(dayFilter(JdbcPersistenceService.AGGREGATION_MIN_PAGE_SIZE), 0, NOW));
+    }
+
+    @Test
+    public void queryWithoutBeginDateIsNotAggregated() {
+        FilterCriteria filter = new FilterCriteria().setItemName("Temperature").setEndDate(NOW).setPageSize(500);
+        assertEquals(0, JdbcPersistenceService.getAggregationBucketSize(filter, 0, NOW));
+    }
+
+    @Test
+    public void laterPageHasTheBucketSizeOfTheFirstPage() {
+        assertEquals(3600, JdbcPersistenceService.getAggregationBucketSize(dayFilter(25).setPageNumber(1), 0, NOW));
+    }
+
+    @Test
+    public void rangeIsSplitIntoOneBucketLessThanThePageSize() {
+        assertEquals(3600, JdbcPersistenceService.getAggregationBucketSize(dayFilter(25), 0, NOW));
+        // rounded up, so the range never touches more buckets than the page size
+        assertEquals(2980, JdbcPersistenceService.getAggregationBucketSize(dayFilter(30), 0, NOW));
+        // open end
+        FilterCriteria filter = new FilterCriteria().setItemName("Temperature").setBeginDate(NOW.minusDays(1))
+                .setPageSize(25);
+        assertEquals(3600, JdbcPersistenceService.getAggregationBucketSize(filter, 0, NOW));
+    }
+
+    @Test
+    public void minimumBucketSizeIsKept() {
+        assertEquals(7200, JdbcPersistenceService.getAggregationBucketSize(dayFilter(25), 7200, NOW));
+        assertEquals(1, JdbcPersistenceService.getAggregationBucketSize(dayFilter(100000), 0, NOW));
+    }
+
+    /**
+     * Creates a service aggregating with AVG, whose tables hold the given number of rows in the queried period.
+     */
+    private JdbcPersistenceService createService(long rowCount) {
+        JdbcPersistenceService service = new JdbcPersistenceService(mock(ItemRegistry.class),
+                mock(TimeZoneProvider.class)) {
+            @Override
+            public long getHistItemCount(FilterCriteria filter, String table) {
+                return rowCount;
+            }
+
+            @Override
+            public List<HistoricItem> getHistItemAggregateQuery(FilterCriteria filter, int numberDecimalcount,
+                    String table, Item item, String function, long bucketSize) {
+                return List.of(aggregated);
+            }
+        };
+        service.conf = mock(JdbcConfiguration.class);
+        when(service.conf.getAggregation()).thenReturn("AVG");
+        return service;
+    }
+
+    @Test
+    public void firstPageHoldsAllAggregatedValues() {
+        FilterCriteria filter = dayFilter(25);
+
+        assertEquals(List.of(aggregated), createService(1000).getAggregatedItems(filter, "item0001", item));
+    }
+
+    @Test
+    public void laterPageOfAggregatedQueryIsEmpty() {
+        FilterCriteria filter = dayFilter(25).setPageNumber(1);
+
+        assertEquals(List.of(), createService(1000).getAggregatedItems(filter, "item0001", item));
+    }
+
+    @Test
+    public void periodWhichFitsIntoThePageIsNotAggregated() {
+        // the raw rows are queried for every page
+        assertNull(createService(25).getAggregatedItems(dayFilter(25), "item0001", item));
+        assertNull(createService(25).getAggregatedItems(dayFilter(25).setPageNumber(1), "item0001", item));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * Tests the {@link JdbcWriteQueue}.
+ *
+ * @author agent - Initial contribution
+ */
+public class JdbcWriteQueueTest {
+    private static final String TABLE = "item0001";
+
+    private final JdbcMapper mapper = mock(JdbcMapper.class);
+    // rows passed to the mapper which were stored
+    private final List<ItemVO> stored = new ArrayList<>();
+    private JdbcWriteQueue queue;
+
+    private JdbcWriteQueue createQueue(int queueSize) {
+        // the periodic flush never runs during a test, the tests flush explicitly
+        queue = new JdbcWriteQueue(mapper, 1000, 3600000, queueSize, false);
+        return queue;
+    }
+
+    @AfterEach
+    public void after() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    private static ItemVO value(long time, Object value) {
+        ItemVO vo = new ItemVO(TABLE, null);
+        vo.setTime(new Date(time));
+        vo.setValue(value);
+        return vo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object store(InvocationOnMock invocation) {
+        stored.addAll((List<ItemVO>) invocation.getArgument(1));
+        return null;
+    }
+
+    @Test
+    public void flushStoresValuesPerTable() throws SQLException {
+        doAnswer(this::store).when(mapper).storeItemValues(eq(TABLE), anyList());
+        JdbcWriteQueue queue = createQueue(10);
+
+        assertTrue(queue.offer(value(1, 1.0)));
+        assertTrue(queue.offer(value(2, 2.0)));
+        // same time, replaces the first value
+        assertTrue(queue.offer(value(1, 3.0)));
+        queue.flush();
+
+        verify(mapper, times(1)).storeItemValues(eq(TABLE), anyList());
+        assertEquals(2, stored.size());
+        assertEquals(3.0, stored.get(0).getValue());
+        assertEquals(2.0, stored.get(1).getValue());
+        assertEquals(1, queue.getCoalescedCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fullQueueRejectsValue() {
+        JdbcWriteQueue queue = createQueue(1);
+
+        assertTrue(queue.offer(value(1, 1.0)));
+        assertFalse(queue.offer(value(2, 2.0)));
+        assertEquals(1, queue.getRejectedCount());
+    }
+
+    @Test
+    public void shutdownWritesPendingValuesAndRejectsLaterValues() throws SQLException {
+        doAnswer(this::store).when(mapper).storeItemValues(eq(TABLE), anyList());
+        JdbcWriteQueue queue = createQueue(10);
+
+        assertTrue(queue.offer(value(1, 1.0)));
+        queue.shutdown();
+        assertEquals(1, stored.size());
+
+        // the caller has to store the value directly
+        assertFalse(queue.offer(value(2, 2.0)));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getRejectedCount());
+    }
+
+    @Test
+    public void unreachableDatabaseKeepsValuesForNextFlush() throws SQLException {
+        doThrow(new SQLTransientConnectionException("connection timeout")).doAnswer(this::store).when(mapper)
+                .storeItemValues(eq(TABLE), anyList());
+        JdbcWriteQueue queue = createQueue(10);
+
+        queue.offer(value(1, 1.0));
+        queue.offer(value(2, 2.0));
+        queue.flush();
+        assertTrue(stored.isEmpty());
+        assertFalse(queue.isEmpty());
+
+        queue.offer(value(3, 3.0));
+        queue.flush();
+        assertEquals(3, stored.size());
+        assertEquals(1.0, stored.get(0).getValue());
+        assertEquals(3.0, stored.get(2).getValue());
+        assertEquals(0, queue.getDroppedCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void unreachableDatabaseKeepsAtMostQueueSizeValues() throws SQLException {
+        doThrow(new SQLException("connection refused", "08001")).when(mapper).storeItemValues(eq(TABLE), anyList());
+        JdbcWriteQueue queue = createQueue(2);
+
+        queue.offer(value(1, 1.0));
+        queue.offer(value(2, 2.0));
+        queue.flush();
+        queue.offer(value(3, 3.0));
+        queue.flush();
+        assertEquals(1, queue.getDroppedCount());
+
+        doAnswer(this::store).when(mapper).storeItemValues(eq(TABLE), anyList());
+        queue.flush();
+        assertEquals(2, stored.size());
+        assertEquals(2.0, stored.get(0).getValue());
+        assertEquals(3.0, stored.get(1).getValue());
+    }
+
+    @Test
+    public void rejectedBatchIsStoredRowByRow() throws SQLException {
+        ItemVO duplicate = value(2, 2.0);
+        doAnswer(invocation -> {
+            List<?> rows = invocation.getArgument(1);
+            if (rows.contains(duplicate)) {
+                throw new SQLException("duplicate key value violates unique constraint", "23505");
+            }
+            return store(invocation);
+        }).when(mapper).storeItemValues(eq(TABLE), anyList());
+        JdbcWriteQueue queue = createQueue(10);
+
+        queue.offer(value(1, 1.0));
+        queue.offer(duplicate);
+        queue.offer(value(3, 3.0));
+        queue.flush();
+
+        // one multi-row INSERT and three single rows
+        verify(mapper, times(4)).storeItemValues(eq(TABLE), anyList());
+        assertEquals(2, stored.size());
+        assertEquals(1.0, stored.get(0).getValue());
+        assertEquals(3.0, stored.get(1).getValue());
+        assertEquals(1, queue.getDroppedCount());
+        assertTrue(queue.isEmpty());
+    }
+}
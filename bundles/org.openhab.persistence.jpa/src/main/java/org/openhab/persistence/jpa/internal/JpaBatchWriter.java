@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes {@link JpaPersistentItem}s in batches. Items are collected in a bounded queue and written every
+ * {@code flushInterval} milliseconds, or as soon as {@code batchSize} items are pending, with one transaction per
+ * batch. The JDBC inserts of a transaction are sent as a statement batch by the provider.
+ *
+ * If the transaction of a batch fails, its items are written again with one transaction each, so only the items which
+ * fail on their own are dropped.
+ *
+ * With a {@code flushInterval} of 0, every item is written immediately by the storing thread.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaBatchWriter {
+
+    private final Logger logger = LoggerFactory.getLogger(JpaBatchWriter.class);
+
+    private final JpaEntityManagerPool pool;
+    private final int batchSize;
+    private final BlockingQueue<JpaPersistentItem> queue;
+    private final @Nullable ScheduledExecutorService scheduler;
+    private final @Nullable ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    // metrics
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong transactionCount = new AtomicLong();
+    private final AtomicLong transactionNanos = new AtomicLong();
+
+    public JpaBatchWriter(JpaEntityManagerPool pool, int batchSize, int flushInterval) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(Math.max(10 * batchSize, 1000));
+        if (flushInterval > 0) {
+            ScheduledExecutorService executor = Executors
+                    .newSingleThreadScheduledExecutor(new NamedThreadFactory("JPA-Writer"));
+            scheduler = executor;
+            flushJob = executor.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+            flushJob = null;
+        }
+        logger.debug("Batch writer started with batchSize={} flushInterval={} ms", batchSize, flushInterval);
+    }
+
+    /**
+     * Adds an item to be written. If the queue is full, the pending items are written by the calling thread.
+     */
+    public void offer(JpaPersistentItem item) {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            write(List.of(item));
+            return;
+        }
+        if (!queue.offer(item)) {
+            logger.debug("Write queue is full, writing pending items immediately");
+            flush();
+            if (!queue.offer(item)) {
+                write(List.of(item));
+            }
+        } else if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                // shutting down, pending items are written by shutdown()
+            }
+        }
+    }
+
+    /**
+     * Writes all pending items.
+     */
+    public synchronized void flush() {
+        flushPending.set(false);
+        List<JpaPersistentItem> pending = new ArrayList<>(Math.min(queue.size(), batchSize));
+        boolean written = false;
+        while (queue.drainTo(pending, batchSize) > 0) {
+            write(pending);
+            pending.clear();
+            written = true;
+        }
+        if (written) {
+            logger.debug("{}", this);
+        }
+    }
+
+    /**
+     * @return true if items are waiting to be written
+     */
+    public boolean hasPendingItems() {
+        return !queue.isEmpty();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // an unhandled exception would stop the scheduled flushing
+            logger.warn("Writing pending items failed unexpectedly", e);
+        }
+    }
+
+    private void write(List<JpaPersistentItem> items) {
+        if (persist(items)) {
+            return;
+        }
+        if (items.size() == 1) {
+            failedCount.incrementAndGet();
+            return;
+        }
+        logger.debug("Writing the {} items of the failed transaction one by one", items.size());
+        for (JpaPersistentItem item : items) {
+            // an id generated by the failed transaction was rolled back
+            item.setId(null);
+            if (!persist(List.of(item))) {
+                failedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Persists items in one transaction.
+     *
+     * @return true if the transaction was committed
+     */
+    private boolean persist(List<JpaPersistentItem> items) {
+        long start = System.nanoTime();
+        EntityManager em = pool.acquire();
+        try {
+            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
+            em.getTransaction().begin();
+            for (JpaPersistentItem item : items) {
+                em.persist(item);
+            }
+            em.getTransaction().commit();
+            writtenCount.addAndGet(items.size());
+            logger.trace("Persisted {} items in {} us", items.size(), (System.nanoTime() - start) / 1000);
+            return true;
+        } catch (RuntimeException e) {
+            if (items.size() == 1) {
+                logger.error("Error on persisting item {}! Rolling back!", items.get(0), e);
+            } else {
+                logger.warn("Error on persisting {} items! Rolling back! {}", items.size(), e.getMessage());
+            }
+            return false;
+        } finally {
+            // rolls back a failed transaction
+            pool.release(em);
+            transactionCount.incrementAndGet();
+            transactionNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes all pending items.
+     */
+    public void shutdown() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+        }
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        logger.debug("Batch writer stopped: {}", this);
+    }
+
+    public JpaEntityManagerPool getEntityManagerPool() {
+        return pool;
+    }
+
+    /***********
+     * METRICS *
+     ***********/
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getTransactionCount() {
+        return transactionCount.get();
+    }
+
+    public long getAverageTransactionTime() {
+        long transactions = transactionCount.get();
+        return transactions == 0 ? 0 : transactionNanos.get() / transactions / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "JpaBatchWriter{queueDepth=" + getQueueDepth() + ", written=" + getWrittenCount() + ", failed="
+                + getFailedCount() + ", transactions=" + getTransactionCount() + ", averageTransactionTime="
+                + getAverageTransactionTime() + " us, " + pool + "}";
+    }
+}
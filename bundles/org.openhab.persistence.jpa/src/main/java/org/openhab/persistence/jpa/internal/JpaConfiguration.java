@@ -32,6 +32,11 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_BATCH_SIZE = "batchSize";
+    private static final String CFG_FLUSH_INTERVAL = "flushInterval";
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
 
     public static boolean isInitialized = false;
 
@@ -40,6 +45,8 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int batchSize;
+    public final int flushInterval;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +84,28 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        batchSize = Math.max(1, parseInt(properties, CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        logger.debug("batchSize: {}", batchSize);
+        flushInterval = Math.max(0, parseInt(properties, CFG_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL));
+        logger.debug("flushInterval: {}", flushInterval);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private int parseInt(final Map<String, Object> properties, String key, int defaultValue) {
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value == null || value.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} '{}' in jpa.cfg, using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link EntityManager}s open between stores and queries, so a new one is not created for every access.
+ *
+ * An {@link EntityManager} is not thread safe, so each one is used by one thread between {@link #acquire()} and
+ * {@link #release(EntityManager)}. Its persistence context is cleared on release, so it does not grow with the
+ * stored items.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaEntityManagerPool {
+
+    private final Logger logger = LoggerFactory.getLogger(JpaEntityManagerPool.class);
+
+    private final EntityManagerFactory emf;
+    private final int maxIdle;
+    private final Deque<EntityManager> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    // metrics
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+
+    public JpaEntityManagerPool(EntityManagerFactory emf, int maxIdle) {
+        this.emf = emf;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns an idle {@link EntityManager} or creates a new one. It must be released with
+     * {@link #release(EntityManager)}.
+     */
+    public EntityManager acquire() {
+        EntityManager em;
+        while ((em = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (em.isOpen()) {
+                reusedCount.incrementAndGet();
+                return em;
+            }
+        }
+        createdCount.incrementAndGet();
+        return emf.createEntityManager();
+    }
+
+    /**
+     * Returns an {@link EntityManager} to the pool. An active transaction is rolled back.
+     */
+    public void release(EntityManager em) {
+        if (!em.isOpen()) {
+            return;
+        }
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.clear();
+        } catch (RuntimeException e) {
+            logger.debug("Discarding entity manager: {}", e.getMessage());
+            em.close();
+            return;
+        }
+        if (closed || idleCount.incrementAndGet() > maxIdle) {
+            if (!closed) {
+                idleCount.decrementAndGet();
+            }
+            em.close();
+            return;
+        }
+        idle.offerFirst(em);
+    }
+
+    /**
+     * Closes all idle {@link EntityManager}s. Entity managers released afterwards are closed.
+     */
+    public void close() {
+        closed = true;
+        EntityManager em;
+        while ((em = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            em.close();
+        }
+        logger.debug("Entity managers closed: {}", this);
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JpaEntityManagerPool{created=" + getCreatedCount() + ", reused=" + getReusedCount() + ", idle="
+                + idleCount.get() + "}";
+    }
+}
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -23,7 +24,7 @@ import java.util.Set;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -61,7 +62,12 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
     private final ItemRegistry itemRegistry;
 
+    // bounds used for queries without begin or end date, supported by all databases
+    private static final Date MIN_DATE = Date.from(Instant.parse("1900-01-01T00:00:00Z"));
+    private static final Date MAX_DATE = Date.from(Instant.parse("9999-01-01T00:00:00Z"));
+
     private @Nullable EntityManagerFactory emf = null;
+    private @Nullable JpaBatchWriter batchWriter = null;
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
@@ -75,13 +81,33 @@ public class JpaPersistenceService implements QueryablePersistenceService {
      *
      * @return EntityManagerFactory
      */
-    protected @Nullable EntityManagerFactory getEntityManagerFactory() {
+    protected synchronized @Nullable EntityManagerFactory getEntityManagerFactory() {
         if (emf == null) {
             emf = newEntityManagerFactory();
         }
         return emf;
     }
 
+    /**
+     * lazy loading of the writer together with the EntityManagerFactory
+     *
+     * @return JpaBatchWriter
+     */
+    protected synchronized JpaBatchWriter getBatchWriter() {
+        JpaBatchWriter writer = batchWriter;
+        if (writer == null) {
+            EntityManagerFactory factory = emf;
+            if (factory == null) {
+                factory = newEntityManagerFactory();
+                emf = factory;
+            }
+            JpaEntityManagerPool pool = new JpaEntityManagerPool(factory, 4);
+            writer = new JpaBatchWriter(pool, config.batchSize, config.flushInterval);
+            batchWriter = writer;
+        }
+        return writer;
+    }
+
     @Activate
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
@@ -142,20 +168,7 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
-        EntityManager em = getEntityManagerFactory().createEntityManager();
-        try {
-            logger.debug("Persisting item...");
-            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
-            em.getTransaction().begin();
-            em.persist(pItem);
-            em.getTransaction().commit();
-            logger.debug("Persisting item...done");
-        } catch (Exception e) {
-            logger.error("Error on persisting item! Rolling back!", e);
-            em.getTransaction().rollback();
-        } finally {
-            em.close();
-        }
+        getBatchWriter().offer(pItem);
 
         logger.debug("Storing item...done");
     }
@@ -177,64 +190,42 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         String itemName = filter.getItemName();
         Item item = getItemFromRegistry(itemName);
 
-        String sortOrder;
-        if (filter.getOrdering() == Ordering.ASCENDING) {
-            sortOrder = "ASC";
-        } else {
-            sortOrder = "DESC";
-        }
+        String queryName = filter.getOrdering() == Ordering.ASCENDING ? JpaPersistentItem.QUERY_ASCENDING
+                : JpaPersistentItem.QUERY_DESCENDING;
 
-        boolean hasBeginDate = false;
-        boolean hasEndDate = false;
-        String queryString = "SELECT n FROM " + JpaPersistentItem.class.getSimpleName()
-                + " n WHERE n.realName = :itemName";
-        if (filter.getBeginDate() != null) {
-            queryString += " AND n.timestamp >= :beginDate";
-            hasBeginDate = true;
+        JpaBatchWriter writer = getBatchWriter();
+        if (writer.hasPendingItems()) {
+            // make the recently stored states visible to the query
+            writer.flush();
         }
-        if (filter.getEndDate() != null) {
-            queryString += " AND n.timestamp <= :endDate";
-            hasEndDate = true;
-        }
-        queryString += " ORDER BY n.timestamp " + sortOrder;
-
-        logger.debug("The query: {}", queryString);
 
-        EntityManager em = getEntityManagerFactory().createEntityManager();
+        JpaEntityManagerPool pool = writer.getEntityManagerPool();
+        EntityManager em = pool.acquire();
         try {
-            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
-            em.getTransaction().begin();
-
-            logger.debug("Creating query...");
-            Query query = em.createQuery(queryString);
+            logger.debug("Creating query {}...", queryName);
+            TypedQuery<JpaPersistentItem> query = em.createNamedQuery(queryName, JpaPersistentItem.class);
             query.setParameter("itemName", item.getName());
-            if (hasBeginDate) {
-                query.setParameter("beginDate", Date.from(filter.getBeginDate().toInstant()));
-            }
-            if (hasEndDate) {
-                query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
-            }
+            query.setParameter("beginDate",
+                    filter.getBeginDate() != null ? Date.from(filter.getBeginDate().toInstant()) : MIN_DATE);
+            query.setParameter("endDate",
+                    filter.getEndDate() != null ? Date.from(filter.getEndDate().toInstant()) : MAX_DATE);
 
             query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
             query.setMaxResults(filter.getPageSize());
             logger.debug("Creating query...done");
 
             logger.debug("Retrieving result list...");
-            @SuppressWarnings("unchecked")
             List<JpaPersistentItem> result = query.getResultList();
             logger.debug("Retrieving result list...done");
 
             List<HistoricItem> historicList = JpaHistoricItem.fromResultList(result, item);
             logger.debug("{}", String.format("Convert to HistoricItem: %d", historicList.size()));
 
-            em.getTransaction().commit();
-
             return historicList;
         } catch (Exception e) {
             logger.error("Error on querying database!", e);
-            em.getTransaction().rollback();
         } finally {
-            em.close();
+            pool.release(em);
         }
 
         return Collections.emptyList();
@@ -260,6 +251,8 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         if (config.dbUserName != null && config.dbPassword == null) {
             logger.warn("JPA persistence - it is recommended to use a password to protect data store");
         }
+        // send the inserts of a transaction as JDBC statement batches
+        properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + config.batchSize);
         if (config.dbSyncMapping != null && !config.dbSyncMapping.isBlank()) {
             logger.warn("You are settings openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
@@ -274,7 +267,13 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     /**
      * Closes EntityManagerFactory
      */
-    protected void closeEntityManagerFactory() {
+    protected synchronized void closeEntityManagerFactory() {
+        JpaBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.shutdown();
+            writer.getEntityManagerPool().close();
+            batchWriter = null;
+        }
         if (emf != null) {
             emf.close();
             emf = null;
@@ -22,6 +22,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -33,14 +35,26 @@ import org.openhab.core.types.UnDefType;
 /**
  * This is the DAO object used for storing and retrieving to and from database.
  *
+ * The queries are named, so their plans are prepared once by the provider and can be cached.
+ *
  * @author Manfred Bergmann - Initial contribution
  *
  */
 
 @Entity
 @Table(name = "HISTORIC_ITEM")
+@NamedQueries({
+        @NamedQuery(name = JpaPersistentItem.QUERY_ASCENDING, query = "SELECT n FROM JpaPersistentItem n"
+                + " WHERE n.realName = :itemName AND n.timestamp >= :beginDate AND n.timestamp <= :endDate"
+                + " ORDER BY n.timestamp ASC"),
+        @NamedQuery(name = JpaPersistentItem.QUERY_DESCENDING, query = "SELECT n FROM JpaPersistentItem n"
+                + " WHERE n.realName = :itemName AND n.timestamp >= :beginDate AND n.timestamp <= :endDate"
+                + " ORDER BY n.timestamp DESC") })
 public class JpaPersistentItem implements HistoricItem {
 
+    public static final String QUERY_ASCENDING = "JpaPersistentItem.findByRealNameAscending";
+    public static final String QUERY_DESCENDING = "JpaPersistentItem.findByRealNameDescending";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
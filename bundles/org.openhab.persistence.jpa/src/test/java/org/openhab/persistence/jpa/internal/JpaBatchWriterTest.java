@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaBatchWriter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class JpaBatchWriterTest {
+    private final EntityManagerFactory emf = mock(EntityManagerFactory.class);
+    private final EntityManager em = mock(EntityManager.class);
+    private final EntityTransaction transaction = mock(EntityTransaction.class);
+    // items persisted by the current transaction, and by all committed transactions
+    private final List<JpaPersistentItem> persisted = new ArrayList<>();
+    private final List<JpaPersistentItem> committed = new ArrayList<>();
+
+    private JpaBatchWriter writer;
+
+    @BeforeEach
+    public void before() {
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.isOpen()).thenReturn(true);
+        when(em.getTransaction()).thenReturn(transaction);
+        doAnswer(invocation -> persisted.add(invocation.getArgument(0))).when(em).persist(any());
+        doAnswer(invocation -> {
+            committed.addAll(persisted);
+            persisted.clear();
+            return null;
+        }).when(transaction).commit();
+        doAnswer(invocation -> {
+            persisted.clear();
+            return null;
+        }).when(transaction).begin();
+        // the periodic flush never runs during a test, the tests flush explicitly
+        writer = new JpaBatchWriter(new JpaEntityManagerPool(emf, 2), 10, 3600000);
+    }
+
+    @AfterEach
+    public void after() {
+        writer.shutdown();
+    }
+
+    private static JpaPersistentItem item(String value) {
+        JpaPersistentItem item = new JpaPersistentItem();
+        item.setRealName("item");
+        item.setValue(value);
+        return item;
+    }
+
+    @Test
+    public void pendingItemsAreWrittenInOneTransaction() {
+        writer.offer(item("1"));
+        writer.offer(item("2"));
+        writer.offer(item("3"));
+        assertTrue(writer.hasPendingItems());
+        writer.flush();
+
+        verify(transaction, times(1)).commit();
+        assertEquals(3, committed.size());
+        assertEquals(3, writer.getWrittenCount());
+        assertFalse(writer.hasPendingItems());
+        // the entity manager was reused
+        writer.offer(item("4"));
+        writer.flush();
+        verify(emf, times(1)).createEntityManager();
+    }
+
+    @Test
+    public void failedItemIsDroppedAndOthersAreWritten() {
+        JpaPersistentItem invalid = item("invalid");
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == invalid) {
+                throw new PersistenceException("value too long");
+            }
+            return persisted.add(invocation.getArgument(0));
+        }).when(em).persist(any());
+
+        writer.offer(item("1"));
+        writer.offer(invalid);
+        writer.offer(item("3"));
+        writer.flush();
+
+        // the batch and the three items on their own
+        verify(transaction, times(4)).begin();
+        assertEquals(2, committed.size());
+        assertEquals("1", committed.get(0).getValue());
+        assertEquals("3", committed.get(1).getValue());
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(1, writer.getFailedCount());
+    }
+
+    @Test
+    public void idOfFailedTransactionIsReset() {
+        JpaPersistentItem item = item("1");
+        doAnswer(invocation -> {
+            // as assigned by the provider before the commit fails
+            item.setId(42L);
+            throw new PersistenceException("connection reset");
+        }).doNothing().when(transaction).commit();
+
+        writer.offer(item);
+        writer.offer(item("2"));
+        writer.flush();
+
+        assertNull(item.getId());
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+    }
+
+    @Test
+    public void withoutFlushIntervalItemsAreWrittenImmediately() {
+        JpaBatchWriter immediateWriter = new JpaBatchWriter(new JpaEntityManagerPool(emf, 2), 10, 0);
+
+        immediateWriter.offer(item("1"));
+
+        assertFalse(immediateWriter.hasPendingItems());
+        assertEquals(1, committed.size());
+        immediateWriter.shutdown();
+    }
+}
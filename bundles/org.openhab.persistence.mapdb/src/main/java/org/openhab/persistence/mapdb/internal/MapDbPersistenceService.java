@@ -24,9 +24,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -34,6 +37,7 @@ import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -45,6 +49,7 @@ import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,40 +65,83 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class }, //
+        configurationPid = "org.openhab.mapdb", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", //
+        description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
-    private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final Path dbDir;
+    private final Path backupDir;
+    private final ScheduledExecutorService threadPool;
+
+    /** set by every store, cleared by a commit */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    /** set while a commit is scheduled and has not started yet */
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private final AtomicLong commitCount = new AtomicLong();
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
     private @NonNullByDefault({}) Map<String, String> map;
 
+    /** deserialized copy of all stored items, loaded in one pass on activation */
+    private final Map<String, MapDbItem> items = new ConcurrentHashMap<>();
+
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
 
+    public MapDbPersistenceService() {
+        this(DB_DIR, ThreadPoolManager.getScheduledPool(MapDbPersistenceService.class.getSimpleName()));
+    }
+
+    /**
+     * For testing, thus package visibility by design
+     *
+     * @param dbDir directory of the database file
+     * @param threadPool scheduler of the deferred commits
+     */
+    MapDbPersistenceService(Path dbDir, ScheduledExecutorService threadPool) {
+        this.dbDir = dbDir;
+        this.backupDir = dbDir.resolve("backup");
+        this.threadPool = threadPool;
+    }
+
     @Activate
-    public void activate() {
+    public void activate(final Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
+        Object commitIntervalValue = config.get(CONFIG_COMMIT_INTERVAL);
+        if (commitIntervalValue != null) {
+            try {
+                commitInterval = Math.max(0, Long.parseLong(commitIntervalValue.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid commitInterval '{}'", commitIntervalValue);
+            }
+        }
+
         try {
-            Files.createDirectories(DB_DIR);
+            Files.createDirectories(dbDir);
         } catch (IOException e) {
-            logger.warn("Failed to create one or more directories in the path '{}'", DB_DIR);
+            logger.warn("Failed to create one or more directories in the path '{}'", dbDir);
             logger.warn("MapDB persistence service activation has failed.");
             return;
         }
 
-        File dbFile = DB_DIR.resolve(DB_FILE_NAME).toFile();
+        File dbFile = dbDir.resolve(DB_FILE_NAME).toFile();
         try {
             db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
             map = db.createTreeMap("itemStore").makeOrGet();
@@ -106,24 +154,24 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                         dbFile, OpenHAB.getVersion(), cnf.getMessage());
 
                 try {
-                    Files.createDirectories(BACKUP_DIR);
+                    Files.createDirectories(backupDir);
                 } catch (IOException ioe) {
-                    logger.warn("Failed to create one or more directories in the path '{}'", BACKUP_DIR);
+                    logger.warn("Failed to create one or more directories in the path '{}'", backupDir);
                     logger.warn("MapDB persistence service activation has failed.");
                     return;
                 }
 
-                try (DirectoryStream<Path> stream = Files.newDirectoryStream(DB_DIR)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dbDir)) {
                     long epochMilli = Instant.now().toEpochMilli();
                     for (Path path : stream) {
                         if (!Files.isDirectory(path)) {
-                            Path newPath = BACKUP_DIR.resolve(epochMilli + "--" + path.getFileName());
+                            Path newPath = backupDir.resolve(epochMilli + "--" + path.getFileName());
                             Files.move(path, newPath);
                             logger.info("Moved incompatible MapDB file '{}' to '{}'", path, newPath);
                         }
                     }
                 } catch (IOException ioe) {
-                    logger.warn("Failed to read files from '{}': {}", DB_DIR, ioe.getMessage());
+                    logger.warn("Failed to read files from '{}': {}", dbDir, ioe.getMessage());
                     logger.warn("MapDB persistence service activation has failed.");
                     return;
                 }
@@ -135,6 +183,9 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                 logger.warn("MapDB persistence service activation has failed.");
             }
         }
+        if (map != null) {
+            loadItems();
+        }
         logger.debug("MapDB persistence service is now activated");
     }
 
@@ -142,8 +193,23 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
         if (db != null) {
+            commit();
             db.close();
         }
+        items.clear();
+    }
+
+    /**
+     * Reads all stored items in a single pass over the item store, so that restoring many items on startup does not
+     * look up and deserialize every item on its own.
+     */
+    private void loadItems() {
+        long start = System.currentTimeMillis();
+        items.clear();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            deserialize(entry.getValue()).ifPresent(item -> items.put(entry.getKey(), item));
+        }
+        logger.debug("Loaded {} items from MapDB in {} ms", items.size(), System.currentTimeMillis() - start);
     }
 
     @Override
@@ -158,8 +224,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        return items.values().stream().collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
     @Override
@@ -184,7 +249,8 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setTimestamp(new Date());
         String json = serialize(mItem);
         map.put(localAlias, json);
-        commit();
+        items.put(localAlias, mItem);
+        scheduleCommit();
         if (logger.isDebugEnabled()) {
             logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
         }
@@ -192,12 +258,8 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
-            return List.of();
-        }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
+        MapDbItem item = items.get(filter.getItemName());
+        return item != null ? List.of(item) : List.of();
     }
 
     private String serialize(MapDbItem item) {
@@ -217,12 +279,33 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
-    private void commit() {
-        threadPool.submit(() -> db.commit());
+    /**
+     * Schedules a commit unless one is already scheduled. All stores until the commit starts are committed together,
+     * so a burst of state changes causes a single commit at most {@code commitInterval} milliseconds later. With a
+     * {@code commitInterval} of 0 every store is committed at once.
+     */
+    private void scheduleCommit() {
+        dirty.set(true);
+        if (commitInterval == 0) {
+            commit();
+        } else if (commitScheduled.compareAndSet(false, true)) {
+            threadPool.schedule(this::commit, commitInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void commit() {
+        commitScheduled.set(false);
+        if (dirty.getAndSet(false)) {
+            db.commit();
+            commitCount.incrementAndGet();
+        }
     }
 
-    private static <T> Stream<T> streamOptional(Optional<T> opt) {
-        return opt.isPresent() ? Stream.of(opt.get()) : Stream.empty();
+    /**
+     * @return the number of commits written to the database file
+     */
+    long getCommitCount() {
+        return commitCount.get();
     }
 
     @Override
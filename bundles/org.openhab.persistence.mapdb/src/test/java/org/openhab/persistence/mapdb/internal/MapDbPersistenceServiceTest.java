@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Tests the deferred commits of the {@link MapDbPersistenceService}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbPersistenceServiceTest {
+
+    private @TempDir Path dbDir;
+    private final ScheduledExecutorService threadPool = mock(ScheduledExecutorService.class);
+    private final List<MapDbPersistenceService> services = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        services.forEach(MapDbPersistenceService::deactivate);
+    }
+
+    private MapDbPersistenceService activate(Map<String, Object> config) {
+        MapDbPersistenceService service = new MapDbPersistenceService(dbDir, threadPool);
+        service.activate(config);
+        services.add(service);
+        return service;
+    }
+
+    private static StringItem item(String name, String state) {
+        StringItem item = new StringItem(name);
+        item.setState(new StringType(state));
+        return item;
+    }
+
+    private static String query(MapDbPersistenceService service, String itemName) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(itemName);
+        List<String> states = new ArrayList<>();
+        for (HistoricItem historicItem : service.query(filter)) {
+            states.add(historicItem.getState().toString());
+        }
+        assertEquals(1, states.size());
+        return states.get(0);
+    }
+
+    @Test
+    public void storesWithinTheIntervalAreCommittedTogether() {
+        MapDbPersistenceService service = activate(Map.of("commitInterval", "500"));
+
+        service.store(item("first", "a"));
+        service.store(item("second", "b"));
+        service.store(item("first", "c"));
+
+        ArgumentCaptor<Runnable> commit = ArgumentCaptor.forClass(Runnable.class);
+        verify(threadPool).schedule(commit.capture(), eq(500L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(0, service.getCommitCount());
+
+        commit.getValue().run();
+        assertEquals(1, service.getCommitCount());
+
+        // the next store schedules the next commit
+        service.store(item("second", "d"));
+        verify(threadPool, times(2)).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void queryReturnsStatesWhichAreNotCommittedYet() {
+        MapDbPersistenceService service = activate(Map.of());
+
+        service.store(item("item", "a"));
+
+        assertEquals(0, service.getCommitCount());
+        assertEquals("a", query(service, "item"));
+    }
+
+    @Test
+    public void deactivateCommitsPendingStates() {
+        MapDbPersistenceService service = activate(Map.of());
+        service.store(item("item", "a"));
+
+        service.deactivate();
+        services.remove(service);
+        assertEquals(1, service.getCommitCount());
+
+        assertEquals("a", query(activate(Map.of()), "item"));
+    }
+
+    @Test
+    public void zeroIntervalCommitsEveryStore() {
+        MapDbPersistenceService service = activate(Map.of("commitInterval", "0"));
+
+        service.store(item("item", "a"));
+        assertEquals(1, service.getCommitCount());
+        service.store(item("item", "b"));
+        assertEquals(2, service.getCommitCount());
+
+        verifyNoInteractions(threadPool);
+    }
+}
@@ -17,14 +17,17 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -82,6 +85,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
 
+    private static final String INDEX_NAME = "item_timestamp";
+    // only the fields needed to create a MongoDBItem are read
+    private static final DBObject QUERY_FIELDS = new BasicDBObject(FIELD_ID, 0).append(FIELD_TIMESTAMP, 1)
+            .append(FIELD_VALUE, 1);
+    private static final int MAX_PAGE_CURSORS = 100;
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
     private @NonNullByDefault({}) String url;
@@ -95,6 +104,37 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private @NonNullByDefault({}) MongoClient cl;
     private @NonNullByDefault({}) DBCollection mongoCollection;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
+    private int batchSize = 1;
+    private int flushInterval = 1000;
+    private @Nullable MongoDBWriteQueue writeQueue;
+
+    /**
+     * Timestamp after which the next page of a query starts, together with the number of documents with this timestamp
+     * which are on previous pages
+     */
+    private static class PageCursor {
+        private final Date timestamp;
+        private final int ties;
+
+        private PageCursor(Date timestamp, int ties) {
+            this.timestamp = timestamp;
+            this.ties = ties;
+        }
+    }
+
+    // cursors of the next pages of recent queries, so paging through a query doesn't need to skip all previous pages.
+    // They only exist in this instance and only for pages whose previous page was queried, other pages are skipped to.
+    private final Map<String, PageCursor> pageCursors = Collections
+            .synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.@Nullable Entry<String, PageCursor> eldest) {
+                    return size() > MAX_PAGE_CURSORS;
+                }
+            });
+
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -121,17 +161,40 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
                     "The MongoDB database collection is missing - please configure the mongodb:collection parameter.");
             return;
         }
+        batchSize = Math.max(1, getIntConfig(config, "batchSize", batchSize));
+        flushInterval = Math.max(100, getIntConfig(config, "flushInterval", flushInterval));
+        logger.debug("MongoDB batchSize {}, flushInterval {} ms", batchSize, flushInterval);
 
         disconnectFromDatabase();
         connectToDatabase();
+        if (batchSize > 1) {
+            writeQueue = new MongoDBWriteQueue(() -> mongoCollection, scheduler, batchSize, flushInterval);
+        }
 
         // connection has been established... initialization completed!
         initialized = true;
     }
 
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid {} '{}'", key, value);
+            }
+        }
+        return defaultValue;
+    }
+
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        MongoDBWriteQueue currentWriteQueue = writeQueue;
+        if (currentWriteQueue != null) {
+            currentWriteQueue.shutdown();
+            writeQueue = null;
+        }
         disconnectFromDatabase();
     }
 
@@ -181,7 +244,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         obj.put(FIELD_REALNAME, realName);
         obj.put(FIELD_TIMESTAMP, new Date());
         obj.put(FIELD_VALUE, value);
-        this.mongoCollection.save(obj);
+
+        MongoDBWriteQueue currentWriteQueue = writeQueue;
+        if (currentWriteQueue == null || !currentWriteQueue.offer(obj)) {
+            // no buffering, or the queue was shut down meanwhile
+            this.mongoCollection.insert(obj);
+        }
 
         logger.debug("MongoDB save {}={}", name, value);
     }
@@ -231,9 +299,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             this.cl = new MongoClient(new MongoClientURI(this.url));
             mongoCollection = cl.getDB(this.db).getCollection(this.collection);
 
+            // item first, so a query of an item is one index range which is already ordered by timestamp
             BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
-            this.mongoCollection.createIndex(idx);
+            idx.append(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1);
+            this.mongoCollection.createIndex(idx, INDEX_NAME);
             logger.debug("Connect MongoDB ... done");
         } catch (Exception e) {
             logger.error("Failed to connect to database {}", this.url);
@@ -266,6 +335,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return Collections.emptyList();
         }
 
+        // make buffered states visible to the query
+        MongoDBWriteQueue currentWriteQueue = writeQueue;
+        if (currentWriteQueue != null) {
+            currentWriteQueue.flush();
+        }
+
         String name = filter.getItemName();
         Item item = getItem(name);
 
@@ -279,45 +354,87 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             Object value = convertValue(filter.getState());
             query.put(FIELD_VALUE, new BasicDBObject(op, value));
         }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$gte", filter.getBeginDate()));
+        BasicDBObject timestampRange = new BasicDBObject();
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate != null) {
+            timestampRange.put("$gte", Date.from(beginDate.toInstant()));
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        if (endDate != null) {
+            timestampRange.put("$lte", Date.from(endDate.toInstant()));
         }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$lte", filter.getBeginDate()));
+
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        int pageSize = filter.getPageSize();
+        int pageNumber = filter.getPageNumber();
+        String cursorKey = getPageCursorKey(filter);
+        PageCursor pageCursor = pageNumber > 0 ? pageCursors.get(cursorKey + pageNumber) : null;
+        int skip;
+        if (pageCursor != null) {
+            // keyset paging: start at the last timestamp of the previous page instead of skipping all previous pages
+            timestampRange.put(ascending ? "$gte" : "$lte", pageCursor.timestamp);
+            skip = pageCursor.ties;
+        } else {
+            skip = pageNumber * pageSize;
+        }
+        if (!timestampRange.isEmpty()) {
+            query.put(FIELD_TIMESTAMP, timestampRange);
         }
 
-        Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
-        DBCursor cursor = this.mongoCollection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
-                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize());
-
-        while (cursor.hasNext()) {
-            BasicDBObject obj = (BasicDBObject) cursor.next();
-
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
-            } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
+        @Nullable Date lastTimestamp = null;
+        int ties = 0;
+        try (DBCursor cursor = this.mongoCollection.find(query, QUERY_FIELDS)
+                .sort(new BasicDBObject(FIELD_TIMESTAMP, ascending ? 1 : -1)).skip(skip).limit(pageSize)) {
+            while (cursor.hasNext()) {
+                BasicDBObject obj = (BasicDBObject) cursor.next();
+
+                final State state;
+                if (item instanceof NumberItem) {
+                    state = new DecimalType(obj.getDouble(FIELD_VALUE));
+                } else if (item instanceof DimmerItem) {
+                    state = new PercentType(obj.getInt(FIELD_VALUE));
+                } else if (item instanceof SwitchItem) {
+                    state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
+                } else if (item instanceof ContactItem) {
+                    state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
+                } else if (item instanceof RollershutterItem) {
+                    state = new PercentType(obj.getInt(FIELD_VALUE));
+                } else if (item instanceof DateTimeItem) {
+                    state = new DateTimeType(
+                            ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+                } else {
+                    state = new StringType(obj.getString(FIELD_VALUE));
+                }
+
+                Date timestamp = obj.getDate(FIELD_TIMESTAMP);
+                if (timestamp.equals(lastTimestamp)) {
+                    ties++;
+                } else {
+                    lastTimestamp = timestamp;
+                    ties = 1;
+                }
+                items.add(new MongoDBItem(name, state,
+                        ZonedDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault())));
             }
+        }
 
-            items.add(new MongoDBItem(name, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+        if (lastTimestamp != null && pageSize != Integer.MAX_VALUE && items.size() == pageSize) {
+            if (pageCursor != null && pageCursor.timestamp.equals(lastTimestamp)) {
+                // the whole page has the timestamp of the previous page's cursor
+                ties += pageCursor.ties;
+            }
+            pageCursors.put(cursorKey + (pageNumber + 1), new PageCursor(lastTimestamp, ties));
         }
 
         return items;
     }
 
+    private String getPageCursorKey(FilterCriteria filter) {
+        return filter.getItemName() + "|" + filter.getBeginDate() + "|" + filter.getEndDate() + "|"
+                + filter.getOperator() + "|" + filter.getState() + "|" + filter.getOrdering() + "|"
+                + filter.getPageSize() + "|";
+    }
+
     private @Nullable String convertOperator(Operator operator) {
         switch (operator) {
             case EQ:
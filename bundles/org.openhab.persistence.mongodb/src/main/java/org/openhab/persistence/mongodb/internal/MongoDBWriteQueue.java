@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.InsertOptions;
+import com.mongodb.MongoException;
+
+/**
+ * Buffers documents, which are inserted with one request once {@code batchSize} documents are pending or at the latest
+ * after {@code flushInterval} milliseconds.
+ *
+ * If an insert fails, the documents are kept and inserted again with the next batch, which is tried after
+ * {@code flushInterval} milliseconds. At most {@value #MAX_PENDING_BATCHES} batches are kept, the oldest documents
+ * are dropped beyond. Once the queue is shut down, it rejects further documents, which the caller inserts itself.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBWriteQueue {
+    static final int MAX_PENDING_BATCHES = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(MongoDBWriteQueue.class);
+
+    private final Supplier<@Nullable DBCollection> collection;
+    private final ScheduledExecutorService scheduler;
+    private final int batchSize;
+    private final int flushInterval;
+    private final int maxPending;
+
+    private final List<DBObject> pendingDocuments = new ArrayList<>();
+    private @Nullable ScheduledFuture<?> flushJob;
+    // the last insert failed, pending documents wait for the next try instead of being inserted immediately
+    private boolean failing = false;
+    private boolean shutdown = false;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public MongoDBWriteQueue(Supplier<@Nullable DBCollection> collection, ScheduledExecutorService scheduler,
+            int batchSize, int flushInterval) {
+        this.collection = collection;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxPending = batchSize * MAX_PENDING_BATCHES;
+    }
+
+    /**
+     * Adds a document to the next batch.
+     *
+     * @return false if the queue is shut down and the document was not added
+     */
+    public boolean offer(DBObject document) {
+        synchronized (pendingDocuments) {
+            if (shutdown) {
+                return false;
+            }
+            pendingDocuments.add(document);
+            if (pendingDocuments.size() >= batchSize && !failing) {
+                cancelFlushJob();
+                scheduler.execute(this::flush);
+            } else if (flushJob == null) {
+                flushJob = scheduler.schedule(this::flush, flushInterval, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Inserts all pending documents with a single request.
+     */
+    public synchronized void flush() {
+        List<DBObject> documents;
+        synchronized (pendingDocuments) {
+            cancelFlushJob();
+            if (pendingDocuments.isEmpty()) {
+                return;
+            }
+            documents = new ArrayList<>(pendingDocuments);
+            pendingDocuments.clear();
+        }
+        DBCollection currentCollection = collection.get();
+        if (currentCollection == null) {
+            logger.warn("mongodb: No connection to database. Keeping {} buffered states.", documents.size());
+            retry(documents);
+            return;
+        }
+        try {
+            // documents which are already stored by a previous, partly failed insert don't stop the others
+            currentCollection.insert(documents, new InsertOptions().continueOnError(true));
+            logger.debug("MongoDB inserted {} documents", documents.size());
+        } catch (DuplicateKeyException e) {
+            logger.debug("MongoDB inserted {} documents, some were already stored", documents.size());
+        } catch (MongoException e) {
+            logger.warn("mongodb: Failed to insert {} buffered states, retrying: {}", documents.size(),
+                    e.getMessage());
+            retry(documents);
+            return;
+        }
+        synchronized (pendingDocuments) {
+            failing = false;
+        }
+    }
+
+    /**
+     * Inserts the pending documents a last time, documents which cannot be inserted are dropped. Documents offered
+     * afterwards are rejected.
+     */
+    public void shutdown() {
+        synchronized (pendingDocuments) {
+            shutdown = true;
+        }
+        flush();
+        synchronized (pendingDocuments) {
+            cancelFlushJob();
+            if (!pendingDocuments.isEmpty()) {
+                logger.warn("mongodb: Dropping {} buffered states which could not be inserted.",
+                        pendingDocuments.size());
+                droppedCount.addAndGet(pendingDocuments.size());
+                pendingDocuments.clear();
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    int getPendingCount() {
+        synchronized (pendingDocuments) {
+            return pendingDocuments.size();
+        }
+    }
+
+    private void retry(List<DBObject> documents) {
+        synchronized (pendingDocuments) {
+            // keep the order, the failed documents are older than the ones added meanwhile
+            pendingDocuments.addAll(0, documents);
+            int dropped = pendingDocuments.size() - maxPending;
+            if (dropped > 0) {
+                logger.warn("mongodb: Dropping {} oldest buffered states, too many states are waiting.", dropped);
+                pendingDocuments.subList(0, dropped).clear();
+                droppedCount.addAndGet(dropped);
+            }
+            failing = true;
+            if (flushJob == null && !shutdown) {
+                flushJob = scheduler.schedule(this::flush, flushInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void cancelFlushJob() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.InsertOptions;
+import com.mongodb.MongoException;
+
+/**
+ * Tests the {@link MongoDBWriteQueue}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MongoDBWriteQueueTest {
+    private static final int BATCH_SIZE = 3;
+
+    private final DBCollection collection = mock(DBCollection.class);
+    // batches are only inserted when a test flushes explicitly
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    // values of the inserted documents
+    private final List<Object> inserted = new ArrayList<>();
+
+    private final MongoDBWriteQueue queue = new MongoDBWriteQueue(() -> collection, scheduler, BATCH_SIZE, 1000);
+
+    private static DBObject document(int value) {
+        return new BasicDBObject("value", value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object insert(InvocationOnMock invocation) {
+        for (DBObject document : (List<DBObject>) invocation.getArgument(0)) {
+            inserted.add(document.get("value"));
+        }
+        return null;
+    }
+
+    private static MongoException unreachable() {
+        return new MongoException("connection refused");
+    }
+
+    @Test
+    public void pendingDocumentsAreInsertedWithOneRequest() {
+        doAnswer(this::insert).when(collection).insert(anyList(), any(InsertOptions.class));
+
+        queue.offer(document(1));
+        queue.offer(document(2));
+        verify(scheduler, never()).execute(any());
+        queue.offer(document(3));
+        verify(scheduler).execute(any());
+        queue.flush();
+
+        verify(collection, times(1)).insert(anyList(), any(InsertOptions.class));
+        assertEquals(List.of(1, 2, 3), inserted);
+    }
+
+    @Test
+    public void failedInsertIsRetriedWithTheNextBatch() {
+        doThrow(unreachable()).doAnswer(this::insert).when(collection).insert(anyList(), any(InsertOptions.class));
+
+        queue.offer(document(1));
+        queue.offer(document(2));
+        queue.flush();
+        assertTrue(inserted.isEmpty());
+        assertEquals(2, queue.getPendingCount());
+
+        queue.offer(document(3));
+        queue.flush();
+        assertEquals(List.of(1, 2, 3), inserted);
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void failingInsertKeepsAtMostMaxPendingBatches() {
+        doThrow(unreachable()).when(collection).insert(anyList(), any(InsertOptions.class));
+        int max = BATCH_SIZE * MongoDBWriteQueue.MAX_PENDING_BATCHES;
+
+        for (int i = 0; i < max; i++) {
+            queue.offer(document(i));
+        }
+        queue.flush();
+        queue.offer(document(max));
+        queue.flush();
+
+        assertEquals(max, queue.getPendingCount());
+        assertEquals(1, queue.getDroppedCount());
+
+        doAnswer(this::insert).when(collection).insert(anyList(), any(InsertOptions.class));
+        queue.flush();
+        // the oldest document was dropped
+        assertEquals(1, inserted.get(0));
+        assertEquals(max, inserted.get(inserted.size() - 1));
+    }
+
+    @Test
+    public void alreadyStoredDocumentsAreNotRetried() {
+        doThrow(mock(DuplicateKeyException.class)).when(collection).insert(anyList(), any(InsertOptions.class));
+
+        queue.offer(document(1));
+        queue.flush();
+
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void missingConnectionKeepsDocuments() {
+        MongoDBWriteQueue queue = new MongoDBWriteQueue(() -> null, scheduler, BATCH_SIZE, 1000);
+
+        queue.offer(document(1));
+        queue.flush();
+        assertEquals(1, queue.getPendingCount());
+
+        queue.shutdown();
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void shutdownInsertsPendingDocumentsAndRejectsLaterDocuments() {
+        doAnswer(this::insert).when(collection).insert(anyList(), any(InsertOptions.class));
+
+        assertTrue(queue.offer(document(1)));
+        queue.shutdown();
+        assertEquals(List.of(1), inserted);
+
+        assertFalse(queue.offer(document(2)));
+        assertEquals(0, queue.getPendingCount());
+        verify(collection, times(1)).insert(anyList(), any(InsertOptions.class));
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link RrdDb}s open between stores and queries, so the file is not opened and its header parsed on every
+ * access. Each database has its own lock, so different items are stored in parallel. Databases which have not been
+ * used for a while are closed by {@link #evictIdle(long)}.
+ *
+ * A handle also buffers samples which have not been written to its database yet.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPool {
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private final Consumer<Handle> beforeClose;
+
+    /**
+     * @param beforeClose called with the locked handle before its database is closed
+     */
+    public RRD4jDbPool(Consumer<Handle> beforeClose) {
+        this.beforeClose = beforeClose;
+    }
+
+    /**
+     * Opens or creates a database.
+     */
+    @FunctionalInterface
+    public interface DbOpener {
+        @Nullable
+        RrdDb open(String name) throws IOException;
+    }
+
+    /**
+     * Writes a buffered sample to a database.
+     */
+    @FunctionalInterface
+    public interface SampleWriter {
+        /**
+         * @return whether the sample was written, <code>false</code> if the database rejected it
+         * @throws IOException if the sample could not be written and should be written later
+         */
+        boolean write(long time, double value) throws IOException;
+    }
+
+    /**
+     * An open database together with its lock and usage statistics. A handle returned by
+     * {@link RRD4jDbPool#acquire(String, DbOpener)} is locked and must be released with {@link #release()}.
+     */
+    public static class Handle {
+        private final String name;
+        private final RrdDb db;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean closed = false;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private boolean modified = false;
+        private final SortedMap<Long, Double> pendingSamples = new TreeMap<>();
+        private final AtomicLong droppedSamples = new AtomicLong();
+
+        private final AtomicLong storeCount = new AtomicLong();
+        private final AtomicLong storeNanos = new AtomicLong();
+        private final AtomicLong queryCount = new AtomicLong();
+        private final AtomicLong queryNanos = new AtomicLong();
+
+        private Handle(String name, RrdDb db) {
+            this.name = name;
+            this.db = db;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RrdDb getDb() {
+            return db;
+        }
+
+        /**
+         * Buffers a sample, replacing a buffered sample of the same second.
+         */
+        public void addSample(long time, double value) {
+            pendingSamples.put(time, value);
+        }
+
+        /**
+         * Writes the buffered samples ordered by time and removes them from the buffer. Samples the writer rejects are
+         * dropped and counted. If a sample cannot be written because of an I/O error, it and all later samples stay
+         * buffered for the next flush.
+         *
+         * @throws IOException if a sample could not be written
+         */
+        public void flushSamples(SampleWriter writer) throws IOException {
+            Iterator<Map.Entry<Long, Double>> samples = pendingSamples.entrySet().iterator();
+            while (samples.hasNext()) {
+                Map.Entry<Long, Double> sample = samples.next();
+                if (!writer.write(sample.getKey(), sample.getValue())) {
+                    droppedSamples.incrementAndGet();
+                }
+                samples.remove();
+            }
+        }
+
+        /**
+         * @return the number of buffered samples which have not been written yet
+         */
+        public int getPendingSampleCount() {
+            return pendingSamples.size();
+        }
+
+        /**
+         * @return the number of buffered samples which were dropped because the database rejected them
+         */
+        public long getDroppedSampleCount() {
+            return droppedSamples.get();
+        }
+
+        /**
+         * Whether the database was updated since the flag was last cleared.
+         */
+        public boolean isModified() {
+            return modified;
+        }
+
+        public void setModified(boolean modified) {
+            this.modified = modified;
+        }
+
+        public void release() {
+            lastAccess = System.currentTimeMillis();
+            lock.unlock();
+        }
+
+        public void recordStore(long startNanos) {
+            storeCount.incrementAndGet();
+            storeNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+
+        public void recordQuery(long startNanos) {
+            queryCount.incrementAndGet();
+            queryNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+
+        @Override
+        public String toString() {
+            long stores = storeCount.get();
+            long queries = queryCount.get();
+            return name + ": stores = " + stores + " (avg "
+                    + (stores == 0 ? 0 : storeNanos.get() / stores / 1000) + " us), queries = " + queries
+                    + " (avg " + (queries == 0 ? 0 : queryNanos.get() / queries / 1000) + " us), dropped samples = "
+                    + droppedSamples.get();
+        }
+    }
+
+    /**
+     * Returns the locked handle of a database, opening it if it is not in the pool yet.
+     *
+     * @param name the name of the database
+     * @param opener opens the database if it is not in the pool
+     * @return the locked handle or <code>null</code> if the database could not be opened
+     */
+    public @Nullable Handle acquire(String name, DbOpener opener) throws IOException {
+        while (true) {
+            Handle handle;
+            try {
+                // opening is done within computeIfAbsent, so a new database file is never created twice
+                handle = handles.computeIfAbsent(name, n -> {
+                    try {
+                        RrdDb db = opener.open(n);
+                        return db == null ? null : new Handle(n, db);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (handle == null) {
+                return null;
+            }
+            handle.lock.lock();
+            if (!handle.closed) {
+                return handle;
+            }
+            // closed while waiting for the lock, the database file is closed now and can be opened again
+            handles.remove(name, handle);
+            handle.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all databases which have not been accessed within the given time.
+     *
+     * @param idleMillis the idle time in milliseconds
+     */
+    public void evictIdle(long idleMillis) {
+        long now = System.currentTimeMillis();
+        for (Handle handle : handles.values()) {
+            if (now - handle.lastAccess > idleMillis && handle.lock.tryLock()) {
+                try {
+                    if (now - handle.lastAccess > idleMillis) {
+                        close(handle);
+                    }
+                } finally {
+                    handle.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the given action for every open database while holding its lock.
+     */
+    public void forEach(Consumer<Handle> action) {
+        for (Handle handle : handles.values()) {
+            handle.lock.lock();
+            try {
+                if (!handle.closed) {
+                    action.accept(handle);
+                }
+            } finally {
+                handle.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes all databases.
+     */
+    public void closeAll() {
+        for (Handle handle : handles.values()) {
+            handle.lock.lock();
+            try {
+                close(handle);
+            } finally {
+                handle.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        return handles.size();
+    }
+
+    public Iterable<Handle> getHandles() {
+        return handles.values();
+    }
+
+    /**
+     * Closes a database. The caller must hold the lock of the handle. The handle stays in the pool until the database
+     * is closed, so a concurrent {@link #acquire(String, DbOpener)} waits for the lock instead of opening the file a
+     * second time while it is still being flushed.
+     */
+    private void close(Handle handle) {
+        handle.closed = true;
+        logger.debug("Closing rrd4j database {}", handle);
+        try {
+            beforeClose.accept(handle);
+        } catch (RuntimeException e) {
+            logger.warn("Error flushing rrd4j database {}: {}", handle.name, e.getMessage());
+        }
+        try {
+            handle.db.close();
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        } finally {
+            handles.remove(handle.name, handle);
+        }
+    }
+}
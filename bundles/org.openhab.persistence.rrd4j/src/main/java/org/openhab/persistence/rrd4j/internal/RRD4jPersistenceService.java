@@ -18,7 +18,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -67,14 +66,19 @@ import org.openhab.core.types.State;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdMemoryBackendFactory;
+import org.rrd4j.core.RrdNioBackendFactory;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,8 +93,8 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - remove TimerThread dependency
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
@@ -111,7 +115,30 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    private static final String OPTION_IDLE_TIMEOUT = "idleTimeout";
+    private static final String OPTION_BACKEND = "backend";
+    private static final String OPTION_SYNC_PERIOD = "syncPeriod";
+    private static final String OPTION_FLUSH_INTERVAL = "flushInterval";
+    private static final Set<String> SERVICE_OPTIONS = Set.of(OPTION_IDLE_TIMEOUT, OPTION_BACKEND,
+            OPTION_SYNC_PERIOD, OPTION_FLUSH_INTERVAL);
+
+    private static final long DEFAULT_IDLE_TIMEOUT = 300;
+
+    private enum Backend {
+        FILE,
+        NIO,
+        MEMORY
+    }
+
+    private final Map<String, ScheduledFuture<?>> scheduledJobs = new ConcurrentHashMap<>();
+
+    private final RRD4jDbPool dbPool = new RRD4jDbPool(this::beforeClose);
+
+    private final List<ScheduledFuture<?>> serviceJobs = new ArrayList<>();
+
+    private volatile Backend backend = Backend.NIO;
+    private volatile RrdBackendFactory backendFactory = new RrdNioBackendFactory();
+    private volatile long flushInterval = 0;
 
     protected final ItemRegistry itemRegistry;
 
@@ -131,40 +158,21 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
+        RRD4jDbPool.Handle handle = getDB(name);
+        if (handle == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            RrdDb db = handle.getDb();
             long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
-                try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
-                }
-            }
             try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
                 Double value = null;
 
                 if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
@@ -194,18 +202,21 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                                                                                           // adjusted by stepsize
                         value = value * db.getRrdDef().getStep();
                     }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
+                    if (flushInterval > 0) {
+                        // a later value within the same second replaces the buffered one
+                        handle.addSample(now, value);
+                        logger.trace("Buffered '{}' as value '{}' for rrd4j database", name, value);
+                    } else {
+                        updateDB(handle, name, now, value);
+                    }
                 }
             } catch (IllegalArgumentException e) {
                 String message = e.getMessage();
                 if (message != null && message.contains("at least one second step is required")) {
                     // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
+                    ScheduledFuture<?> job = scheduledJobs.remove(name);
                     if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
+                        job.cancel(false);
                     }
                     job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
                     scheduledJobs.put(name, job);
@@ -215,12 +226,109 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             } catch (Exception e) {
                 logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             }
+            handle.recordStore(startNanos);
+        } finally {
+            handle.release();
+        }
+    }
+
+    /**
+     * Writes a sample to the database of the given locked handle.
+     */
+    private void updateDB(RRD4jDbPool.Handle handle, String name, long time, double value) throws IOException {
+        RrdDb db = handle.getDb();
+        if (getConsolidationFunction(db) != ConsolFun.AVERAGE) {
             try {
-                db.close();
+                // we store the last value again, so that the value change
+                // in the database is not interpolated, but
+                // happens right at this spot
+                if (time - 1 > db.getLastUpdateTime()) {
+                    // only do it if there is not already a value
+                    double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                    if (!Double.isNaN(lastValue)) {
+                        Sample sample = db.createSample();
+                        sample.setTime(time - 1);
+                        sample.setValue(DATASOURCE_STATE, lastValue);
+                        sample.update();
+                        logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
+                    }
+                }
             } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+                logger.debug("Error storing last value (again): {}", e.getMessage());
             }
         }
+        Sample sample = db.createSample();
+        sample.setTime(time);
+        sample.setValue(DATASOURCE_STATE, value);
+        sample.update();
+        handle.setModified(true);
+        logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
+    }
+
+    /**
+     * Writes the buffered samples of the given locked handle to its database. Samples which could not be written
+     * because of an I/O error stay buffered, samples the database rejects are dropped.
+     */
+    private void flushSamples(RRD4jDbPool.Handle handle) {
+        String name = handle.getName();
+        try {
+            handle.flushSamples((time, value) -> {
+                try {
+                    updateDB(handle, name, time, value);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Dropped buffered value '{}' of '{}' rejected by rrd4j database: {}", value, name,
+                            e.getMessage());
+                    return false;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not persist '{}' to rrd4j database, {} buffered values are written later: {}", name,
+                    handle.getPendingSampleCount(), e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the in-memory copy of a database back to its file, if the memory backend is used.
+     */
+    private void syncDB(RRD4jDbPool.Handle handle) {
+        if (backend != Backend.MEMORY || !handle.isModified()) {
+            return;
+        }
+        File file = getFile(handle.getName());
+        RrdBackendFactory fileFactory = new RrdRandomAccessFileBackendFactory();
+        try {
+            RrdDb db = handle.getDb();
+            RrdDb fileDb = file.exists() ? new RrdDb(file.getAbsolutePath(), fileFactory)
+                    : new RrdDb(db.getRrdDef(), fileFactory);
+            try {
+                db.copyStateTo(fileDb);
+            } finally {
+                fileDb.close();
+            }
+            handle.setModified(false);
+            logger.trace("Written rrd4j database '{}' to file", handle.getName());
+        } catch (IOException e) {
+            logger.warn("Could not write rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the buffered samples and the in-memory copy of a database to its file, periodically while it stays open.
+     * Samples which could not be written stay buffered for the next sync.
+     */
+    private void syncSamples(RRD4jDbPool.Handle handle) {
+        flushSamples(handle);
+        syncDB(handle);
+    }
+
+    private void beforeClose(RRD4jDbPool.Handle handle) {
+        flushSamples(handle);
+        if (handle.getPendingSampleCount() > 0) {
+            logger.warn("Dropped {} buffered values of '{}' which could not be written before closing the database",
+                    handle.getPendingSampleCount(), handle.getName());
+        }
+        syncDB(handle);
     }
 
     @Override
@@ -232,11 +340,24 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         String itemName = filter.getItemName();
 
-        RrdDb db = getDB(itemName);
-        if (db == null) {
+        RRD4jDbPool.Handle handle = getDB(itemName);
+        if (handle == null) {
             logger.debug("Could not find item '{}' in rrd4j database", itemName);
             return List.of();
         }
+        long startNanos = System.nanoTime();
+        try {
+            // buffered samples have to be part of the result
+            flushSamples(handle);
+            return query(filter, handle.getDb());
+        } finally {
+            handle.recordQuery(startNanos);
+            handle.release();
+        }
+    }
+
+    private Iterable<HistoricItem> query(FilterCriteria filter, RrdDb db) {
+        String itemName = filter.getItemName();
 
         Item item = null;
         Unit<?> unit = null;
@@ -308,18 +429,65 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Fetches the values of an item from its pooled database, including the buffered samples, e.g. to draw a chart.
+     *
+     * @param itemName the name of the item
+     * @param start the start of the period in seconds since the epoch
+     * @param end the end of the period in seconds since the epoch
+     * @return the values or <code>null</code> if there is no database for the item
+     * @throws IOException if the values could not be read
+     */
+    public @Nullable FetchData fetchData(String itemName, long start, long end) throws IOException {
+        if (!getFile(itemName).exists()) {
+            // never create a database for a chart
+            return null;
+        }
+        RRD4jDbPool.Handle handle = getDB(itemName);
+        if (handle == null) {
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            flushSamples(handle);
+            RrdDb db = handle.getDb();
+            return db.createFetchRequest(getConsolidationFunction(db), start, end).fetchData();
+        } finally {
+            handle.recordQuery(startNanos);
+            handle.release();
+        }
+    }
+
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    /**
+     * Returns the locked handle of the database for the given alias, which has to be released after use.
+     */
+    protected RRD4jDbPool.@Nullable Handle getDB(String alias) {
+        try {
+            return dbPool.acquire(alias, this::openDB);
+        } catch (IOException e) {
+            // already logged by openDB
+            return null;
+        }
+    }
+
+    private static File getFile(String alias) {
+        return new File(DB_FOLDER + File.separator + alias + ".rrd");
+    }
+
+    private @Nullable RrdDb openDB(String alias) {
         RrdDb db = null;
-        File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
+        File file = getFile(alias);
         try {
-            if (file.exists()) {
+            if (backend == Backend.MEMORY) {
+                db = openMemoryDB(alias, file);
+            } else if (file.exists()) {
                 // recreate the RrdDb instance from the file
-                db = new RrdDb(file.getAbsolutePath());
+                db = new RrdDb(file.getAbsolutePath(), backendFactory);
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
@@ -328,7 +496,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 RrdDef rrdDef = getRrdDef(alias, file);
                 if (rrdDef != null) {
                     // create a new database file
-                    db = new RrdDb(rrdDef);
+                    db = new RrdDb(rrdDef, backendFactory);
                 } else {
                     logger.debug(
                             "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
@@ -344,6 +512,37 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return db;
     }
 
+    /**
+     * Creates an in-memory database, initialized from the database file if it exists. It is written back to the file
+     * by {@link #syncDB(RRD4jDbPool.Handle)}.
+     */
+    private @Nullable RrdDb openMemoryDB(String alias, File file) throws IOException {
+        // each database gets its own factory, so its memory is released when it is closed
+        RrdBackendFactory memoryFactory = new RrdMemoryBackendFactory();
+        if (file.exists()) {
+            RrdDb fileDb = new RrdDb(file.getAbsolutePath(), true, new RrdRandomAccessFileBackendFactory());
+            try {
+                RrdDb db = new RrdDb(fileDb.getRrdDef(), memoryFactory);
+                fileDb.copyStateTo(db);
+                return db;
+            } finally {
+                fileDb.close();
+            }
+        }
+        File folder = new File(DB_FOLDER);
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        RrdDef rrdDef = getRrdDef(alias, file);
+        if (rrdDef == null) {
+            logger.debug(
+                    "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
+                    alias);
+            return null;
+        }
+        return new RrdDb(rrdDef, memoryFactory);
+    }
+
     private @Nullable RrdDefConfig getRrdDefConfig(String itemName) {
         RrdDefConfig useRdc = null;
         for (Map.Entry<String, RrdDefConfig> e : rrdDefs.entrySet()) {
@@ -443,11 +642,92 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         modified(config);
     }
 
+    @Deactivate
+    protected void deactivate() {
+        serviceJobs.forEach(j -> j.cancel(false));
+        serviceJobs.clear();
+        scheduledJobs.values().forEach(j -> j.cancel(false));
+        scheduledJobs.clear();
+        scheduler.shutdown();
+        if (logger.isDebugEnabled()) {
+            dbPool.getHandles().forEach(handle -> logger.debug("{}", handle));
+        }
+        dbPool.closeAll();
+    }
+
+    /**
+     * Applies the service options, i.e. the configuration keys without a datasource name.
+     */
+    private synchronized void configureService(final Map<String, Object> config) {
+        long idleTimeout = getLongOption(config, OPTION_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+        long syncPeriod = getLongOption(config, OPTION_SYNC_PERIOD, RrdNioBackendFactory.DEFAULT_SYNC_PERIOD);
+        long newFlushInterval = getLongOption(config, OPTION_FLUSH_INTERVAL, 0);
+        Backend newBackend = Backend.NIO;
+        Object backendValue = config.get(OPTION_BACKEND);
+        if (backendValue != null) {
+            try {
+                newBackend = Backend.valueOf(backendValue.toString().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring unknown backend '{}', using {}", backendValue, newBackend);
+            }
+        }
+
+        serviceJobs.forEach(j -> j.cancel(false));
+        serviceJobs.clear();
+        // databases are reopened with the new settings, pending samples are written before
+        dbPool.closeAll();
+
+        backend = newBackend;
+        flushInterval = newFlushInterval;
+        switch (newBackend) {
+            case FILE:
+                backendFactory = new RrdRandomAccessFileBackendFactory();
+                break;
+            case NIO:
+                RrdNioBackendFactory.setSyncPeriod((int) Math.max(syncPeriod, 1));
+                RrdNioBackendFactory nioFactory = new RrdNioBackendFactory();
+                nioFactory.setSyncThreadPool(scheduler);
+                backendFactory = nioFactory;
+                break;
+            case MEMORY:
+                // memory databases are written to their files every syncPeriod seconds
+                backendFactory = new RrdMemoryBackendFactory();
+                long syncMillis = TimeUnit.SECONDS.toMillis(Math.max(syncPeriod, 1));
+                serviceJobs.add(scheduler.scheduleWithFixedDelay(() -> dbPool.forEach(this::syncSamples), syncMillis,
+                        syncMillis, TimeUnit.MILLISECONDS));
+                break;
+        }
+        if (newFlushInterval > 0) {
+            serviceJobs.add(scheduler.scheduleWithFixedDelay(() -> dbPool.forEach(this::flushSamples),
+                    newFlushInterval, newFlushInterval, TimeUnit.SECONDS));
+        }
+        // close databases which have not been used for idleTimeout seconds
+        long idleMillis = TimeUnit.SECONDS.toMillis(Math.max(idleTimeout, 1));
+        serviceJobs.add(scheduler.scheduleWithFixedDelay(() -> dbPool.evictIdle(idleMillis), idleMillis, idleMillis,
+                TimeUnit.MILLISECONDS));
+        logger.debug("Using {} backend with syncPeriod = {} s, flushInterval = {} s, idleTimeout = {} s", newBackend,
+                syncPeriod, newFlushInterval, idleTimeout);
+    }
+
+    private long getLongOption(final Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value != null && !value.toString().isBlank()) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal {} '{}'", key, value);
+            }
+        }
+        return defaultValue;
+    }
+
     @Modified
     protected void modified(final Map<String, Object> config) {
         // clean existing definitions
         rrdDefs.clear();
 
+        configureService(config);
+
         // add default configurations
 
         RrdDefConfig defaultNumeric = new RrdDefConfig(DEFAULT_NUMERIC);
@@ -496,7 +776,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         while (keys.hasNext()) {
             String key = keys.next();
 
-            if (key.equals("service.pid") || key.equals("component.name")) {
+            if (key.equals("service.pid") || key.equals("component.name") || SERVICE_OPTIONS.contains(key)) {
                 // ignore service.pid and name
                 continue;
             }
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdMemoryBackendFactory;
+
+/**
+ * Tests the {@link RRD4jDbPool}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    private RrdDb open(String name) throws IOException {
+        opened.incrementAndGet();
+        RrdDef def = new RrdDef(name, 60);
+        def.addDatasource("state", DsType.GAUGE, 600, Double.NaN, Double.NaN);
+        def.addArchive(ConsolFun.AVERAGE, 0.5, 1, 10);
+        return new RrdDb(def, new RrdMemoryBackendFactory());
+    }
+
+    @Test
+    public void handleIsReusedUntilClosed() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(handle -> {
+        });
+
+        RRD4jDbPool.Handle first = pool.acquire("item", this::open);
+        assertNotNull(first);
+        first.release();
+        RRD4jDbPool.Handle second = pool.acquire("item", this::open);
+        assertSame(first, second);
+        second.release();
+        assertEquals(1, opened.get());
+
+        pool.closeAll();
+        assertEquals(0, pool.size());
+        assertTrue(first.getDb().isClosed());
+
+        RRD4jDbPool.Handle third = pool.acquire("item", this::open);
+        assertNotNull(third);
+        assertNotSame(first, third);
+        third.release();
+        assertEquals(2, opened.get());
+    }
+
+    @Test
+    public void acquireWaitsUntilTheDatabaseIsClosed() throws Exception {
+        CountDownLatch closing = new CountDownLatch(1);
+        CountDownLatch flushed = new CountDownLatch(1);
+        RRD4jDbPool pool = new RRD4jDbPool(handle -> {
+            closing.countDown();
+            try {
+                flushed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        RRD4jDbPool.Handle first = pool.acquire("item", this::open);
+        assertNotNull(first);
+        first.release();
+
+        CompletableFuture<Void> close = CompletableFuture.runAsync(pool::closeAll);
+        assertTrue(closing.await(5, TimeUnit.SECONDS));
+        // the database is being flushed, so it must not be opened a second time
+        assertEquals(1, pool.size());
+        CompletableFuture<RRD4jDbPool.Handle> acquire = CompletableFuture.supplyAsync(() -> {
+            try {
+                RRD4jDbPool.Handle handle = pool.acquire("item", this::open);
+                assertNotNull(handle);
+                handle.release();
+                return handle;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> acquire.get(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, opened.get());
+
+        flushed.countDown();
+        close.get(5, TimeUnit.SECONDS);
+        RRD4jDbPool.Handle second = acquire.get(5, TimeUnit.SECONDS);
+        assertTrue(first.getDb().isClosed());
+        assertNotSame(first, second);
+        assertEquals(2, opened.get());
+    }
+
+    @Test
+    public void samplesAreWrittenInOrderOncePerSecond() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(handle -> {
+        });
+        RRD4jDbPool.Handle handle = pool.acquire("item", this::open);
+        assertNotNull(handle);
+        handle.addSample(20, 2);
+        handle.addSample(10, 1);
+        // replaces the value of the same second
+        handle.addSample(20, 3);
+
+        List<String> written = new ArrayList<>();
+        handle.flushSamples((time, value) -> written.add(time + "=" + value));
+        handle.release();
+
+        assertEquals(List.of("10=1.0", "20=3.0"), written);
+        assertEquals(0, handle.getPendingSampleCount());
+    }
+
+    @Test
+    public void samplesAreKeptIfTheyCannotBeWritten() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(handle -> {
+        });
+        RRD4jDbPool.Handle handle = pool.acquire("item", this::open);
+        assertNotNull(handle);
+        handle.addSample(10, 1);
+        handle.addSample(20, 2);
+        handle.addSample(30, 3);
+
+        List<Long> written = new ArrayList<>();
+        assertThrows(IOException.class, () -> handle.flushSamples((time, value) -> {
+            if (time == 20) {
+                throw new IOException("disk full");
+            }
+            return written.add(time);
+        }));
+        assertEquals(List.of(10L), written);
+        assertEquals(2, handle.getPendingSampleCount());
+
+        handle.flushSamples((time, value) -> written.add(time));
+        handle.release();
+
+        assertEquals(List.of(10L, 20L, 30L), written);
+        assertEquals(0, handle.getPendingSampleCount());
+        assertEquals(0, handle.getDroppedSampleCount());
+    }
+
+    @Test
+    public void rejectedSamplesAreDroppedAndCounted() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(handle -> {
+        });
+        RRD4jDbPool.Handle handle = pool.acquire("item", this::open);
+        assertNotNull(handle);
+        handle.addSample(10, 1);
+        handle.addSample(20, 2);
+
+        List<Long> written = new ArrayList<>();
+        handle.flushSamples((time, value) -> time != 10 && written.add(time));
+        handle.release();
+
+        assertEquals(List.of(20L), written);
+        assertEquals(0, handle.getPendingSampleCount());
+        assertEquals(1, handle.getDroppedSampleCount());
+    }
+}
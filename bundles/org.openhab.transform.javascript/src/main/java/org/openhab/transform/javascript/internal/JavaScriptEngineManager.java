@@ -17,8 +17,17 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -27,64 +36,327 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.transform.TransformationException;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple cache for compiled JavaScript files.
+ * Pool of compiled JavaScript files and inline scripts.
+ *
+ * Every script has its own pool of {@link CompiledScript}s. Each pooled script is compiled by its own
+ * {@link ScriptEngine} and is only used by one thread at a time, so scripts are evaluated in parallel without sharing
+ * the global scope of an engine. A pool holds at most {@code poolSize} scripts; further threads wait until a script is
+ * returned. If none is returned within {@code acquireTimeout} milliseconds, the script is compiled by a fresh engine
+ * which is discarded after use, so a busy pool slows transformations down but does not fail them. Scripts which have
+ * not been used within {@code idleTimeout} seconds are removed from the pool.
  *
  * @author Thomas Kordelle - Initial contribution
  * @author Thomas Kordelle - pre compiled scripts
  */
 @NonNullByDefault
-@Component(service = JavaScriptEngineManager.class)
+@Component(service = JavaScriptEngineManager.class, configurationPid = "org.openhab.jstransform")
 public class JavaScriptEngineManager {
 
+    /** prefix of a transformation function which contains the script itself instead of a file name */
+    public static final String INLINE_SCRIPT_PREFIX = "|";
+
+    private static final String CONFIG_POOL_SIZE = "poolSize";
+    private static final String CONFIG_IDLE_TIMEOUT = "idleTimeout";
+    private static final String CONFIG_ACQUIRE_TIMEOUT = "acquireTimeout";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_IDLE_TIMEOUT = 300;
+    private static final int DEFAULT_ACQUIRE_TIMEOUT = 100;
+
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, ScriptPool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = ThreadPoolManager
+            .getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
+    private @Nullable ScheduledFuture<?> evictionJob;
+
+    private volatile int poolSize = DEFAULT_POOL_SIZE;
+    private volatile long idleTimeout = TimeUnit.SECONDS.toMillis(DEFAULT_IDLE_TIMEOUT);
+    private volatile long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+    private final AtomicLong compileCount = new AtomicLong();
+    private final AtomicLong reuseCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    private final String transformFolder;
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
-     * storage and put a pre compiled version into the cache.
+     * A compiled script borrowed from a pool. It must be returned with {@link JavaScriptEngineManager#release}.
+     */
+    public static class PooledScript {
+        private final ScriptPool pool;
+        private final CompiledScript script;
+        /* whether the script was compiled because the pool was exhausted, it is not returned to the pool */
+        private final boolean overflow;
+        private long lastUsed;
+
+        private PooledScript(ScriptPool pool, CompiledScript script, boolean overflow) {
+            this.pool = pool;
+            this.script = script;
+            this.overflow = overflow;
+        }
+
+        public CompiledScript getScript() {
+            return script;
+        }
+    }
+
+    /**
+     * The compiled scripts of one file or inline script.
+     */
+    private static class ScriptPool {
+        private final String name;
+        /* scripts are taken from and returned to the head, so unused scripts become idle at the tail */
+        private final BlockingDeque<PooledScript> idle = new LinkedBlockingDeque<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private ScriptPool(String name) {
+            this.name = name;
+        }
+
+        private boolean reserve(int maxSize) {
+            int current;
+            do {
+                current = size.get();
+                if (current >= maxSize) {
+                    return false;
+                }
+            } while (!size.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+
+    public JavaScriptEngineManager() {
+        this(TransformationScriptWatcher.TRANSFORM_FOLDER);
+    }
+
+    /**
+     * For testing, thus package visibility by design
      *
-     * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
+     * @param transformFolder folder the script files are loaded from
+     */
+    JavaScriptEngineManager(String transformFolder) {
+        this.transformFolder = transformFolder;
+    }
+
+    @Activate
+    protected void activate(@Nullable Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    protected void modified(@Nullable Map<String, Object> config) {
+        poolSize = Math.max(1, getIntConfig(config, CONFIG_POOL_SIZE, DEFAULT_POOL_SIZE));
+        int idleSeconds = Math.max(1, getIntConfig(config, CONFIG_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT));
+        idleTimeout = TimeUnit.SECONDS.toMillis(idleSeconds);
+        acquireTimeout = Math.max(0, getIntConfig(config, CONFIG_ACQUIRE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT));
+        ScheduledFuture<?> job = evictionJob;
+        if (job != null) {
+            job.cancel(false);
+        }
+        long interval = Math.max(1, idleSeconds / 2);
+        evictionJob = scheduler.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.SECONDS);
+        logger.debug("JavaScript pool configured with poolSize={} idleTimeout={} s acquireTimeout={} ms", poolSize,
+                idleSeconds, acquireTimeout);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        ScheduledFuture<?> job = evictionJob;
+        if (job != null) {
+            job.cancel(false);
+            evictionJob = null;
+        }
+        pools.clear();
+        logger.debug("JavaScript pool stopped: compiled={}, reused={}, waited={}, overflowed={}, evicted={}",
+                compileCount.get(), reuseCount.get(), waitCount.get(), overflowCount.get(), evictionCount.get());
+    }
+
+    private int getIntConfig(@Nullable Map<String, Object> config, String key, int defaultValue) {
+        Object value = config == null ? null : config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Borrows a pre compiled script {@link CompiledScript} from the pool of the given script. If no compiled script
+     * is available and the pool is not full, the script is loaded from storage and compiled. Otherwise this waits
+     * until another thread returns its script, at most {@code acquireTimeout} milliseconds, and then compiles the
+     * script by a fresh engine which is not added to the pool.
+     *
+     * @param filename name of the JavaScript file to load, or the script itself prefixed by
+     *            {@link #INLINE_SCRIPT_PREFIX}
+     * @return a pre compiled script which must be returned by {@link #release(PooledScript)}
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
+    protected PooledScript acquire(final String filename) throws TransformationException {
+        final long deadline = System.currentTimeMillis() + acquireTimeout;
+        boolean waited = false;
+        while (true) {
+            // the pool is looked up on every iteration, as it may have been invalidated in the meantime
+            final ScriptPool pool = pools.computeIfAbsent(filename, ScriptPool::new);
+            PooledScript pooledScript = pool.idle.pollFirst();
+            if (pooledScript != null) {
+                reuseCount.incrementAndGet();
+                return pooledScript;
+            }
+            if (pool.reserve(poolSize)) {
+                try {
+                    return new PooledScript(pool, compile(filename), false);
+                } catch (TransformationException e) {
+                    pool.size.decrementAndGet();
+                    throw e;
+                }
+            }
+            if (!waited) {
+                waited = true;
+                waitCount.incrementAndGet();
+                logger.trace("All {} compiled instances of JavaScript {} are in use, waiting", poolSize, filename);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                overflowCount.incrementAndGet();
+                logger.debug("No compiled instance of JavaScript {} became available in time, compiling another one",
+                        filename);
+                return new PooledScript(pool, compile(filename), true);
+            }
+            try {
+                pooledScript = pool.idle.pollFirst(Math.min(remaining, 100), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransformationException("Interrupted while waiting for JavaScript " + filename, e);
+            }
+            if (pooledScript != null) {
+                reuseCount.incrementAndGet();
+                return pooledScript;
+            }
+        }
+    }
+
+    /**
+     * Returns a script borrowed by {@link #acquire(String)}. Scripts of an invalidated pool and scripts compiled
+     * because the pool was exhausted are discarded.
+     *
+     * @param pooledScript the borrowed script
+     */
+    protected void release(final PooledScript pooledScript) {
+        final ScriptPool pool = pooledScript.pool;
+        if (pooledScript.overflow) {
+            return;
+        }
+        if (pools.get(pool.name) != pool) {
+            logger.trace("Discarding compiled instance of outdated JavaScript {}", pool.name);
+            return;
+        }
+        pooledScript.lastUsed = System.currentTimeMillis();
+        pool.idle.offerFirst(pooledScript);
+    }
+
+    private CompiledScript compile(final String filename) throws TransformationException {
+        final Reader reader;
+        if (filename.startsWith(INLINE_SCRIPT_PREFIX)) {
+            logger.debug("Compiling inline JavaScript {}", filename);
+            reader = new StringReader(filename.substring(INLINE_SCRIPT_PREFIX.length()));
+        } else {
+            final String path = transformFolder + File.separator + filename;
+            logger.debug("Loading script {} from storage ", path);
+            try {
+                reader = new InputStreamReader(new FileInputStream(path));
+            } catch (IOException e) {
+                throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+            }
+        }
+        try (reader) {
+            final ScriptEngine engine;
+            synchronized (manager) {
+                engine = manager.getEngineByName("javascript");
+            }
+            final CompiledScript cScript = ((Compilable) engine).compile(reader);
+            compileCount.incrementAndGet();
+            logger.debug("Putting compiled JavaScript {} to pool.", cScript);
+            return cScript;
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes all scripts which have not been used within the idle timeout, and the pools which became empty.
+     */
+    private void evictIdle() {
+        final long threshold = System.currentTimeMillis() - idleTimeout;
+        for (ScriptPool pool : pools.values()) {
+            Iterator<PooledScript> iterator = pool.idle.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledScript pooledScript = iterator.next();
+                if (pooledScript.lastUsed >= threshold) {
+                    break;
+                }
+                if (pool.idle.removeLastOccurrence(pooledScript)) {
+                    pool.size.decrementAndGet();
+                    evictionCount.incrementAndGet();
                 }
             }
+            if (pool.size.get() == 0) {
+                pools.remove(pool.name, pool);
+                logger.debug("Removed idle JavaScript {} from pool.", pool.name);
+            }
         }
     }
 
     /**
-     * remove a pre compiled script from cache.
+     * Removes all pre compiled instances of a script file from the pool. Instances in use are discarded when they are
+     * returned.
      *
-     * @param fileName name of the script file to remove
+     * @param fileName name of the script file to remove, with or without its subfolder
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
-        compiledScriptMap.remove(fileName);
+        // the watcher only reports the file name, scripts may be referenced with their subfolder
+        pools.keySet().removeIf(name -> !name.startsWith(INLINE_SCRIPT_PREFIX) && (name.equals(fileName)
+                || name.endsWith(File.separator + fileName) || name.endsWith("/" + fileName)));
+    }
+
+    public int getPoolCount() {
+        return pools.size();
+    }
+
+    public long getCompileCount() {
+        return compileCount.get();
+    }
+
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
     }
 }
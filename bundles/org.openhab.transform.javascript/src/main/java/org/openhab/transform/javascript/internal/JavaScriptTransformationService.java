@@ -31,6 +31,7 @@ import org.openhab.core.config.core.ConfigOptionProvider;
 import org.openhab.core.config.core.ParameterOption;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
+import org.openhab.transform.javascript.internal.JavaScriptEngineManager.PooledScript;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -67,11 +68,13 @@ public class JavaScriptTransformationService implements TransformationService, C
      * Transforms the input <code>source</code> by Java Script. It expects the
      * transformation rule to be read from a file which is stored under the
      * 'configurations/transform' folder. To organize the various
-     * transformations one should use subfolders.
+     * transformations one should use subfolders. Alternatively, the script
+     * itself can be given prefixed by '|'.
      *
      * @param filename the name of the file which contains the Java script
-     *            transformation rule. Transformation service inject input
-     *            (source) to 'input' variable.
+     *            transformation rule, or the inline script prefixed by '|'.
+     *            Transformation service inject input (source) to 'input'
+     *            variable.
      * @param source the input to transform
      */
     @Override
@@ -85,8 +88,9 @@ public class JavaScriptTransformationService implements TransformationService, C
 
         String result = "";
 
+        final PooledScript pooledScript = manager.acquire(filename);
         try {
-            final CompiledScript cScript = manager.getScript(filename);
+            final CompiledScript cScript = pooledScript.getScript();
             final Bindings bindings = cScript.getEngine().createBindings();
             bindings.put("input", source);
             result = String.valueOf(cScript.eval(bindings));
@@ -94,6 +98,7 @@ public class JavaScriptTransformationService implements TransformationService, C
         } catch (ScriptException e) {
             throw new TransformationException("An error occurred while executing script. " + e.getMessage(), e);
         } finally {
+            manager.release(pooledScript);
             logger.trace("JavaScript execution elapsed {} ms. Result: {}", System.currentTimeMillis() - startTime,
                     result);
         }
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.core.transform.TransformationException;
+import org.openhab.transform.javascript.internal.JavaScriptEngineManager.PooledScript;
+
+/**
+ * Tests the pool of compiled scripts of the {@link JavaScriptEngineManager}.
+ *
+ * @author agent - Initial contribution
+ */
+public class JavaScriptEngineManagerTest {
+    private static final String SCRIPT_FILE = "engineManagerTest.js";
+
+    private @TempDir Path transformFolder;
+    private Path scriptPath;
+    private JavaScriptEngineManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        scriptPath = transformFolder.resolve(SCRIPT_FILE);
+        manager = new JavaScriptEngineManager(transformFolder.toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        manager.deactivate();
+    }
+
+    private static String eval(PooledScript pooledScript, String input) throws ScriptException {
+        CompiledScript script = pooledScript.getScript();
+        Bindings bindings = script.getEngine().createBindings();
+        bindings.put("input", input);
+        return String.valueOf(script.eval(bindings));
+    }
+
+    private String transform(String filename, String input) throws TransformationException, ScriptException {
+        PooledScript pooledScript = manager.acquire(filename);
+        try {
+            return eval(pooledScript, input);
+        } finally {
+            manager.release(pooledScript);
+        }
+    }
+
+    @Test
+    public void inlineScriptIsCompiledOnce() throws Exception {
+        manager.activate(null);
+
+        assertEquals("3", transform("| input.length", "abc"));
+        assertEquals("5", transform("| input.length", "abcde"));
+
+        assertEquals(1, manager.getCompileCount());
+        assertEquals(1, manager.getReuseCount());
+    }
+
+    @Test
+    public void changedScriptIsCompiledAgain() throws Exception {
+        manager.activate(null);
+        Files.writeString(scriptPath, "input + 'a'");
+        assertEquals("xa", transform(SCRIPT_FILE, "x"));
+        PooledScript inUse = manager.acquire(SCRIPT_FILE);
+
+        Files.writeString(scriptPath, "input + 'b'");
+        // as reported by the TransformationScriptWatcher
+        manager.removeFromCache(SCRIPT_FILE);
+        assertEquals("xb", transform(SCRIPT_FILE, "x"));
+
+        // the outdated instance is not returned to the pool
+        manager.release(inUse);
+        assertEquals("xb", transform(SCRIPT_FILE, "x"));
+        assertEquals(2, manager.getCompileCount());
+    }
+
+    @Test
+    public void poolSizeLimitsConcurrentInstances() throws Exception {
+        manager.activate(Map.of("poolSize", "2", "acquireTimeout", "10000"));
+        PooledScript first = manager.acquire("| input");
+        PooledScript second = manager.acquire("| input");
+        assertNotSame(first.getScript(), second.getScript());
+
+        CompletableFuture<PooledScript> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return manager.acquire("| input");
+            } catch (TransformationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(300);
+        assertFalse(third.isDone());
+
+        manager.release(first);
+        assertSame(first, third.get(5, TimeUnit.SECONDS));
+        assertEquals(2, manager.getCompileCount());
+        assertEquals(1, manager.getWaitCount());
+    }
+
+    @Test
+    public void exhaustedPoolCompilesAnotherInstanceAfterTimeout() throws Exception {
+        manager.activate(Map.of("poolSize", "1", "acquireTimeout", "200"));
+        PooledScript first = manager.acquire("| input");
+
+        long start = System.currentTimeMillis();
+        PooledScript second = manager.acquire("| input");
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertNotSame(first.getScript(), second.getScript());
+        assertEquals("x", eval(second, "x"));
+        assertEquals(1, manager.getOverflowCount());
+
+        // the additional instance is discarded, so the pool keeps its size
+        manager.release(second);
+        manager.release(first);
+        assertSame(first, manager.acquire("| input"));
+        assertEquals(2, manager.getCompileCount());
+    }
+}
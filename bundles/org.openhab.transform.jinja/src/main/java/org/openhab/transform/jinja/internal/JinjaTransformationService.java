@@ -14,23 +14,37 @@ package org.openhab.transform.jinja.internal;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
 
 /**
  * <p>
@@ -40,13 +54,81 @@ import com.hubspot.jinjava.Jinjava;
  *
  */
 @NonNullByDefault
-@Component(property = { "openhab.transform=JINJA" })
+@Component(property = { "openhab.transform=JINJA" }, configurationPid = "org.openhab.jinja")
 public class JinjaTransformationService implements TransformationService {
 
+    private static final String CONFIG_REUSE_PARSED_VALUE = "reuseParsedValue";
+    private static final int MAX_CACHED_TEMPLATES = 256;
+    private static final int MAX_CACHED_VALUES = 16;
+    private static final long VALUE_CACHE_TIME = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final Logger logger = LoggerFactory.getLogger(JinjaTransformationService.class);
 
     private Jinjava jinjava = new Jinjava();
 
+    // parsed templates, every channel renders the same template for each of its values
+    private final Map<String, Node> templateCache = Collections.synchronizedMap(new LruMap<>(MAX_CACHED_TEMPLATES));
+
+    // parsed JSON of the last few values, so several templates rendering the same payload share one parse
+    private final Map<String, ParsedValue> valueCache = Collections.synchronizedMap(new LruMap<>(MAX_CACHED_VALUES));
+    private volatile boolean reuseParsedValue = true;
+
+    private final AtomicLong templateCacheHits = new AtomicLong();
+    private final AtomicLong templateCacheMisses = new AtomicLong();
+    private final AtomicLong valueCacheHits = new AtomicLong();
+    private final AtomicLong valueCacheMisses = new AtomicLong();
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static class ParsedValue {
+        private final @Nullable JsonNode node;
+        private final long parsedNanos = System.nanoTime();
+
+        private ParsedValue(@Nullable JsonNode node) {
+            this.node = node;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - parsedNanos > VALUE_CACHE_TIME;
+        }
+    }
+
+    @Activate
+    protected void activate(@Nullable Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    protected void modified(@Nullable Map<String, Object> config) {
+        Object reuse = config == null ? null : config.get(CONFIG_REUSE_PARSED_VALUE);
+        reuseParsedValue = reuse == null || Boolean.parseBoolean(reuse.toString().trim());
+        if (!reuseParsedValue) {
+            valueCache.clear();
+        }
+        logger.debug("Jinja transformation configured with reuseParsedValue={}", reuseParsedValue);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        logger.debug("{}", getCacheStatistics());
+    }
+
     /**
      * Transforms the input <code>value</code> by Jinja template.
      *
@@ -60,22 +142,95 @@ public class JinjaTransformationService implements TransformationService {
 
         Map<String, @Nullable Object> bindings = new HashMap<>();
         bindings.put("value", value);
+        bindings.put("value_json", getValueJson(value));
 
+        Context context = new Context(jinjava.getGlobalContext(), bindings);
+        JinjavaInterpreter interpreter = new JinjavaInterpreter(jinjava, context, jinjava.getGlobalConfig());
+        JinjavaInterpreter.pushCurrent(interpreter);
+        String transformationResult;
         try {
-            JsonNode tree = new ObjectMapper().readTree(value);
-            bindings.put("value_json", toObject(tree));
-        } catch (IOException e) {
-            // ok, then value_json is null...
+            transformationResult = interpreter.render(getTemplate(template, interpreter));
+        } finally {
+            JinjavaInterpreter.popCurrent();
         }
-
-        String transformationResult = jinjava.render(template, bindings);
+        throwOnFatalErrors(template, interpreter.getErrors());
 
         logger.debug("transformation resulted in '{}'", transformationResult);
+        if (logger.isTraceEnabled()) {
+            logger.trace("{}", getCacheStatistics());
+        }
 
         return transformationResult;
     }
 
-    private static @Nullable Object toObject(JsonNode node) {
+    /**
+     * Returns the parsed template from the cache, or parses it. Templates which could not be parsed are not cached,
+     * so their errors are reported on every transformation.
+     */
+    private Node getTemplate(String template, JinjavaInterpreter interpreter) {
+        Node node = templateCache.get(template);
+        if (node != null) {
+            templateCacheHits.incrementAndGet();
+            return node;
+        }
+        templateCacheMisses.incrementAndGet();
+        node = interpreter.parse(template);
+        if (interpreter.getErrors().isEmpty()) {
+            templateCache.put(template, node);
+        }
+        return node;
+    }
+
+    private void throwOnFatalErrors(String template, List<TemplateError> errors) {
+        List<TemplateError> fatalErrors = errors.stream().filter(error -> error.getSeverity() == ErrorType.FATAL)
+                .collect(Collectors.toList());
+        if (!fatalErrors.isEmpty()) {
+            throw new FatalTemplateErrorsException(template, fatalErrors);
+        }
+    }
+
+    /**
+     * Returns the value parsed as JSON, or <code>null</code> if it is no JSON. Every call returns its own lists and
+     * maps, so templates may modify them. With {@code reuseParsedValue} only the JSON tree is shared by
+     * transformations of the same value within one second, it is never handed to a template.
+     */
+    private @Nullable Object getValueJson(String value) {
+        return toObject(getJsonNode(value));
+    }
+
+    private @Nullable JsonNode getJsonNode(String value) {
+        if (!reuseParsedValue) {
+            return parseJson(value);
+        }
+        ParsedValue parsed = valueCache.get(value);
+        if (parsed != null && !parsed.isExpired()) {
+            valueCacheHits.incrementAndGet();
+            return parsed.node;
+        }
+        valueCacheMisses.incrementAndGet();
+        JsonNode node = parseJson(value);
+        valueCache.put(value, new ParsedValue(node));
+        return node;
+    }
+
+    private static @Nullable JsonNode parseJson(String value) {
+        try {
+            return OBJECT_MAPPER.readTree(value);
+        } catch (IOException e) {
+            // ok, then value_json is null...
+            return null;
+        }
+    }
+
+    public String getCacheStatistics() {
+        return "Jinja cache statistics: templates " + templateCacheHits.get() + " hits / " + templateCacheMisses.get()
+                + " misses, values " + valueCacheHits.get() + " hits / " + valueCacheMisses.get() + " misses";
+    }
+
+    private static @Nullable Object toObject(@Nullable JsonNode node) {
+        if (node == null) {
+            return null;
+        }
         switch (node.getNodeType()) {
             case ARRAY: {
                 List<@Nullable Object> result = new ArrayList<>();
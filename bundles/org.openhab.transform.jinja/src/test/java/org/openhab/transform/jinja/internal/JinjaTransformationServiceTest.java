@@ -14,6 +14,8 @@ package org.openhab.transform.jinja.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Map;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -59,4 +61,41 @@ public class JinjaTransformationServiceTest {
         // Asserts
         assertEquals("Hello world!", transformedResponse);
     }
+
+    @Test
+    public void testCachedTemplateWithDifferentValues() throws TransformationException {
+        String template = "{{value_json.temperature}} {{value_json.unit}}";
+
+        assertEquals("4.7 C", processor.transform(template, "{\"temperature\":4.7,\"unit\":\"C\"}"));
+        assertEquals("5.2 C", processor.transform(template, "{\"temperature\":5.2,\"unit\":\"C\"}"));
+    }
+
+    @Test
+    public void testSameValueWithDifferentTemplates() throws TransformationException {
+        String json = "{\"AM2301\":{\"Temperature\":4.7,\"Humidity\":99.9}}";
+
+        assertEquals("4.7", processor.transform("{{value_json.AM2301.Temperature}}", json));
+        assertEquals("99.9", processor.transform("{{value_json.AM2301.Humidity}}", json));
+    }
+
+    @Test
+    public void testTemplateModifyingTheParsedValue() throws TransformationException {
+        String json = "{\"list\":[1,2,3]}";
+        String template = "{% do value_json.list.append(4) %}{{value_json.list|length}}";
+
+        assertEquals("4", processor.transform(template, json));
+        // the next transformation of the same value does not see the change
+        assertEquals("4", processor.transform(template, json));
+        assertEquals("3", processor.transform("{{value_json.list|length}}", json));
+    }
+
+    @Test
+    public void testParsedValueIsNotReusedIfDisabled() throws TransformationException {
+        processor.activate(Map.of("reuseParsedValue", "false"));
+        String json = "{\"AM2301\":{\"Temperature\":4.7,\"Humidity\":99.9}}";
+
+        assertEquals("4.7", processor.transform("{{value_json.AM2301.Temperature}}", json));
+        assertEquals("99.9", processor.transform("{{value_json.AM2301.Humidity}}", json));
+        assertTrue(processor.getCacheStatistics().endsWith("values 0 hits / 0 misses"));
+    }
 }
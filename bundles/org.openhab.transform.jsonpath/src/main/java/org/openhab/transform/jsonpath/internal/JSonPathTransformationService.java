@@ -12,7 +12,12 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -21,9 +26,11 @@ import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.openhab.core.types.UnDefType;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -41,8 +48,60 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    private static final int MAX_CACHED_PATHS = 256;
+    private static final int MAX_CACHED_DOCUMENTS = 16;
+    private static final long DOCUMENT_CACHE_TIME = TimeUnit.SECONDS.toNanos(1);
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Configuration configuration = Configuration.defaultConfiguration();
+
+    // compiled expressions, most channels use the same expression for every transformation
+    private final Map<String, JsonPath> pathCache = Collections.synchronizedMap(new LruMap<>(MAX_CACHED_PATHS));
+
+    // parsed documents of the last few sources, so channels transforming the same payload share one parse
+    private final Map<String, ParsedDocument> documentCache = Collections
+            .synchronizedMap(new LruMap<>(MAX_CACHED_DOCUMENTS));
+
+    private final AtomicLong pathCacheHits = new AtomicLong();
+    private final AtomicLong pathCacheMisses = new AtomicLong();
+    private final AtomicLong documentCacheHits = new AtomicLong();
+    private final AtomicLong documentCacheMisses = new AtomicLong();
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static class ParsedDocument {
+        private final Object document;
+        private final long parsedNanos = System.nanoTime();
+
+        private ParsedDocument(Object document) {
+            this.document = document;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - parsedNanos > DOCUMENT_CACHE_TIME;
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        logger.debug("{}", getCacheStatistics());
+    }
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,8 +119,11 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = getPath(jsonPathExpression).read(getDocument(source), configuration);
             logger.debug("transformation resulted in '{}'", transformationResult);
+            if (logger.isTraceEnabled()) {
+                logger.trace("{}", getCacheStatistics());
+            }
             if (transformationResult == null) {
                 return null;
             } else if (transformationResult instanceof List) {
@@ -76,6 +138,55 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    private JsonPath getPath(String jsonPathExpression) {
+        JsonPath path = pathCache.get(jsonPathExpression);
+        if (path != null) {
+            pathCacheHits.incrementAndGet();
+            return path;
+        }
+        pathCacheMisses.incrementAndGet();
+        path = JsonPath.compile(jsonPathExpression);
+        pathCache.put(jsonPathExpression, path);
+        return path;
+    }
+
+    /**
+     * Returns the parsed source. A parsed document is shared for a short time only, as the same payload is usually
+     * transformed by all channels at once. The documents are only read by {@link JsonPath}, so sharing them is safe.
+     */
+    private Object getDocument(String source) {
+        ParsedDocument parsed = documentCache.get(source);
+        if (parsed != null && !parsed.isExpired()) {
+            documentCacheHits.incrementAndGet();
+            return parsed.document;
+        }
+        documentCacheMisses.incrementAndGet();
+        Object document = configuration.jsonProvider().parse(source);
+        documentCache.put(source, new ParsedDocument(document));
+        return document;
+    }
+
+    public long getPathCacheHits() {
+        return pathCacheHits.get();
+    }
+
+    public long getPathCacheMisses() {
+        return pathCacheMisses.get();
+    }
+
+    public long getDocumentCacheHits() {
+        return documentCacheHits.get();
+    }
+
+    public long getDocumentCacheMisses() {
+        return documentCacheMisses.get();
+    }
+
+    private String getCacheStatistics() {
+        return "JSONPath cache statistics: paths " + getPathCacheHits() + " hits / " + getPathCacheMisses()
+                + " misses, documents " + getDocumentCacheHits() + " hits / " + getDocumentCacheMisses() + " misses";
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
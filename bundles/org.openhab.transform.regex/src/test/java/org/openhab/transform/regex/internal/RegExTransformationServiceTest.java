@@ -75,4 +75,27 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_sameFunctionDifferentSources() throws TransformationException {
+        assertEquals("21.5", processor.transform("T=(.*)C", " T=21.5C\n"));
+        assertEquals("22", processor.transform("T=(.*)C", "T=22C"));
+        assertNull(processor.transform("T=(.*)C", "H=40%"));
+    }
+
+    @Test
+    public void testTransformByRegex_recentlyUsedFunctionsStayCompiled() throws TransformationException {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("21.5", processor.transform("T=(.*)C", "T=21.5C"));
+            assertEquals(Integer.toString(i), processor.transform("V" + i + "=(.*)", "V" + i + "=" + i));
+        }
+        // the frequently used function is compiled once although more functions than cached are used
+        assertEquals(1001, processor.getCompileCount());
+
+        // the least recently used functions are compiled again
+        assertEquals("0", processor.transform("V0=(.*)", "V0=0"));
+        assertEquals(1002, processor.getCompileCount());
+        assertEquals("999", processor.transform("V999=(.*)", "V999=999"));
+        assertEquals(1002, processor.getCompileCount());
+    }
 }
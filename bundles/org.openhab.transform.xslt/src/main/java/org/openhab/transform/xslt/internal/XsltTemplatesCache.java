@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xslt.internal;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.transform.TransformationException;
+import org.openhab.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for compiled XSLT stylesheets. {@link Templates} are thread-safe, so one instance per file is shared by all
+ * transformations.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = XsltTemplatesCache.class)
+public class XsltTemplatesCache {
+
+    public static final String TRANSFORM_FOLDER = OpenHAB.getConfigFolder() + File.separator
+            + TransformationService.TRANSFORM_FOLDER_NAME;
+
+    private final Logger logger = LoggerFactory.getLogger(XsltTemplatesCache.class);
+
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private final Map<String, Templates> templatesMap = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled stylesheet from cache. If it is not in the cache, then load it from storage and put the compiled
+     * version into the cache.
+     *
+     * @param filename name of the XSLT file, may contain subfolders
+     * @return the compiled stylesheet
+     * @throws TransformationException if the stylesheet can't be loaded or compiled
+     */
+    public Templates getTemplates(String filename) throws TransformationException {
+        Templates templates = templatesMap.get(filename);
+        if (templates != null) {
+            return templates;
+        }
+        // TransformerFactory isn't thread-safe
+        synchronized (transformerFactory) {
+            templates = templatesMap.get(filename);
+            if (templates == null) {
+                String path = TRANSFORM_FOLDER + File.separator + filename;
+                logger.debug("Loading stylesheet {} from storage", path);
+                try {
+                    templates = transformerFactory.newTemplates(new StreamSource(new File(path)));
+                } catch (TransformerConfigurationException e) {
+                    String message = "opening file '" + filename + "' throws exception";
+                    logger.error("{}", message, e);
+                    throw new TransformationException(message, e);
+                }
+                templatesMap.put(filename, templates);
+            }
+            return templates;
+        }
+    }
+
+    /**
+     * Removes the compiled stylesheets of a file from cache. As only the name of a changed file may be known, the
+     * stylesheets of all files with this name are removed, regardless of their folder.
+     *
+     * @param fileName name of the changed file
+     */
+    public void removeFromCache(String fileName) {
+        templatesMap.keySet().removeIf(key -> {
+            Path name = Paths.get(key).getFileName();
+            boolean remove = name != null && name.toString().equals(fileName);
+            if (remove) {
+                logger.debug("Removing stylesheet {} from cache.", key);
+            }
+            return remove;
+        });
+    }
+
+    public int size() {
+        return templatesMap.size();
+    }
+}
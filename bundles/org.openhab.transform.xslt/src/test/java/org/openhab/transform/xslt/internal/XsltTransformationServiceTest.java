@@ -23,11 +23,13 @@ import org.openhab.core.transform.TransformationException;
  */
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
+    private XsltTemplatesCache templatesCache;
     private XsltTransformationService processor;
 
     @BeforeEach
     public void init() {
-        processor = new XsltTransformationService();
+        templatesCache = new XsltTemplatesCache();
+        processor = new XsltTransformationService(templatesCache);
     }
 
     @Test
@@ -38,4 +40,15 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testCompiledStylesheetIsReused() throws TransformationException {
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals(1, templatesCache.size());
+
+        templatesCache.removeFromCache("google_weather.xsl");
+        assertEquals(0, templatesCache.size());
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+    }
 }